@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client;
+
+import org.znerd.confluence.client.http.ConfluencePage;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.znerd.confluence.client.utils.AssertUtils.assertMandatoryParameter;
+import static org.znerd.confluence.client.utils.AssertUtils.assertNotNull;
+
+/**
+ * Delivers events to a delegate listener on a separate thread, so a slow listener never stalls publishing. Events are
+ * queued up to a fixed capacity; when the queue is full, further events are dropped and counted. Progress events are
+ * coalesced, so the delegate always receives the most recent progress. {@link #publishCompleted()} waits until all
+ * queued events were delivered.
+ */
+public class AsyncConfluencePublisherListener implements ConfluencePublisherListener, AutoCloseable {
+
+    private static final Runnable STOP = () -> {
+    };
+
+    private final ConfluencePublisherListener      delegate;
+    private final BlockingQueue<Runnable>          queue;
+    private final AtomicReference<PublishProgress> pendingProgress = new AtomicReference<>();
+    private final AtomicLong                       droppedEvents   = new AtomicLong();
+    private final Thread                           deliveryThread;
+
+    public AsyncConfluencePublisherListener(ConfluencePublisherListener delegate, int queueCapacity) {
+        assertMandatoryParameter(queueCapacity > 0, "queueCapacity");
+
+        this.delegate = assertNotNull(delegate, "delegate");
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.deliveryThread = new Thread(this::deliverEvents, "confluence-publisher-listener");
+        this.deliveryThread.setDaemon(true);
+        this.deliveryThread.start();
+    }
+
+    @Override
+    public void pageAdded(ConfluencePage addedPage) {
+        enqueue(() -> this.delegate.pageAdded(addedPage));
+    }
+
+    @Override
+    public void pageUpdated(ConfluencePage existingPage, ConfluencePage updatedPage) {
+        enqueue(() -> this.delegate.pageUpdated(existingPage, updatedPage));
+    }
+
+    @Override
+    public void pageDeleted(ConfluencePage deletedPage) {
+        enqueue(() -> this.delegate.pageDeleted(deletedPage));
+    }
+
+    @Override
+    public void pagesDeleted(String ancestorId, int deletedPages, int requests) {
+        enqueue(() -> this.delegate.pagesDeleted(ancestorId, deletedPages, requests));
+    }
+
+    @Override
+    public void attachmentAdded(String contentId, String attachmentFileName) {
+        enqueue(() -> this.delegate.attachmentAdded(contentId, attachmentFileName));
+    }
+
+    @Override
+    public void attachmentUpdated(String contentId, String attachmentFileName) {
+        enqueue(() -> this.delegate.attachmentUpdated(contentId, attachmentFileName));
+    }
+
+    @Override
+    public void attachmentDeleted(String contentId, String attachmentFileName) {
+        enqueue(() -> this.delegate.attachmentDeleted(contentId, attachmentFileName));
+    }
+
+    @Override
+    public void publishProgress(PublishProgress progress) {
+        if (this.pendingProgress.getAndSet(progress) == null && !enqueue(this::deliverPendingProgress)) {
+            this.pendingProgress.set(null);
+        }
+    }
+
+    @Override
+    public void publishCompleted() {
+        if (!this.deliveryThread.isAlive()) {
+            this.delegate.publishCompleted();
+            return;
+        }
+
+        CountDownLatch delivered = new CountDownLatch(1);
+        put(() -> {
+            try {
+                this.delegate.publishCompleted();
+            } finally {
+                delivered.countDown();
+            }
+        });
+        awaitUninterruptibly(delivered);
+    }
+
+    public long getDroppedEvents() {
+        return this.droppedEvents.get();
+    }
+
+    /**
+     * Delivers the events queued so far and stops the delivery thread.
+     */
+    @Override
+    public void close() {
+        put(STOP);
+        try {
+            this.deliveryThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean enqueue(Runnable event) {
+        boolean queued = this.queue.offer(event);
+        if (!queued) {
+            this.droppedEvents.incrementAndGet();
+        }
+
+        return queued;
+    }
+
+    private void put(Runnable event) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                this.queue.put(event);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliverPendingProgress() {
+        PublishProgress progress = this.pendingProgress.getAndSet(null);
+        if (progress != null) {
+            this.delegate.publishProgress(progress);
+        }
+    }
+
+    private void deliverEvents() {
+        while (true) {
+            Runnable event;
+            try {
+                event = this.queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (event == STOP) {
+                return;
+            }
+
+            try {
+                event.run();
+            } catch (RuntimeException e) {
+                Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+            }
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
+import org.znerd.confluence.client.utils.IoUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressed view of the attachments of one publish run. Every attachment file is hashed once, however many
+ * pages reference it, and the bytes of small files that are referenced again are kept by hash after the first upload,
+ * so further uploads of the same content, from the same or another path, do not read a file again. Kept bytes are
+ * released once the last page referencing them is uploaded, and otherwise limited by a budget, evicting the least
+ * recently used bytes first.
+ */
+class AttachmentRegistry {
+
+    static final long DEFAULT_MAX_CACHED_BYTES = 32L * 1024 * 1024;
+    static final long MAX_CACHED_FILE_SIZE     = 4L * 1024 * 1024;
+
+    private final long                   maxCachedBytes;
+    private final Map<Path, Integer>     remainingReferences = new HashMap<>();
+    private final Map<Path, String>      hashesByPath        = new ConcurrentHashMap<>();
+    private final Map<String, byte[]>    bytesByHash         = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Path>> pathsByHash         = new HashMap<>();
+    private       long                   cachedBytes;
+
+    AttachmentRegistry(List<ConfluencePageMetadata> pages, long maxCachedBytes) {
+        this.maxCachedBytes = maxCachedBytes;
+        countReferences(pages);
+    }
+
+    // not synchronized, so attachments of different pages can be hashed in parallel
+    String hash(ConfluencePageMetadata page, String attachmentFileName) {
+        Path path = normalized(page.getAttachments().get(attachmentFileName));
+        String hash = this.hashesByPath.get(path);
+        if (hash == null) {
+            hash = page.getAttachmentHash(attachmentFileName);
+            this.hashesByPath.putIfAbsent(path, hash);
+        }
+
+        return hash;
+    }
+
+    synchronized InputStream content(String attachmentPath, String hash, long size) {
+        Path path = normalized(attachmentPath);
+        Integer remaining = this.remainingReferences.computeIfPresent(path, (key, count) -> count - 1);
+
+        byte[] cached = this.bytesByHash.get(hash);
+        if (cached != null) {
+            this.pathsByHash.get(hash).add(path);
+            releaseIfUnreferenced(hash);
+
+            return new ByteArrayInputStream(cached);
+        }
+
+        // without references counted up front, e.g. for streaming metadata, any file may be referenced again
+        boolean referencedAgain = remaining == null || remaining > 0;
+        if (referencedAgain && size <= MAX_CACHED_FILE_SIZE && size <= this.maxCachedBytes) {
+            evict(this.maxCachedBytes - size);
+            byte[] bytes = IoUtils.fileBytes(path);
+            this.bytesByHash.put(hash, bytes);
+            this.pathsByHash.computeIfAbsent(hash, (key) -> new HashSet<>()).add(path);
+            this.cachedBytes += bytes.length;
+
+            return new ByteArrayInputStream(bytes);
+        }
+
+        return fileInputStream(path);
+    }
+
+    synchronized long getCachedBytes() {
+        return this.cachedBytes;
+    }
+
+    // paths with the same content that were not uploaded yet read their file again
+    private void releaseIfUnreferenced(String hash) {
+        for (Path path : this.pathsByHash.get(hash)) {
+            Integer remaining = this.remainingReferences.get(path);
+            if (remaining == null || remaining > 0) {
+                return;
+            }
+        }
+
+        this.cachedBytes -= this.bytesByHash.remove(hash).length;
+        this.pathsByHash.remove(hash);
+    }
+
+    private void evict(long maxCachedBytes) {
+        Iterator<Map.Entry<String, byte[]>> leastRecentlyUsed = this.bytesByHash.entrySet().iterator();
+        while (this.cachedBytes > maxCachedBytes && leastRecentlyUsed.hasNext()) {
+            Map.Entry<String, byte[]> entry = leastRecentlyUsed.next();
+            this.cachedBytes -= entry.getValue().length;
+            this.pathsByHash.remove(entry.getKey());
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    private void countReferences(List<ConfluencePageMetadata> pages) {
+        pages.forEach((page) -> {
+            page.getAttachments().values().forEach((attachmentPath) -> this.remainingReferences.merge(normalized(attachmentPath), 1, Integer::sum));
+            countReferences(page.getChildren());
+        });
+    }
+
+    private static Path normalized(String attachmentPath) {
+        return Paths.get(attachmentPath).toAbsolutePath().normalize();
+    }
+
+    private static FileInputStream fileInputStream(Path filePath) {
+        try {
+            return new FileInputStream(filePath.toFile());
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Could not find attachment [" + filePath + "]; absolute path is [" + filePath.toAbsolutePath() + "].", e);
+        }
+    }
+}
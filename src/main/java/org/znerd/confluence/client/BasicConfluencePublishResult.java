@@ -23,6 +23,16 @@ public final class BasicConfluencePublishResult implements ConfluencePublishResu
         this.pages = unmodifiableList(new ArrayList<>(assertNotNull(pages, "pages")));
     }
 
+    BasicConfluencePublishResult(final String confluenceRootUrl,
+                                 final String spaceKey,
+                                 final String ancestorId,
+                                 final PublishedPageTree pageTree) {
+        this.confluenceRootUrl = assertNotBlank(confluenceRootUrl, "confluenceRootUrl");
+        this.spaceKey = assertNotBlank(spaceKey, "spaceKey");
+        this.ancestorId = assertNotBlank(ancestorId, "ancestorId");
+        this.pages = assertNotNull(pageTree, "pageTree").compact().pageInfos();
+    }
+
     @Override
     public String getConfluenceRootUrl() {
         return confluenceRootUrl;
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.znerd.confluence.client.utils.AssertUtils.assertMandatoryParameter;
+
+/**
+ * Hands published pages to a consumer thread through a bounded queue. When the queue is full, publishing waits until
+ * the consumer took a page, so a slow consumer throttles publishing instead of letting pages pile up in memory.
+ */
+public class BlockingQueuePublishedPageSink implements PublishedPageSink {
+
+    private static final Object COMPLETED = new Object();
+
+    private final BlockingQueue<Object> queue;
+    private       boolean               completed;
+
+    public BlockingQueuePublishedPageSink(int queueCapacity) {
+        assertMandatoryParameter(queueCapacity > 0, "queueCapacity");
+
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @Override
+    public void pagePublished(PublishedPageInfo publishedPage) {
+        put(publishedPage);
+    }
+
+    @Override
+    public void publishCompleted() {
+        put(COMPLETED);
+    }
+
+    /**
+     * Returns the next published page, waiting until one is available, or {@code null} once publishing completed and
+     * all pages were taken.
+     */
+    public PublishedPageInfo take() throws InterruptedException {
+        return next(this.completed ? COMPLETED : this.queue.take());
+    }
+
+    /**
+     * Like {@link #take()}, but returns {@code null} as well when no page became available within the timeout; use
+     * {@link #isCompleted()} to tell both apart.
+     */
+    public PublishedPageInfo poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return next(this.completed ? COMPLETED : this.queue.poll(timeout, unit));
+    }
+
+    public boolean isCompleted() {
+        return this.completed;
+    }
+
+    private PublishedPageInfo next(Object element) {
+        if (element == COMPLETED) {
+            this.completed = true;
+            return null;
+        }
+
+        return (PublishedPageInfo) element;
+    }
+
+    private void put(Object element) {
+        try {
+            this.queue.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the consumer of published pages", e);
+        }
+    }
+}
@@ -13,5 +13,12 @@ public interface ConfluencePublishResult {
 
     String getAncestorId();
 
+    /**
+     * Returns the published pages in the order they were published. Pages whose content comes from a file are not the
+     * metadata that was published, but views of its title, identity, labels and attachments that read the content from
+     * the content file again, in the
+     * {@link org.znerd.confluence.client.metadata.ConfluencePageMetadata#getContentEncoding() content encoding} of the
+     * page.
+     */
     List<PublishedPageInfo> getPages();
 }
@@ -2,18 +2,16 @@ package org.znerd.confluence.client;
 
 import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Objects;
 
 public final class ConfluencePublishResultBuilder {
-    private final List<PublishedPageInfo> pages;
+    private PublishedPageTree pageTree;
 
     private String confluenceRootUrl;
     private String spaceKey;
     private String ancestorId;
 
     ConfluencePublishResultBuilder() {
-        this.pages = new ArrayList<>();
     }
 
     public ConfluencePublishResultBuilder defaults() {
@@ -37,11 +35,32 @@ public final class ConfluencePublishResultBuilder {
     }
 
     public ConfluencePublishResultBuilder addPage(final String spaceKey, final String ancestorId, final ConfluencePageMetadata page, final String contentId) {
-        pages.add(new PublishedPageInfo(spaceKey, ancestorId, page, contentId));
+        final PublishedPageInfo pageInfo = new PublishedPageInfo(spaceKey, ancestorId, page, contentId);
+        final int parentIndex = Objects.equals(ancestorId, this.ancestorId) ? PublishedPageTree.NO_PARENT : pageTree().lastIndexOf(ancestorId);
+        if (!Objects.equals(spaceKey, this.spaceKey) || (parentIndex == PublishedPageTree.NO_PARENT && !Objects.equals(ancestorId, this.ancestorId))) {
+            pageTree().addDetached(pageInfo);
+        } else {
+            pageTree().add(parentIndex, page, contentId);
+        }
         return this;
     }
 
+    /**
+     * Adds a page published under the page added at {@code parentIndex}, or directly under the ancestor for
+     * {@link PublishedPageTree#NO_PARENT}, and returns the index of the added page.
+     */
+    int addPage(final int parentIndex, final ConfluencePageMetadata page, final String contentId) {
+        return pageTree().add(parentIndex, page, contentId);
+    }
+
     public ConfluencePublishResult build() {
-        return new BasicConfluencePublishResult(confluenceRootUrl, spaceKey, ancestorId, pages);
+        return new BasicConfluencePublishResult(confluenceRootUrl, spaceKey, ancestorId, pageTree());
+    }
+
+    private PublishedPageTree pageTree() {
+        if (pageTree == null) {
+            pageTree = new PublishedPageTree(spaceKey, ancestorId);
+        }
+        return pageTree;
     }
 }
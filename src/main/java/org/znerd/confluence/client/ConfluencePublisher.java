@@ -18,63 +18,351 @@ package org.znerd.confluence.client;
 
 import org.znerd.confluence.client.http.ConfluenceAttachment;
 import org.znerd.confluence.client.http.ConfluenceClient;
+import org.znerd.confluence.client.http.ConfluenceLabel;
 import org.znerd.confluence.client.http.ConfluencePage;
+import org.znerd.confluence.client.http.ConfluenceProperty;
 import org.znerd.confluence.client.http.NotFoundException;
+import org.znerd.confluence.client.http.RequestFailedException;
+import org.znerd.confluence.client.jfr.FlightRecorderEvents;
+import org.znerd.confluence.client.jfr.ProcessingRecording;
+import org.znerd.confluence.client.jfr.ProcessingRecording.HashCheck;
 import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
-import org.znerd.confluence.client.metadata.ConfluencePublisherMetadata;
-import org.znerd.confluence.client.utils.IoUtils;
+import org.znerd.confluence.client.metadata.ConfluencePageSource;
+import org.znerd.confluence.client.metadata.ConfluencePageVisitor;
+import org.znerd.confluence.client.utils.GitUtils;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.synchronizedMap;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
+import static org.znerd.confluence.client.jfr.ProcessingRecording.HashCheck.MATCH;
+import static org.znerd.confluence.client.jfr.ProcessingRecording.HashCheck.NOT_CHECKED;
+import static org.znerd.confluence.client.jfr.ProcessingRecording.Outcome.ADDED;
+import static org.znerd.confluence.client.jfr.ProcessingRecording.Outcome.UNCHANGED;
+import static org.znerd.confluence.client.jfr.ProcessingRecording.Outcome.UPDATED;
 import static org.znerd.confluence.client.utils.AssertUtils.assertMandatoryParameter;
 import static org.znerd.confluence.client.utils.AssertUtils.assertNotNull;
-import static org.znerd.confluence.client.utils.IoUtils.closeQuietly;
 
 public class ConfluencePublisher {
     static final String CONTENT_HASH_PROPERTY_KEY = "content-hash";
+    static final String PAGE_IDENTITY_PROPERTY_KEY = "page-identity";
+    static final String LABELS_PROPERTY_KEY = "labels";
+    static final String SUBTREE_HASH_PROPERTY_KEY = "subtree-hash";
+    static final int MAX_SUBTREE_CONTENT_IDS = 1000;
+    static final int SUBTREE_HASH_BATCH_SIZE = 256;
     static final int INITIAL_PAGE_VERSION = 1;
 
-    private final ConfluencePublisherMetadata metadata;
+    private final ConfluencePageSource metadata;
     private final PublishingStrategy publishingStrategy;
     private final ConfluenceClient confluenceClient;
     private final ConfluencePublisherListener confluencePublisherListener;
     private final String versionMessage;
+    private final ContentHashingStrategy contentHashingStrategy;
+    private final Map<String, PublishedContent> publishedPages = new ConcurrentHashMap<>();
+    private final Map<String, String> publishedAttachmentHashes = new ConcurrentHashMap<>();
+    private final Map<String, String> publishedParentIds = new ConcurrentHashMap<>();
+    private final Set<String> invalidatedSubtreeHashes = ConcurrentHashMap.newKeySet();
+    private PublishProgressTracker progressTracker;
+    private final PageTreeDeleter pageTreeDeleter;
+    private AttachmentRegistry attachmentRegistry;
+    private PublishJournal journal = PublishJournal.NONE;
+    private volatile boolean watched;
 
-    public ConfluencePublisher(final ConfluencePublisherMetadata metadata,
+    public ConfluencePublisher(final ConfluencePageSource metadata,
                                final PublishingStrategy publishingStrategy,
                                final ConfluenceClient confluenceClient) {
         this(metadata, publishingStrategy, confluenceClient, null, null);
     }
 
-    public ConfluencePublisher(final ConfluencePublisherMetadata metadata,
+    public ConfluencePublisher(final ConfluencePageSource metadata,
                                final PublishingStrategy publishingStrategy,
                                final ConfluenceClient confluenceClient,
                                final ConfluencePublisherListener confluencePublisherListener,
                                final String versionMessage) {
+        this(metadata, publishingStrategy, confluenceClient, confluencePublisherListener, versionMessage, ContentHashingStrategy.RAW);
+    }
+
+    public ConfluencePublisher(final ConfluencePageSource metadata,
+                               final PublishingStrategy publishingStrategy,
+                               final ConfluenceClient confluenceClient,
+                               final ConfluencePublisherListener confluencePublisherListener,
+                               final String versionMessage,
+                               final ContentHashingStrategy contentHashingStrategy) {
         this.metadata = assertNotNull(metadata, "metadata");
         this.publishingStrategy = assertNotNull(publishingStrategy, "publishingStrategy");
         this.confluenceClient = assertNotNull(confluenceClient, "confluenceClient");
         this.confluencePublisherListener = confluencePublisherListener != null ? confluencePublisherListener : NoOpConfluencePublisherListener.SINGLETON;
         this.versionMessage = versionMessage;
+        this.contentHashingStrategy = assertNotNull(contentHashingStrategy, "contentHashingStrategy");
+        this.pageTreeDeleter = new PageTreeDeleter(confluenceClient);
     }
 
     public ConfluencePublishResult publish() {
+        return publish(null, true, null);
+    }
+
+    /**
+     * Publishes like {@link #publish()}, but delivers each page to the given sink as soon as it was published instead
+     * of collecting the pages, so memory does not grow with the size of the page tree. The pages of the returned result
+     * are empty.
+     */
+    public ConfluencePublishResult publish(final PublishedPageSink pageSink) {
+        return publish(assertNotNull(pageSink, "pageSink"), false, null);
+    }
+
+    /**
+     * Publishes like {@link #publish()}, but level by level instead of depth first: the children of all pages of a
+     * level are listed, and the pages of the next level are published along with their attachments and labels, on at
+     * most {@code parallelism} threads each, so the number of round trips waited for grows with the depth of the page
+     * tree rather than with its size. The parallelism must be at least 1, and is capped at the number of requests the
+     * client can send concurrently, {@link ConfluenceClient#getMaxConcurrentRequests()}, which is the connection pool
+     * size of 4 for a {@code ConfluenceRestClient}, as further threads would only wait for a connection. The listener
+     * is called from these threads. Streaming metadata, which holds no page tree to go through level by level, is
+     * published depth first.
+     */
+    public ConfluencePublishResult publishBreadthFirst(final int parallelism) {
+        assertMandatoryParameter(parallelism >= 1, "parallelism");
+
+        final int cappedParallelism = Math.min(parallelism, this.confluenceClient.getMaxConcurrentRequests());
+        try (ParallelRequests parallelRequests = new ParallelRequests(cappedParallelism, "confluence-publisher-", "publish pages")) {
+            return publish(null, true, parallelRequests);
+        }
+    }
+
+    /**
+     * Finds out what {@link #publish()} would do without modifying anything: only the reads are sent to Confluence, and
+     * the writes are counted instead. Pages that would be added are treated as empty, so their attachments and children
+     * are reported as added without further requests.
+     */
+    public DryRunReport dryRun() {
+        final DryRunConfluenceClient dryRunConfluenceClient = new DryRunConfluenceClient(this.confluenceClient);
+        final DryRunReport.Recorder recorder = new DryRunReport.Recorder();
+        final ConfluencePublisher dryRunPublisher = new ConfluencePublisher(this.metadata, this.publishingStrategy, dryRunConfluenceClient, recorder,
+                this.versionMessage, this.contentHashingStrategy);
+
+        return recorder.report(dryRunPublisher.publish(), dryRunConfluenceClient);
+    }
+
+    /**
+     * Publishes like {@link #publish()}, journaling every completed page to the given file. When a run does not
+     * complete, a run with {@code resume} set skips the pages in the journal whose version on Confluence, as listed
+     * with their parent, and whose title, content, labels and attachments in the metadata are still the same. The
+     * journal is deleted once a run completes. Not supported with {@link PublishingStrategy#APPEND_TO_ANCESTOR_KEEP_CHILDREN},
+     * which does not list the child pages a run resumes from.
+     */
+    public ConfluencePublishResult publishWithJournal(final Path journalFile, final boolean resume) {
+        assertNotNull(journalFile, "journalFile");
+        if (!this.publishingStrategy.isDeleteExistingChildren()) {
+            throw new IllegalArgumentException("'" + this.publishingStrategy + "' publishing strategy does not support publishing with a journal");
+        }
+
+        this.journal = PublishJournal.open(journalFile, resume);
+        try {
+            final ConfluencePublishResult result = publish(null, true, null);
+            this.journal.delete();
+
+            return result;
+        } finally {
+            this.journal.close();
+            this.journal = PublishJournal.NONE;
+        }
+    }
+
+    private ConfluencePublishResult publish(final PublishedPageSink pageSink, final boolean accumulatePages, final ParallelRequests parallelRequests) {
+        try {
+            final String spaceKey = this.metadata.getSpaceKey();
+            final String ancestorId = this.metadata.getAncestorId();
+            final ConfluencePublishResultBuilder resultBuilder = resultBuilder(spaceKey, ancestorId);
+
+            // streaming metadata holds no page tree, so its pages are only known while walking them
+            final List<ConfluencePageMetadata> pages = rootPages(this.metadata);
+            if (this.publishingStrategy.isReplaceAncestor()) {
+                assertSingleRootPage(this.publishingStrategy, pages.stream().map(ConfluencePageMetadata::getTitle).collect(toList()));
+            }
+
+            this.progressTracker = new PublishProgressTracker(pages, this.confluencePublisherListener);
+            this.attachmentRegistry = new AttachmentRegistry(pages, AttachmentRegistry.DEFAULT_MAX_CACHED_BYTES);
+            final Map<ConfluencePageMetadata, String> subtreeHashes = this.publishingStrategy.isDeleteExistingChildren() && this.metadata.hasPageTree()
+                    ? subtreeHashes(pages)
+                    : null;
+            this.publishedPages.clear();
+            this.publishedAttachmentHashes.clear();
+            this.publishedParentIds.clear();
+            this.invalidatedSubtreeHashes.clear();
+            if (parallelRequests != null && this.metadata.hasPageTree()) {
+                final PublishingVisitor publishingVisitor = new PublishingVisitor(null, null, spaceKey, ancestorId, subtreeHashes);
+                publishingVisitor.publishLevels(pages, accumulatePages ? resultBuilder : null, pageSink, parallelRequests);
+                publishingVisitor.walkCompleted();
+            } else {
+                final PublishingVisitor publishingVisitor = new PublishingVisitor(accumulatePages ? resultBuilder : null, pageSink, spaceKey, ancestorId, subtreeHashes);
+                this.metadata.walkPages(publishingVisitor);
+                publishingVisitor.walkCompleted();
+            }
+
+            this.attachmentRegistry = null;
+            this.confluencePublisherListener.publishCompleted();
+
+            return resultBuilder.build();
+        } finally {
+            if (pageSink != null) {
+                pageSink.publishCompleted();
+            }
+        }
+    }
+
+    /**
+     * Returns the root pages of metadata that holds a page tree, with their descendants, or no pages for metadata that
+     * only reads its pages while walking them.
+     */
+    private static List<ConfluencePageMetadata> rootPages(final ConfluencePageSource metadata) {
+        if (!metadata.hasPageTree()) {
+            return emptyList();
+        }
+
+        final List<ConfluencePageMetadata> rootPages = new ArrayList<>();
+        metadata.walkPages(new ConfluencePageVisitor() {
+            private int depth;
+
+            @Override
+            public void enterPage(final ConfluencePageMetadata page) {
+                if (this.depth++ == 0) {
+                    rootPages.add(page);
+                }
+            }
+
+            @Override
+            public void exitPage(final ConfluencePageMetadata page) {
+                this.depth--;
+            }
+        });
+
+        return rootPages;
+    }
+
+    /**
+     * Publishes only the pages whose content file or attachments are among the given changed files, e.g. the files
+     * changed between two revisions as listed by {@link GitUtils#changedFiles(Path, String, String)}. Ancestors of
+     * those pages are looked up by title, or published when they do not exist yet; all other pages are not touched, so
+     * pages and attachments that were removed from the metadata are only deleted by a full {@link #publish()}.
+     */
+    public ConfluencePublishResult publishChanged(final Collection<Path> changedFiles) {
+        assertNotNull(changedFiles, "changedFiles");
+
         final String spaceKey = this.metadata.getSpaceKey();
         final String ancestorId = this.metadata.getAncestorId();
+        final ConfluencePublishResultBuilder resultBuilder = resultBuilder(spaceKey, ancestorId);
+
+        this.progressTracker = new PublishProgressTracker(emptyList(), this.confluencePublisherListener);
+        this.attachmentRegistry = new AttachmentRegistry(emptyList(), AttachmentRegistry.DEFAULT_MAX_CACHED_BYTES);
+        final Set<Path> normalizedChangedFiles = changedFiles.stream().map(ConfluencePublisher::normalized).collect(toSet());
+        this.metadata.walkPages(new ChangedPagesVisitor(resultBuilder, normalizedChangedFiles, spaceKey, ancestorId));
 
+        this.attachmentRegistry = null;
+        this.confluencePublisherListener.publishCompleted();
+
+        return resultBuilder.build();
+    }
+
+    /**
+     * Keeps the versions and hashes of the pages and attachments published from now on, which {@link #republish} starts
+     * from. Called by the {@link ConfluencePublisherWatcher} before its first publish; without a watcher they are not
+     * kept.
+     */
+    void watched() {
+        this.watched = true;
+    }
+
+    /**
+     * Republishes the given pages and attachments of an earlier {@link #publish()} without walking the page tree. Pages
+     * are updated with the version and hash known from that publish, so an edited page costs three requests; when the
+     * page was changed on Confluence in the meantime, its version and hash are fetched again.
+     */
+    void republish(final Collection<PublishedPageInfo> changedPages, final Map<PublishedPageInfo, Set<String>> changedAttachments) {
+        this.progressTracker = new PublishProgressTracker(emptyList(), this.confluencePublisherListener);
+        this.attachmentRegistry = new AttachmentRegistry(emptyList(), AttachmentRegistry.DEFAULT_MAX_CACHED_BYTES);
+        changedPages.forEach(this::republishPage);
+        changedAttachments.forEach((pageInfo, attachmentFileNames) -> attachmentFileNames.forEach((attachmentFileName) ->
+                republishAttachment(pageInfo.getPageId(), pageInfo.getPage(), attachmentFileName)));
+
+        this.attachmentRegistry = null;
+        this.confluencePublisherListener.publishCompleted();
+    }
+
+    private void republishPage(final PublishedPageInfo pageInfo) {
+        final String contentId = pageInfo.getPageId();
+        final ConfluencePageMetadata page = pageInfo.getPage();
+        final String ancestorId = contentId.equals(pageInfo.getAncestorId()) ? null : pageInfo.getAncestorId();
+        final ProcessingRecording recording = FlightRecorderEvents.beginPageProcessing(pageInfo.getSpaceKey(), page.getTitle());
+        final PublishedContent publishedPage = this.publishedPages.get(contentId);
+        if (publishedPage == null) {
+            updatePage(contentId, ancestorId, page, recording);
+            invalidateSubtreeHashes(contentId);
+            return;
+        }
+
+        final String newContentHash = this.contentHashingStrategy.hash(page);
+        if (publishedPage.hash.equals(newContentHash) && publishedPage.title.equals(page.getTitle())) {
+            recording.complete(contentId, UNCHANGED, MATCH);
+            this.progressTracker.pageCompleted(false, 0);
+            return;
+        }
+
+        invalidateSubtreeHashes(contentId);
+        try {
+            final ConfluencePage existingPage = new ConfluencePage(contentId, publishedPage.title, publishedPage.version);
+            final ConfluenceProperty existingContentHash = new ConfluenceProperty(CONTENT_HASH_PROPERTY_KEY, publishedPage.hash, publishedPage.hashVersion);
+            updatePageContent(contentId, ancestorId, page, existingPage, existingContentHash, newContentHash, recording);
+        } catch (final RequestFailedException e) {
+            updatePage(contentId, ancestorId, page, recording);
+        }
+    }
+
+    private void republishAttachment(final String contentId, final ConfluencePageMetadata page, final String attachmentFileName) {
+        final String newAttachmentHash = this.attachmentRegistry.hash(page, attachmentFileName);
+        if (newAttachmentHash.equals(this.publishedAttachmentHashes.get(attachmentKey(contentId, attachmentFileName)))) {
+            FlightRecorderEvents.beginAttachmentProcessing(attachmentFileName).complete(contentId, UNCHANGED, MATCH);
+            this.progressTracker.attachmentCompleted(false, 0);
+            return;
+        }
+
+        invalidateSubtreeHashes(contentId);
+        addOrUpdateAttachment(contentId, page, attachmentFileName);
+    }
+
+    private ConfluencePublishResultBuilder resultBuilder(final String spaceKey, final String ancestorId) {
         assertMandatoryParameter(isNotBlank(spaceKey), "spaceKey");
         assertMandatoryParameter(isNotBlank(ancestorId), "ancestorId");
 
@@ -84,180 +372,955 @@ public class ConfluencePublisher {
                 .setSpaceKey(spaceKey)
                 .setAncestorId(ancestorId);
 
-        final List<ConfluencePageMetadata> pages = this.metadata.getPages();
-        if (this.publishingStrategy.isAppendToAncestor()) {
-            startPublishingUnderAncestorId(resultBuilder, pages, spaceKey, ancestorId);
-        } else if (this.publishingStrategy.isReplaceAncestor()) {
-            startPublishingReplacingAncestorId(resultBuilder, singleRootPage(this.publishingStrategy, this.metadata), spaceKey, ancestorId);
-        } else {
+        if (!this.publishingStrategy.isAppendToAncestor() && !this.publishingStrategy.isReplaceAncestor()) {
             throw new IllegalArgumentException("Invalid publishing strategy '" + this.publishingStrategy + "'");
         }
 
-        this.confluencePublisherListener.publishCompleted();
+        return resultBuilder;
+    }
 
-        return resultBuilder.build();
+    private static void assertSingleRootPage(final PublishingStrategy publishingStrategy, final Collection<String> rootPageTitles) {
+        if (rootPageTitles.size() > 1) {
+            final String quotedRootPageTitles = rootPageTitles.stream()
+                    .map(title -> "'" + title + "'")
+                    .collect(joining(", "));
+            throw new IllegalArgumentException("Multiple root pages detected: " + quotedRootPageTitles + ", but '" + publishingStrategy + "' publishing strategy only supports one single root page");
+        }
     }
 
-    private static ConfluencePageMetadata singleRootPage(final PublishingStrategy publishingStrategy, final ConfluencePublisherMetadata metadata) {
-        final List<ConfluencePageMetadata> rootPages = metadata.getPages();
+    private void deleteConfluencePages(String ancestorId, List<ConfluencePage> childPagesOnConfluenceToDelete, ParallelRequests parallelRequests) {
+        if (childPagesOnConfluenceToDelete.isEmpty()) {
+            return;
+        }
 
-        if (rootPages.size() > 1) {
-            final String rootPageTitles = rootPages.stream()
-                    .map(page -> "'" + page.getTitle() + "'")
-                    .collect(joining(", "));
-            throw new IllegalArgumentException("Multiple root pages detected: " + rootPageTitles + ", but '" + publishingStrategy + "' publishing strategy only supports one single root page");
+        final AtomicInteger deletedPages = new AtomicInteger();
+        final int requests = this.pageTreeDeleter.delete(childPagesOnConfluenceToDelete, parallelRequests, deletedPage -> {
+            this.publishedPages.remove(deletedPage.getContentId());
+            this.confluencePublisherListener.pageDeleted(deletedPage);
+            deletedPages.incrementAndGet();
+        });
+        this.confluencePublisherListener.pagesDeleted(ancestorId, deletedPages.get(), requests);
+    }
+
+    /**
+     * Deletes the attachments of the page on Confluence that are not in the metadata, and adds or updates the attachments
+     * accepted by {@code attachmentFilter}, reusing the attachments listed for the deletion instead of looking each of
+     * them up again. The hash properties of the attachments are taken from {@code pageProperties} when the properties
+     * of the page were fetched already, and are otherwise fetched at once. A page {@code created} by this publish has no
+     * attachments yet, so they are not listed.
+     */
+    private void syncAttachments(String contentId, ConfluencePageMetadata page, Predicate<String> attachmentFilter, Map<String, ConfluenceProperty> pageProperties,
+                                 boolean created) {
+        final Reconciliation<String, ConfluenceAttachment> reconciliation = Reconciliation.reconcile(
+                page.getAttachments().keySet(), identity(), created ? emptyList() : this.confluenceClient.getAttachments(contentId), ConfluenceAttachment::getTitle);
+
+        reconciliation.toDelete().forEach(confluenceAttachment -> {
+            this.confluenceClient.deletePropertyByKey(contentId, getAttachmentHashKey(confluenceAttachment.getTitle()));
+            this.confluenceClient.deleteAttachment(confluenceAttachment.getId());
+            this.publishedAttachmentHashes.remove(attachmentKey(contentId, confluenceAttachment.getTitle()));
+            this.confluencePublisherListener.attachmentDeleted(contentId, confluenceAttachment.getTitle());
+        });
+        final List<String> attachmentsToAdd = reconciliation.toAdd().stream()
+                .filter(attachmentFilter)
+                .collect(toList());
+        final List<Reconciliation.Match<String, ConfluenceAttachment>> attachmentsToUpdate = reconciliation.toUpdate().stream()
+                .filter(match -> attachmentFilter.test(match.getLocal()))
+                .collect(toList());
+        if (attachmentsToAdd.isEmpty() && attachmentsToUpdate.isEmpty()) {
+            return;
         }
 
-        return rootPages.size() == 1 ? rootPages.get(0) : null;
+        final Map<String, ConfluenceProperty> attachmentHashes = pageProperties != null
+                ? pageProperties
+                : this.confluenceClient.getPropertiesByKey(contentId, Stream.concat(attachmentsToAdd.stream(), attachmentsToUpdate.stream().map(Reconciliation.Match::getLocal))
+                        .map(this::getAttachmentHashKey)
+                        .collect(toList()));
+        attachmentsToAdd.forEach(attachmentFileName -> addOrUpdateAttachment(contentId, page, attachmentFileName, null, attachmentHashes.get(getAttachmentHashKey(attachmentFileName))));
+        attachmentsToUpdate.forEach(match -> addOrUpdateAttachment(contentId, page, match.getLocal(), match.getRemote(), attachmentHashes.get(getAttachmentHashKey(match.getLocal()))));
     }
 
-    private void startPublishingReplacingAncestorId(final ConfluencePublishResultBuilder resultBuilder,
-                                                    final ConfluencePageMetadata rootPage,
-                                                    final String spaceKey,
-                                                    final String ancestorId) {
-        if (rootPage != null) {
-            updatePage(ancestorId, null, rootPage);
-            resultBuilder.addPage(spaceKey, ancestorId, rootPage, ancestorId);
+    /**
+     * Brings the labels of the page in line with the metadata. The labels published last are kept in the
+     * {@link #LABELS_PROPERTY_KEY labels property}, which comes with {@code pageProperties}, so unchanged labels cost no
+     * request. Otherwise the missing labels are added with a single request, and only the labels that were removed from
+     * the metadata since are deleted. Without {@code pageProperties}, pages without labels are left alone.
+     */
+    private void syncLabels(String contentId, ConfluencePageMetadata page, Map<String, ConfluenceProperty> pageProperties, boolean created) {
+        if (pageProperties == null && page.getLabels().isEmpty()) {
+            return;
+        }
 
-            deleteConfluenceAttachmentsNotPresentUnderPage(ancestorId, rootPage.getAttachments());
-            addAttachments(ancestorId, rootPage.getAttachments());
+        final ConfluenceProperty publishedLabelsProperty = (pageProperties != null
+                ? pageProperties
+                : this.confluenceClient.getPropertiesByKey(contentId, singletonList(LABELS_PROPERTY_KEY))).get(LABELS_PROPERTY_KEY);
+        final Set<String> labels = page.getLabels().stream()
+                .map(label -> label.trim().toLowerCase(Locale.ROOT))
+                .collect(toCollection(TreeSet::new));
+        final Set<String> publishedLabels = publishedLabelsProperty != null
+                ? new TreeSet<>(asList(publishedLabelsProperty.getValue().split(",")))
+                : emptySet();
+        if (labels.equals(publishedLabels)) {
+            return;
+        }
 
-            startPublishingUnderAncestorId(resultBuilder, rootPage.getChildren(), spaceKey, ancestorId);
+        final Reconciliation<String, ConfluenceLabel> reconciliation = Reconciliation.reconcile(
+                labels, identity(), created ? emptyList() : this.confluenceClient.getLabelsFromPage(contentId), ConfluenceLabel::getName);
+        if (!reconciliation.toAdd().isEmpty()) {
+            this.confluenceClient.addLabelsToPage(contentId, reconciliation.toAdd());
         }
-    }
+        reconciliation.toDelete().stream()
+                .filter(confluenceLabel -> publishedLabels.contains(confluenceLabel.getName()))
+                .forEach(confluenceLabel -> this.confluenceClient.deleteLabelFromPage(contentId, confluenceLabel.getName()));
 
-    private void startPublishingUnderAncestorId(final ConfluencePublishResultBuilder resultBuilder, List<ConfluencePageMetadata> pages, String spaceKey, String ancestorId) {
-        if (this.publishingStrategy.isDeleteExistingChildren()) {
-            deleteConfluencePagesNotPresentUnderAncestor(pages, ancestorId);
+        if (labels.isEmpty()) {
+            this.confluenceClient.deletePropertyByKey(contentId, LABELS_PROPERTY_KEY);
+        } else {
+            setProperty(contentId, LABELS_PROPERTY_KEY, String.join(",", labels), publishedLabelsProperty);
         }
-        pages.forEach(page -> {
-            String contentId = addOrUpdatePageUnderAncestor(spaceKey, ancestorId, page);
-            resultBuilder.addPage(spaceKey, ancestorId, page, contentId);
+    }
 
-            final Map<String, String> attachments = page.getAttachments();
-            deleteConfluenceAttachmentsNotPresentUnderPage(contentId, attachments);
-            addAttachments(contentId, attachments);
+    /**
+     * Digest of everything a publish of the page depends on in the metadata, so a journaled page can be skipped as long
+     * as its fingerprint stays the same.
+     */
+    private String fingerprint(ConfluencePageMetadata page) {
+        final StringBuilder fingerprint = new StringBuilder()
+                .append(page.getTitle()).append('\n')
+                .append(page.getIdentity()).append('\n')
+                .append(this.contentHashingStrategy.hash(page)).append('\n')
+                .append(String.join(",", new TreeSet<>(page.getLabels())));
+        new TreeSet<>(page.getAttachments().keySet()).forEach(attachmentFileName -> fingerprint.append('\n')
+                .append(attachmentFileName).append('=').append(this.attachmentRegistry.hash(page, attachmentFileName)));
 
-            startPublishingUnderAncestorId(resultBuilder, page.getChildren(), spaceKey, contentId);
-        });
+        return sha256Hex(fingerprint.toString());
     }
 
-    private void deleteConfluencePagesNotPresentUnderAncestor(List<ConfluencePageMetadata> pagesToKeep, String ancestorId) {
-        final List<ConfluencePage> childPagesOnConfluence = this.confluenceClient.getChildPages(ancestorId);
+    /**
+     * Computes the subtree hash of every page in the given page tree: the {@link #fingerprint fingerprint} of the page
+     * followed by the subtree hashes of its children, so it changes with any page below. Sibling subtrees are hashed in
+     * parallel.
+     */
+    private Map<ConfluencePageMetadata, String> subtreeHashes(List<ConfluencePageMetadata> pages) {
+        final Map<ConfluencePageMetadata, String> subtreeHashes = synchronizedMap(new IdentityHashMap<>());
+        pages.parallelStream().forEach(page -> subtreeHash(page, subtreeHashes));
 
-        final List<ConfluencePage> childPagesOnConfluenceToDelete = childPagesOnConfluence.stream()
-                .filter(childPageOnConfluence -> pagesToKeep.stream().noneMatch(page -> page.getTitle().equals(childPageOnConfluence.getTitle())))
+        return subtreeHashes;
+    }
+
+    private String subtreeHash(ConfluencePageMetadata page, Map<ConfluencePageMetadata, String> subtreeHashes) {
+        final List<String> childSubtreeHashes = page.getChildren().parallelStream()
+                .map(child -> subtreeHash(child, subtreeHashes))
                 .collect(toList());
+        final String subtreeHash = sha256Hex(fingerprint(page) + '\n' + String.join("\n", childSubtreeHashes));
+        subtreeHashes.put(page, subtreeHash);
 
-        childPagesOnConfluenceToDelete.forEach(pageToDelete -> {
-            final List<ConfluencePage> pageScheduledForDeletionChildPagesOnConfluence = this.confluenceClient.getChildPages(pageToDelete.getContentId());
-            pageScheduledForDeletionChildPagesOnConfluence.forEach(parentPageToDelete ->
-                    this.deleteConfluencePagesNotPresentUnderAncestor(emptyList(), pageToDelete.getContentId()));
-            this.confluenceClient.deletePage(pageToDelete.getContentId());
-            this.confluencePublisherListener.pageDeleted(pageToDelete);
-        });
+        return subtreeHash;
     }
 
-    private void deleteConfluenceAttachmentsNotPresentUnderPage(String contentId, Map<String, String> attachments) {
-        final List<ConfluenceAttachment> confluenceAttachments = this.confluenceClient.getAttachments(contentId);
+    private static int countDescendants(ConfluencePageMetadata page) {
+        return page.getChildren().stream().mapToInt(child -> 1 + countDescendants(child)).sum();
+    }
 
-        confluenceAttachments.stream()
-                .filter(confluenceAttachment -> attachments.keySet().stream().noneMatch(attachmentFileName -> attachmentFileName.equals(confluenceAttachment.getTitle())))
-                .forEach(confluenceAttachment -> {
-                    this.confluenceClient.deletePropertyByKey(contentId, getAttachmentHashKey(confluenceAttachment.getTitle()));
-                    this.confluenceClient.deleteAttachment(confluenceAttachment.getId());
-                });
+    /**
+     * Deletes the subtree hash properties of the page and its ancestors, as published by the last {@link #publish()},
+     * once the page was changed without publishing the whole tree, so the next publish does not skip the branch.
+     */
+    private void invalidateSubtreeHashes(String contentId) {
+        if (!this.publishingStrategy.isDeleteExistingChildren()) {
+            return;
+        }
+
+        String subtreeContentId = contentId;
+        while (subtreeContentId != null && this.invalidatedSubtreeHashes.add(subtreeContentId)) {
+            this.confluenceClient.deletePropertyByKey(subtreeContentId, SUBTREE_HASH_PROPERTY_KEY);
+            subtreeContentId = this.publishedParentIds.get(subtreeContentId);
+        }
     }
 
     private String addOrUpdatePageUnderAncestor(String spaceKey, String ancestorId, ConfluencePageMetadata page) {
+        final ProcessingRecording recording = FlightRecorderEvents.beginPageProcessing(spaceKey, page.getTitle());
         try {
             final String contentId = this.confluenceClient.getPageByTitle(spaceKey, page.getTitle());
-            updatePage(contentId, ancestorId, page);
+            updatePage(contentId, ancestorId, page, recording);
             return contentId;
         } catch (final NotFoundException e) {
             // fall through
         }
 
+        return addPageUnderAncestor(spaceKey, ancestorId, page, recording);
+    }
+
+    private String addPageUnderAncestor(String spaceKey, String ancestorId, ConfluencePageMetadata page, ProcessingRecording recording) {
         final String content = page.getContent();
         final String contentId = this.confluenceClient.addPageUnderAncestor(spaceKey, ancestorId, page.getTitle(), content, this.versionMessage);
-        this.confluenceClient.setPropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY, hash(content));
+        final String contentHash = this.contentHashingStrategy.hash(page);
+        this.confluenceClient.setPropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY, contentHash);
+        if (page.getIdentity() != null) {
+            this.confluenceClient.setPropertyByKey(contentId, PAGE_IDENTITY_PROPERTY_KEY, page.getIdentity());
+        }
+        recordPublishedPage(contentId, new PublishedContent(page.getTitle(), INITIAL_PAGE_VERSION, contentHash, 1));
         this.confluencePublisherListener.pageAdded(new ConfluencePage(contentId, page.getTitle(), content, INITIAL_PAGE_VERSION));
+        recording.complete(contentId, ADDED, NOT_CHECKED);
+        this.progressTracker.pageCompleted(true, utf8Length(content));
         return contentId;
     }
 
-    private void updatePage(String contentId, String ancestorId, ConfluencePageMetadata page) {
-        final String content = page.getContent();
+    private Map<String, ConfluenceProperty> updatePage(String contentId, String ancestorId, ConfluencePageMetadata page, ProcessingRecording recording) {
+        return updatePage(contentId, ancestorId, page, recording, false);
+    }
+
+    /**
+     * Updates the page if its content or title changed, or if it {@code moved} to the given ancestor. Returns the content
+     * and attachment hash properties and the labels property of the page, which are fetched at once.
+     */
+    private Map<String, ConfluenceProperty> updatePage(String contentId, String ancestorId, ConfluencePageMetadata page, ProcessingRecording recording, boolean moved) {
         final ConfluencePage existingPage = this.confluenceClient.getPageWithContentAndVersionById(contentId);
-        final String existingContentHash = this.confluenceClient.getPropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY);
-        final String newContentHash = hash(content);
+        final Map<String, ConfluenceProperty> pageProperties = this.confluenceClient.getPropertiesByKey(contentId, pagePropertyKeys(page));
+        final ConfluenceProperty existingContentHash = pageProperties.get(CONTENT_HASH_PROPERTY_KEY);
+        final String newContentHash = this.contentHashingStrategy.hash(page);
 
-        if (notSameHash(existingContentHash, newContentHash) || !existingPage.getTitle().equals(page.getTitle())) {
-            this.confluenceClient.deletePropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY);
-            int newPageVersion = existingPage.getVersion() + 1;
-            this.confluenceClient.updatePage(contentId, ancestorId, page.getTitle(), content, newPageVersion, this.versionMessage);
-            this.confluenceClient.setPropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY, newContentHash);
-            this.confluencePublisherListener.pageUpdated(existingPage, new ConfluencePage(contentId, page.getTitle(), content, newPageVersion));
+        if (moved || notSameHash(valueOf(existingContentHash), newContentHash) || !existingPage.getTitle().equals(page.getTitle())) {
+            updatePageContent(contentId, ancestorId, page, existingPage, existingContentHash, newContentHash, recording);
+        } else {
+            recordPublishedPage(contentId, new PublishedContent(page.getTitle(), existingPage.getVersion(), newContentHash, existingContentHash.getVersion()));
+            recording.complete(contentId, UNCHANGED, MATCH);
+            this.progressTracker.pageCompleted(false, 0);
         }
+
+        return pageProperties;
     }
 
-    private void addAttachments(String contentId, Map<String, String> attachments) {
-        attachments.forEach((attachmentFileName, attachmentPath) -> addOrUpdateAttachment(contentId, attachmentPath, attachmentFileName));
+    private void updatePageContent(String contentId, String ancestorId, ConfluencePageMetadata page, ConfluencePage existingPage,
+                                   ConfluenceProperty existingContentHash, String newContentHash, ProcessingRecording recording) {
+        final String content = page.getContent();
+        int newPageVersion = existingPage.getVersion() + 1;
+        this.confluenceClient.updatePage(contentId, ancestorId, page.getTitle(), content, newPageVersion, this.versionMessage);
+        final int contentHashVersion = setProperty(contentId, CONTENT_HASH_PROPERTY_KEY, newContentHash, existingContentHash);
+        recordPublishedPage(contentId, new PublishedContent(page.getTitle(), newPageVersion, newContentHash, contentHashVersion));
+        this.confluencePublisherListener.pageUpdated(existingPage, new ConfluencePage(contentId, page.getTitle(), content, newPageVersion));
+        recording.complete(contentId, UPDATED, HashCheck.of(valueOf(existingContentHash), newContentHash));
+        this.progressTracker.pageCompleted(true, utf8Length(content));
     }
 
-    private void addOrUpdateAttachment(String contentId, String attachmentPath, String attachmentFileName) {
-        final Path absoluteAttachmentPath = absoluteAttachmentPath(attachmentPath);
-        final String newAttachmentHash = hash(fileInputStream(absoluteAttachmentPath));
+    private List<String> pagePropertyKeys(ConfluencePageMetadata page) {
+        final List<String> pagePropertyKeys = new ArrayList<>(page.getAttachments().size() + 3);
+        pagePropertyKeys.add(CONTENT_HASH_PROPERTY_KEY);
+        pagePropertyKeys.add(LABELS_PROPERTY_KEY);
+        pagePropertyKeys.add(SUBTREE_HASH_PROPERTY_KEY);
+        page.getAttachments().keySet().forEach(attachmentFileName -> pagePropertyKeys.add(getAttachmentHashKey(attachmentFileName)));
 
+        return pagePropertyKeys;
+    }
+
+    private void setPageIdentity(String contentId, String identity, boolean replaceExisting) {
+        if (replaceExisting) {
+            this.confluenceClient.updatePropertyByKey(contentId, PAGE_IDENTITY_PROPERTY_KEY, identity, 0);
+        } else {
+            this.confluenceClient.setPropertyByKey(contentId, PAGE_IDENTITY_PROPERTY_KEY, identity);
+        }
+    }
+
+    /**
+     * Sets a property with a single request: a versioned update when it exists, and otherwise a create. Returns the new
+     * version of the property.
+     */
+    private int setProperty(String contentId, String key, String value, ConfluenceProperty existingProperty) {
+        if (existingProperty != null) {
+            return this.confluenceClient.updatePropertyByKey(contentId, key, value, existingProperty.getVersion());
+        }
+
+        this.confluenceClient.setPropertyByKey(contentId, key, value);
+        return 1;
+    }
+
+    private static String valueOf(ConfluenceProperty property) {
+        return property != null ? property.getValue() : null;
+    }
+
+    private void addOrUpdateAttachment(String contentId, ConfluencePageMetadata page, String attachmentFileName) {
+        ConfluenceAttachment existingAttachment;
         try {
-            final ConfluenceAttachment existingAttachment = this.confluenceClient.getAttachmentByFileName(contentId, attachmentFileName);
+            existingAttachment = this.confluenceClient.getAttachmentByFileName(contentId, attachmentFileName);
+        } catch (final NotFoundException e) {
+            existingAttachment = null;
+        }
+
+        final String attachmentHashKey = getAttachmentHashKey(attachmentFileName);
+        addOrUpdateAttachment(contentId, page, attachmentFileName, existingAttachment,
+                this.confluenceClient.getPropertiesByKey(contentId, singletonList(attachmentHashKey)).get(attachmentHashKey));
+    }
+
+    private void addOrUpdateAttachment(String contentId, ConfluencePageMetadata page, String attachmentFileName, ConfluenceAttachment existingAttachment,
+                                       ConfluenceProperty existingAttachmentHashProperty) {
+        final ProcessingRecording recording = FlightRecorderEvents.beginAttachmentProcessing(attachmentFileName);
+        final String attachmentPath = page.getAttachments().get(attachmentFileName);
+        final String newAttachmentHash = this.attachmentRegistry.hash(page, attachmentFileName);
+
+        if (existingAttachment != null) {
             final String attachmentId = existingAttachment.getId();
-            final String existingAttachmentHash = this.confluenceClient.getPropertyByKey(contentId, getAttachmentHashKey(attachmentFileName));
+            final String existingAttachmentHash = valueOf(existingAttachmentHashProperty);
 
             if (notSameHash(existingAttachmentHash, newAttachmentHash)) {
-                if (existingAttachmentHash != null) {
-                    this.confluenceClient.deletePropertyByKey(contentId, getAttachmentHashKey(attachmentFileName));
-                }
-                this.confluenceClient.updateAttachmentContent(contentId, attachmentId, fileInputStream(absoluteAttachmentPath));
-                this.confluenceClient.setPropertyByKey(contentId, getAttachmentHashKey(attachmentFileName), newAttachmentHash);
+                this.confluenceClient.updateAttachmentContent(contentId, attachmentId, attachmentContent(page, attachmentPath, attachmentFileName, newAttachmentHash));
+                setProperty(contentId, getAttachmentHashKey(attachmentFileName), newAttachmentHash, existingAttachmentHashProperty);
+                this.confluencePublisherListener.attachmentUpdated(contentId, attachmentFileName);
+                recording.complete(contentId, UPDATED, HashCheck.of(existingAttachmentHash, newAttachmentHash));
+                this.progressTracker.attachmentCompleted(true, page.getAttachmentSize(attachmentFileName));
+            } else {
+                recording.complete(contentId, UNCHANGED, MATCH);
+                this.progressTracker.attachmentCompleted(false, 0);
             }
-        } catch (final NotFoundException e) {
-            this.confluenceClient.deletePropertyByKey(contentId, getAttachmentHashKey(attachmentFileName));
-            this.confluenceClient.addAttachment(contentId, attachmentFileName, fileInputStream(absoluteAttachmentPath));
-            this.confluenceClient.setPropertyByKey(contentId, getAttachmentHashKey(attachmentFileName), newAttachmentHash);
+        } else {
+            this.confluenceClient.addAttachment(contentId, attachmentFileName, attachmentContent(page, attachmentPath, attachmentFileName, newAttachmentHash));
+            setProperty(contentId, getAttachmentHashKey(attachmentFileName), newAttachmentHash, existingAttachmentHashProperty);
+            this.confluencePublisherListener.attachmentAdded(contentId, attachmentFileName);
+            recording.complete(contentId, ADDED, NOT_CHECKED);
+            this.progressTracker.attachmentCompleted(true, page.getAttachmentSize(attachmentFileName));
+        }
+        if (this.watched) {
+            this.publishedAttachmentHashes.put(attachmentKey(contentId, attachmentFileName), newAttachmentHash);
         }
     }
 
-    private String getAttachmentHashKey(String attachmentFileName) {
-        return attachmentFileName + "-hash";
+    private void recordPublishedPage(String contentId, PublishedContent publishedContent) {
+        if (this.watched || this.journal != PublishJournal.NONE) {
+            this.publishedPages.put(contentId, publishedContent);
+        }
+    }
+
+    private static String attachmentKey(String contentId, String attachmentFileName) {
+        return contentId + "/" + attachmentFileName;
     }
 
-    private Path absoluteAttachmentPath(String attachmentPath) {
-        return Paths.get(attachmentPath);
+    private String getAttachmentHashKey(String attachmentFileName) {
+        return attachmentFileName + "-hash";
     }
 
     private static boolean notSameHash(String actualHash, String newHash) {
         return actualHash == null || !actualHash.equals(newHash);
     }
 
-    private static String hash(String content) {
-        return sha256Hex(content);
+    private static Path normalized(final Path path) {
+        return path.toAbsolutePath().normalize();
     }
 
-    private static String hash(InputStream content) {
-        try {
-            return sha256Hex(content);
-        } catch (final IOException e) {
-            throw new RuntimeException("Could not compute hash from input stream", e);
-        } finally {
-            closeQuietly(content);
+    private static long utf8Length(final String content) {
+        return content.getBytes(UTF_8).length;
+    }
+
+    private InputStream attachmentContent(ConfluencePageMetadata page, String attachmentPath, String attachmentFileName, String attachmentHash) {
+        return this.attachmentRegistry.content(attachmentPath, attachmentHash, page.getAttachmentSize(attachmentFileName));
+    }
+
+    /**
+     * Publishes each page when it is entered, so its children can be published under it, and its attachments when it
+     * is exited. Pages are collected in the result builder when one is given, and delivered to the page sink when they
+     * are exited.
+     * <p>
+     * With a strategy that deletes existing children, the children of a page on Confluence are listed once, along with
+     * their {@link #PAGE_IDENTITY_PROPERTY_KEY page identity}, when its first child is published. A child is matched
+     * by title, then by identity when it was retitled, and otherwise looked up by title in the space or by identity
+     * among the children found stale so far, in which case it moved and is updated with its new parent. Stale
+     * children are deleted once the whole tree was published, so pages moving to a parent published later are not
+     * deleted first, which lets streaming metadata be published without holding the whole tree.
+     * <p>
+     * The page tree can also be {@link #publishLevels published level by level}, in which case the pages of a level
+     * are matched to the children of their parents in walk order, and then published concurrently.
+     */
+    private class PublishingVisitor implements ConfluencePageVisitor {
+
+        private final ConfluencePublishResultBuilder resultBuilder;
+        private final PublishedPageSink pageSink;
+        private final String spaceKey;
+        private final String ancestorId;
+        private final Deque<PageFrame> pageFrames = new ArrayDeque<>();
+        private final Set<String> movedContentIds = ConcurrentHashMap.newKeySet();
+        private final Map<String, List<ConfluencePage>> staleChildPagesByAncestorId = new LinkedHashMap<>();
+        private final Map<String, ConfluencePage> staleChildPagesByIdentity = new HashMap<>();
+        private final Map<ConfluencePageMetadata, String> subtreeHashes;
+        private final PageFrame rootFrame;
+
+        PublishingVisitor(final ConfluencePublishResultBuilder resultBuilder, final PublishedPageSink pageSink, final String spaceKey, final String ancestorId,
+                          final Map<ConfluencePageMetadata, String> subtreeHashes) {
+            this.resultBuilder = resultBuilder;
+            this.pageSink = pageSink;
+            this.spaceKey = spaceKey;
+            this.ancestorId = ancestorId;
+            this.subtreeHashes = subtreeHashes;
+            this.rootFrame = new PageFrame(PublishedPageTree.NO_PARENT, ancestorId, false, null);
+            this.pageFrames.push(this.rootFrame);
+        }
+
+        @Override
+        public void enterPage(final ConfluencePageMetadata page) {
+            final PageFrame parentFrame = this.pageFrames.peek();
+            parentFrame.childTitles.add(page.getTitle());
+            final boolean rootPage = parentFrame == this.rootFrame;
+
+            final PageFrame pageFrame;
+            if (parentFrame.skippedContentIds != null) {
+                pageFrame = skippedPageFrame(parentFrame, page, parentFrame.skippedContentIds.next(), parentFrame.skippedContentIds);
+            } else {
+                if (publishingStrategy.isReplaceAncestor() && rootPage) {
+                    assertSingleRootPage(publishingStrategy, parentFrame.childTitles);
+                }
+                pageFrame = addOrUpdatePage(parentFrame, page, rootPage, claimChildPage(parentFrame, page, rootPage));
+            }
+            parentFrame.childContentIds.add(pageFrame.contentId);
+
+            this.pageFrames.push(pageFrame);
+        }
+
+        @Override
+        public void exitPage(final ConfluencePageMetadata page) {
+            final PageFrame pageFrame = this.pageFrames.pop();
+            final PageFrame parentFrame = this.pageFrames.peek();
+
+            syncPage(pageFrame, page);
+            if (publishingStrategy.isDeleteExistingChildren() && pageFrame.skippedContentIds == null) {
+                collectStaleChildPages(pageFrame);
+            }
+
+            if (this.subtreeHashes != null) {
+                updateSubtreeHash(pageFrame, page);
+                addToParentSubtree(parentFrame, pageFrame);
+            }
+
+            if (this.pageSink != null) {
+                this.pageSink.pagePublished(new PublishedPageInfo(this.spaceKey, parentFrame.contentId, page, pageFrame.contentId));
+            }
+        }
+
+        /**
+         * Publishes the given root pages and their descendants one level at a time. For each level, the children of
+         * the pages of the level above are listed, the pages of the level are matched to them in walk order, and then
+         * published along with their attachments and labels, both on the threads of {@code parallelRequests}. Stale
+         * children are collected once a level was matched. Once the whole tree was published, the pages are passed to
+         * the result builder and the page sink in walk order, and their subtree hashes are written in batches of
+         * {@value #SUBTREE_HASH_BATCH_SIZE} pages as their subtrees complete, dropping the frames of written pages.
+         */
+        void publishLevels(final List<ConfluencePageMetadata> rootPages, final ConfluencePublishResultBuilder resultBuilder, final PublishedPageSink pageSink,
+                           final ParallelRequests parallelRequests) {
+            final Map<ConfluencePageMetadata, PageFrame> pageFramesByPage = new IdentityHashMap<>();
+            List<LevelPage> level = rootPages.stream().map(page -> new LevelPage(this.rootFrame, page)).collect(toList());
+            List<PageFrame> listedFrames = publishingStrategy.isDeleteExistingChildren() && !publishingStrategy.isReplaceAncestor()
+                    ? singletonList(this.rootFrame)
+                    : emptyList();
+            boolean rootLevel = true;
+
+            while (!level.isEmpty() || !listedFrames.isEmpty()) {
+                parallelRequests.invokeAll(listedFrames, this::childPages);
+
+                for (final LevelPage levelPage : level) {
+                    levelPage.parentFrame.childTitles.add(levelPage.page.getTitle());
+                    levelPage.match = claimChildPage(levelPage.parentFrame, levelPage.page, rootLevel);
+                }
+                if (publishingStrategy.isReplaceAncestor() && rootLevel) {
+                    assertSingleRootPage(publishingStrategy, this.rootFrame.childTitles);
+                }
+                // the stale children of the root frame are collected once the walk completed
+                listedFrames.stream()
+                        .filter(listedFrame -> listedFrame != this.rootFrame)
+                        .forEach(this::collectStaleChildPages);
+
+                final boolean rootPage = rootLevel;
+                final List<PageFrame> levelFrames = parallelRequests.invokeAll(level, levelPage -> {
+                    final PageFrame pageFrame = addOrUpdatePage(levelPage.parentFrame, levelPage.page, rootPage, levelPage.match);
+                    syncPage(pageFrame, levelPage.page);
+                    return pageFrame;
+                });
+
+                final List<LevelPage> nextLevel = new ArrayList<>();
+                listedFrames = new ArrayList<>();
+                for (int i = 0; i < level.size(); i++) {
+                    final LevelPage levelPage = level.get(i);
+                    final PageFrame pageFrame = levelFrames.get(i);
+                    levelPage.parentFrame.childContentIds.add(pageFrame.contentId);
+                    pageFramesByPage.put(levelPage.page, pageFrame);
+                    if (pageFrame.skippedContentIds != null) {
+                        skipDescendants(pageFrame, levelPage.page, pageFramesByPage);
+                    } else {
+                        if (publishingStrategy.isDeleteExistingChildren()) {
+                            listedFrames.add(pageFrame);
+                        }
+                        levelPage.page.getChildren().forEach(child -> nextLevel.add(new LevelPage(pageFrame, child)));
+                    }
+                }
+                level = nextLevel;
+                rootLevel = false;
+            }
+
+            final List<Map.Entry<ConfluencePageMetadata, PageFrame>> completedPages = new ArrayList<>();
+            rootPages.forEach(page -> completePage(this.rootFrame, PublishedPageTree.NO_PARENT, page, pageFramesByPage, resultBuilder, pageSink,
+                    completedPages, parallelRequests));
+            updateSubtreeHashes(completedPages, parallelRequests);
+        }
+
+        private void updateSubtreeHashes(final List<Map.Entry<ConfluencePageMetadata, PageFrame>> completedPages, final ParallelRequests parallelRequests) {
+            parallelRequests.invokeAll(completedPages, completedPage -> {
+                updateSubtreeHash(completedPage.getValue(), completedPage.getKey());
+                return null;
+            });
+            completedPages.clear();
+        }
+
+        private void skipDescendants(final PageFrame pageFrame, final ConfluencePageMetadata page, final Map<ConfluencePageMetadata, PageFrame> pageFramesByPage) {
+            page.getChildren().forEach(child -> {
+                final PageFrame childFrame = skippedPageFrame(pageFrame, child, pageFrame.skippedContentIds.next(), pageFrame.skippedContentIds);
+                pageFrame.childContentIds.add(childFrame.contentId);
+                pageFramesByPage.put(child, childFrame);
+                syncPage(childFrame, child);
+                skipDescendants(childFrame, child, pageFramesByPage);
+            });
+        }
+
+        private void completePage(final PageFrame parentFrame, final int parentIndex, final ConfluencePageMetadata page, final Map<ConfluencePageMetadata, PageFrame> pageFramesByPage,
+                                  final ConfluencePublishResultBuilder resultBuilder, final PublishedPageSink pageSink,
+                                  final List<Map.Entry<ConfluencePageMetadata, PageFrame>> completedPages, final ParallelRequests parallelRequests) {
+            final PageFrame pageFrame = pageFramesByPage.remove(page);
+            final int index = resultBuilder != null ? resultBuilder.addPage(parentIndex, page, pageFrame.contentId) : PublishedPageTree.NO_PARENT;
+            page.getChildren().forEach(child -> completePage(pageFrame, index, child, pageFramesByPage, resultBuilder, pageSink, completedPages, parallelRequests));
+
+            if (this.subtreeHashes != null) {
+                addToParentSubtree(parentFrame, pageFrame);
+                if (pageFrame.skippedContentIds == null) {
+                    completedPages.add(new SimpleImmutableEntry<>(page, pageFrame));
+                }
+                if (completedPages.size() >= SUBTREE_HASH_BATCH_SIZE) {
+                    updateSubtreeHashes(completedPages, parallelRequests);
+                }
+            }
+            if (pageSink != null) {
+                pageSink.pagePublished(new PublishedPageInfo(this.spaceKey, parentFrame.contentId, page, pageFrame.contentId));
+            }
+        }
+
+        private PageFrame addOrUpdatePage(final PageFrame parentFrame, final ConfluencePageMetadata page, final boolean rootPage, final ChildPageMatch match) {
+            final String fingerprint = journal.isEnabled() ? fingerprint(page) : null;
+
+            final PageFrame pageFrame;
+            if (publishingStrategy.isReplaceAncestor() && rootPage) {
+                final Map<String, ConfluenceProperty> pageProperties = updatePage(this.ancestorId, null, page, FlightRecorderEvents.beginPageProcessing(this.spaceKey, page.getTitle()));
+                pageFrame = pageFrame(parentFrame, page, this.ancestorId, false, pageProperties);
+            } else if (publishingStrategy.isDeleteExistingChildren()) {
+                pageFrame = addOrUpdateChildPage(parentFrame, page, fingerprint, match);
+            } else {
+                pageFrame = pageFrame(parentFrame, page, addOrUpdatePageUnderAncestor(this.spaceKey, parentFrame.contentId, page), false, null);
+            }
+            pageFrame.fingerprint = fingerprint;
+
+            return pageFrame;
+        }
+
+        private void syncPage(final PageFrame pageFrame, final ConfluencePageMetadata page) {
+            // streamed pages may only get their attachments and labels after their children, so after they were entered
+            final String fingerprint = journal.isEnabled() && pageFrame.skippedContentIds == null ? fingerprint(page) : null;
+            if (pageFrame.skippedContentIds != null || (pageFrame.resumed && fingerprint.equals(pageFrame.fingerprint))) {
+                page.getAttachments().keySet().forEach(attachmentFileName -> progressTracker.attachmentCompleted(false, 0));
+            } else {
+                syncAttachments(pageFrame.contentId, page, attachmentFileName -> true, pageFrame.pageProperties, pageFrame.created);
+                syncLabels(pageFrame.contentId, page, pageFrame.pageProperties, pageFrame.created);
+                journalPageCompleted(pageFrame, fingerprint);
+            }
+        }
+
+        /**
+         * Adds the page and its descendants to the descendants of its parent, until there are more than
+         * {@value #MAX_SUBTREE_CONTENT_IDS} of them, which are not stored with the subtree hash, so they are not
+         * collected any further either.
+         */
+        private void addToParentSubtree(final PageFrame parentFrame, final PageFrame pageFrame) {
+            if (parentFrame.descendantContentIds != null) {
+                if (pageFrame.descendantContentIds == null || parentFrame.descendantContentIds.size() + 1 + pageFrame.descendantContentIds.size() > MAX_SUBTREE_CONTENT_IDS) {
+                    parentFrame.descendantContentIds = null;
+                } else {
+                    parentFrame.descendantContentIds.add(pageFrame.contentId);
+                    parentFrame.descendantContentIds.addAll(pageFrame.descendantContentIds);
+                }
+            }
+            if (watched && parentFrame != this.rootFrame) {
+                publishedParentIds.put(pageFrame.contentId, parentFrame.contentId);
+            }
+        }
+
+        void walkCompleted() {
+            final PageFrame rootFrame = this.pageFrames.pop();
+            if (publishingStrategy.isAppendToAncestor() && publishingStrategy.isDeleteExistingChildren()) {
+                collectStaleChildPages(rootFrame);
+            }
+
+            if (this.staleChildPagesByAncestorId.isEmpty()) {
+                return;
+            }
+
+            try (ParallelRequests parallelRequests = PageTreeDeleter.parallelRequests()) {
+                this.staleChildPagesByAncestorId.forEach((staleAncestorId, staleChildPages) -> deleteConfluencePages(staleAncestorId, staleChildPages.stream()
+                        .filter(staleChildPage -> !this.movedContentIds.contains(staleChildPage.getContentId()))
+                        .collect(toList()), parallelRequests));
+            }
+        }
+
+        /**
+         * Claims the page on Confluence the child page is published to, when the parent has children listed: the
+         * child with the same title, the child with the same identity when it was retitled, or a stale child page
+         * with the same identity when it moved. Returns {@code null} when there is no such page.
+         */
+        private ChildPageMatch claimChildPage(final PageFrame parentFrame, final ConfluencePageMetadata page, final boolean rootPage) {
+            if (!publishingStrategy.isDeleteExistingChildren() || (publishingStrategy.isReplaceAncestor() && rootPage)) {
+                return null;
+            }
+
+            final String identity = page.getIdentity();
+            final ConfluencePage childPage = unclaimed(parentFrame, childPages(parentFrame).byTitle.get(page.getTitle()));
+            if (childPage != null) {
+                parentFrame.childContentIds.add(childPage.getContentId());
+                return new ChildPageMatch(childPage, true, false);
+            }
+
+            final ConfluencePage retitledChildPage = identity != null ? unclaimed(parentFrame, childPages(parentFrame).byIdentity.get(identity)) : null;
+            if (retitledChildPage != null) {
+                parentFrame.childContentIds.add(retitledChildPage.getContentId());
+                return new ChildPageMatch(retitledChildPage, false, false);
+            }
+
+            final ConfluencePage movedStalePage = identity != null ? this.staleChildPagesByIdentity.remove(identity) : null;
+            if (movedStalePage != null && this.movedContentIds.add(movedStalePage.getContentId())) {
+                return new ChildPageMatch(movedStalePage, false, true);
+            }
+
+            return null;
+        }
+
+        private PageFrame addOrUpdateChildPage(final PageFrame parentFrame, final ConfluencePageMetadata page, final String fingerprint, final ChildPageMatch match) {
+            final ProcessingRecording recording = FlightRecorderEvents.beginPageProcessing(this.spaceKey, page.getTitle());
+            final String identity = page.getIdentity();
+
+            final ConfluencePage childPage = match != null && match.byTitle ? match.page : null;
+            final List<String> skippedContentIds = childPage != null ? unchangedSubtreeContentIds(page, childPage.getProperty(SUBTREE_HASH_PROPERTY_KEY)) : null;
+            if (skippedContentIds != null) {
+                recording.complete(childPage.getContentId(), UNCHANGED, MATCH);
+                return skippedPageFrame(parentFrame, page, childPage.getContentId(), skippedContentIds.iterator());
+            }
+
+            if (childPage != null && fingerprint != null && journal.isCompleted(childPage.getContentId(), childPage.getVersion(), fingerprint)) {
+                recording.complete(childPage.getContentId(), UNCHANGED, NOT_CHECKED);
+                progressTracker.pageCompleted(false, 0);
+                final PageFrame pageFrame = pageFrame(parentFrame, page, childPage.getContentId(), false, null);
+                pageFrame.resumed = true;
+                pageFrame.existingSubtreeHash = childPage.getProperty(SUBTREE_HASH_PROPERTY_KEY);
+                return pageFrame;
+            }
+
+            if (childPage != null) {
+                final Map<String, ConfluenceProperty> pageProperties = updatePage(childPage.getContentId(), parentFrame.contentId, page, recording);
+                final String existingIdentity = childPage.getProperty(PAGE_IDENTITY_PROPERTY_KEY);
+                if (identity != null && !identity.equals(existingIdentity)) {
+                    setPageIdentity(childPage.getContentId(), identity, existingIdentity != null);
+                }
+                final PageFrame pageFrame = pageFrame(parentFrame, page, childPage.getContentId(), false, pageProperties);
+                pageFrame.existingSubtreeHash = childPage.getProperty(SUBTREE_HASH_PROPERTY_KEY);
+                return pageFrame;
+            }
+
+            if (match != null) {
+                final Map<String, ConfluenceProperty> pageProperties = updatePage(match.page.getContentId(), parentFrame.contentId, page, recording, match.moved);
+                return pageFrame(parentFrame, page, match.page.getContentId(), false, pageProperties);
+            }
+
+            try {
+                final String movedContentId = confluenceClient.getPageByTitle(this.spaceKey, page.getTitle());
+                this.movedContentIds.add(movedContentId);
+                final Map<String, ConfluenceProperty> pageProperties = updatePage(movedContentId, parentFrame.contentId, page, recording, true);
+                if (identity != null) {
+                    setPageIdentity(movedContentId, identity, true);
+                }
+                return pageFrame(parentFrame, page, movedContentId, false, pageProperties);
+            } catch (final NotFoundException e) {
+                // fall through
+            }
+
+            return pageFrame(parentFrame, page, addPageUnderAncestor(this.spaceKey, parentFrame.contentId, page, recording), true, emptyMap());
+        }
+
+        /**
+         * Returns the content ids of the descendants of an unchanged branch, in the order they are walked, or
+         * {@code null} when the subtree hash stored on the page does not match or does not list all descendants.
+         */
+        private List<String> unchangedSubtreeContentIds(final ConfluencePageMetadata page, final String existingSubtreeHash) {
+            if (this.subtreeHashes == null || existingSubtreeHash == null) {
+                return null;
+            }
+
+            final int separatorIndex = existingSubtreeHash.indexOf(':');
+            final String hash = separatorIndex >= 0 ? existingSubtreeHash.substring(0, separatorIndex) : existingSubtreeHash;
+            final List<String> descendantContentIds = separatorIndex >= 0 ? asList(existingSubtreeHash.substring(separatorIndex + 1).split(",")) : emptyList();
+            final boolean unchanged = hash.equals(this.subtreeHashes.get(page)) && descendantContentIds.size() == countDescendants(page);
+
+            return unchanged ? descendantContentIds : null;
+        }
+
+        /**
+         * Stores the subtree hash of the page along with the content ids of its descendants, which lets the next
+         * publish skip the branch as a whole while still reporting all its pages. Large branches only store the hash,
+         * to stay within the size of a property value, so they are never skipped as a whole.
+         */
+        private void updateSubtreeHash(final PageFrame pageFrame, final ConfluencePageMetadata page) {
+            if (pageFrame.skippedContentIds != null) {
+                return;
+            }
+
+            final String subtreeHash = this.subtreeHashes.get(page);
+            final String value = pageFrame.descendantContentIds == null || pageFrame.descendantContentIds.isEmpty()
+                    ? subtreeHash
+                    : subtreeHash + ":" + String.join(",", pageFrame.descendantContentIds);
+            final ConfluenceProperty existingProperty = pageFrame.pageProperties != null ? pageFrame.pageProperties.get(SUBTREE_HASH_PROPERTY_KEY) : null;
+            final String existingValue = existingProperty != null ? existingProperty.getValue() : pageFrame.existingSubtreeHash;
+            if (value.equals(existingValue)) {
+                return;
+            }
+
+            if (existingProperty == null && existingValue != null) {
+                confluenceClient.updatePropertyByKey(pageFrame.contentId, SUBTREE_HASH_PROPERTY_KEY, value, 0);
+            } else {
+                setProperty(pageFrame.contentId, SUBTREE_HASH_PROPERTY_KEY, value, existingProperty);
+            }
+        }
+
+        private void journalPageCompleted(final PageFrame pageFrame, final String fingerprint) {
+            final PublishedContent publishedPage = publishedPages.get(pageFrame.contentId);
+            if (fingerprint != null && publishedPage != null) {
+                journal.pageCompleted(pageFrame.contentId, publishedPage.version, fingerprint);
+            }
+        }
+
+        private ConfluencePage unclaimed(final PageFrame parentFrame, final ConfluencePage childPage) {
+            final boolean claimed = childPage == null
+                    || parentFrame.childContentIds.contains(childPage.getContentId())
+                    || this.movedContentIds.contains(childPage.getContentId());
+
+            return claimed ? null : childPage;
+        }
+
+        private ChildPages childPages(final PageFrame pageFrame) {
+            if (pageFrame.childPages == null) {
+                pageFrame.childPages = new ChildPages(pageFrame.created
+                        ? emptyList()
+                        : confluenceClient.getChildPages(pageFrame.contentId, this.subtreeHashes != null
+                                ? asList(PAGE_IDENTITY_PROPERTY_KEY, SUBTREE_HASH_PROPERTY_KEY)
+                                : singletonList(PAGE_IDENTITY_PROPERTY_KEY)));
+            }
+
+            return pageFrame.childPages;
+        }
+
+        private void collectStaleChildPages(final PageFrame pageFrame) {
+            final List<ConfluencePage> staleChildPages = Reconciliation.reconcile(pageFrame.childContentIds, identity(), childPages(pageFrame).pages, ConfluencePage::getContentId)
+                    .toDelete().stream()
+                    .filter(staleChildPage -> !this.movedContentIds.contains(staleChildPage.getContentId()))
+                    .collect(toList());
+
+            if (!staleChildPages.isEmpty()) {
+                this.staleChildPagesByAncestorId.put(pageFrame.contentId, staleChildPages);
+                staleChildPages.stream()
+                        .filter(staleChildPage -> staleChildPage.getProperty(PAGE_IDENTITY_PROPERTY_KEY) != null)
+                        .forEach(staleChildPage -> this.staleChildPagesByIdentity.put(staleChildPage.getProperty(PAGE_IDENTITY_PROPERTY_KEY), staleChildPage));
+            }
+        }
+
+        private PageFrame pageFrame(final PageFrame parentFrame, final ConfluencePageMetadata page, final String contentId, final boolean created,
+                                    final Map<String, ConfluenceProperty> pageProperties) {
+            final int index = this.resultBuilder != null ? this.resultBuilder.addPage(parentFrame.index, page, contentId) : PublishedPageTree.NO_PARENT;
+
+            return new PageFrame(index, contentId, created, pageProperties);
+        }
+
+        private PageFrame skippedPageFrame(final PageFrame parentFrame, final ConfluencePageMetadata page, final String contentId, final Iterator<String> skippedContentIds) {
+            if (parentFrame.skippedContentIds != null) {
+                FlightRecorderEvents.beginPageProcessing(this.spaceKey, page.getTitle()).complete(contentId, UNCHANGED, MATCH);
+            }
+            progressTracker.pageCompleted(false, 0);
+            final PageFrame pageFrame = pageFrame(parentFrame, page, contentId, false, null);
+            pageFrame.skippedContentIds = skippedContentIds;
+            return pageFrame;
         }
     }
 
-    private static FileInputStream fileInputStream(final Path filePath) {
-        try {
-            return new FileInputStream(filePath.toFile());
-        } catch (final FileNotFoundException e) {
-            throw new RuntimeException("Could not find attachment [" + filePath + "]; absolute path is [" + filePath.toAbsolutePath() + "].", e);
+    /**
+     * Publishes the pages with changed content files or attachments. Ancestors are resolved only when a page below
+     * them changed, from the root down, so an ancestor is looked up at most once however many of its descendants
+     * changed.
+     */
+    private class ChangedPagesVisitor implements ConfluencePageVisitor {
+
+        private final ConfluencePublishResultBuilder resultBuilder;
+        private final Set<Path> changedFiles;
+        private final String spaceKey;
+        private final Deque<ChangedPageFrame> pageFrames = new ArrayDeque<>();
+
+        ChangedPagesVisitor(final ConfluencePublishResultBuilder resultBuilder, final Set<Path> changedFiles, final String spaceKey, final String ancestorId) {
+            this.resultBuilder = resultBuilder;
+            this.changedFiles = changedFiles;
+            this.spaceKey = spaceKey;
+            this.pageFrames.push(new ChangedPageFrame(null, ancestorId));
+        }
+
+        @Override
+        public void enterPage(final ConfluencePageMetadata page) {
+            final ChangedPageFrame pageFrame = new ChangedPageFrame(page, null);
+            final boolean contentChanged = isChanged(page.getContentFilePath());
+            final List<String> changedAttachmentFileNames = page.getAttachments().entrySet().stream()
+                    .filter(attachment -> isChanged(attachment.getValue()))
+                    .map(Map.Entry::getKey)
+                    .collect(toList());
+            final boolean rootOfReplacedAncestor = publishingStrategy.isReplaceAncestor() && this.pageFrames.size() == 1;
+            final String parentContentId = contentChanged || !changedAttachmentFileNames.isEmpty() ? resolveContentIds() : null;
+            this.pageFrames.push(pageFrame);
+
+            if (contentChanged) {
+                if (rootOfReplacedAncestor) {
+                    updatePage(parentContentId, null, page, FlightRecorderEvents.beginPageProcessing(this.spaceKey, page.getTitle()));
+                    pageFrame.contentId = parentContentId;
+                } else {
+                    pageFrame.contentId = addOrUpdatePageUnderAncestor(this.spaceKey, parentContentId, page);
+                }
+                syncAttachments(pageFrame.contentId, page, changedAttachmentFileNames::contains, null, false);
+            } else if (!changedAttachmentFileNames.isEmpty()) {
+                resolveContentIds();
+                changedAttachmentFileNames.forEach(attachmentFileName -> addOrUpdateAttachment(pageFrame.contentId, page, attachmentFileName));
+            } else {
+                return;
+            }
+
+            if (publishingStrategy.isDeleteExistingChildren()) {
+                this.pageFrames.stream()
+                        .filter(changedPageFrame -> changedPageFrame.page != null && invalidatedSubtreeHashes.add(changedPageFrame.contentId))
+                        .forEach(changedPageFrame -> confluenceClient.deletePropertyByKey(changedPageFrame.contentId, SUBTREE_HASH_PROPERTY_KEY));
+            }
+            this.resultBuilder.addPage(this.spaceKey, parentContentId, page, pageFrame.contentId);
+        }
+
+        @Override
+        public void exitPage(final ConfluencePageMetadata page) {
+            this.pageFrames.pop();
+        }
+
+        /**
+         * Resolves the content ids of all pages on the stack and returns the one of the top page.
+         */
+        private String resolveContentIds() {
+            String ancestorId = null;
+            final Iterator<ChangedPageFrame> rootFirst = this.pageFrames.descendingIterator();
+            while (rootFirst.hasNext()) {
+                final ChangedPageFrame pageFrame = rootFirst.next();
+                if (pageFrame.contentId == null) {
+                    pageFrame.contentId = resolveContentId(ancestorId, pageFrame.page);
+                }
+                ancestorId = pageFrame.contentId;
+            }
+
+            return ancestorId;
+        }
+
+        private String resolveContentId(final String ancestorId, final ConfluencePageMetadata page) {
+            if (publishingStrategy.isReplaceAncestor() && ancestorId.equals(this.pageFrames.peekLast().contentId)) {
+                return ancestorId;
+            }
+
+            try {
+                return confluenceClient.getPageByTitle(this.spaceKey, page.getTitle());
+            } catch (final NotFoundException e) {
+                return addOrUpdatePageUnderAncestor(this.spaceKey, ancestorId, page);
+            }
+        }
+
+        private boolean isChanged(final String path) {
+            return path != null && this.changedFiles.contains(normalized(Paths.get(path)));
+        }
+    }
+
+    private static class ChangedPageFrame {
+        private final ConfluencePageMetadata page;
+        private String contentId;
+
+        ChangedPageFrame(final ConfluencePageMetadata page, final String contentId) {
+            this.page = page;
+            this.contentId = contentId;
+        }
+    }
+
+    private static class PublishedContent {
+        private final String title;
+        private final int version;
+        private final String hash;
+        private final int hashVersion;
+
+        PublishedContent(final String title, final int version, final String hash, final int hashVersion) {
+            this.title = title;
+            this.version = version;
+            this.hash = hash;
+            this.hashVersion = hashVersion;
+        }
+    }
+
+    private static class PageFrame {
+        private final int index;
+        private final String contentId;
+        private final boolean created;
+        private final Map<String, ConfluenceProperty> pageProperties;
+        private final Set<String> childTitles = new LinkedHashSet<>();
+        private final Set<String> childContentIds = new LinkedHashSet<>();
+        private ChildPages childPages;
+        // null once there are more than MAX_SUBTREE_CONTENT_IDS
+        private List<String> descendantContentIds = new ArrayList<>();
+        private String fingerprint;
+        private boolean resumed;
+        private String existingSubtreeHash;
+        private Iterator<String> skippedContentIds;
+
+        PageFrame(final int index, final String contentId, final boolean created, final Map<String, ConfluenceProperty> pageProperties) {
+            this.index = index;
+            this.contentId = contentId;
+            this.created = created;
+            this.pageProperties = pageProperties;
+        }
+    }
+
+    private static class LevelPage {
+        private final PageFrame parentFrame;
+        private final ConfluencePageMetadata page;
+        private ChildPageMatch match;
+
+        LevelPage(final PageFrame parentFrame, final ConfluencePageMetadata page) {
+            this.parentFrame = parentFrame;
+            this.page = page;
+        }
+    }
+
+    private static class ChildPageMatch {
+        private final ConfluencePage page;
+        private final boolean byTitle;
+        private final boolean moved;
+
+        ChildPageMatch(final ConfluencePage page, final boolean byTitle, final boolean moved) {
+            this.page = page;
+            this.byTitle = byTitle;
+            this.moved = moved;
+        }
+    }
+
+    private static class ChildPages {
+        private final List<ConfluencePage> pages;
+        private final Map<String, ConfluencePage> byTitle = new HashMap<>();
+        private final Map<String, ConfluencePage> byIdentity = new HashMap<>();
+
+        ChildPages(final List<ConfluencePage> pages) {
+            this.pages = pages;
+            pages.forEach(page -> {
+                this.byTitle.put(page.getTitle(), page);
+                if (page.getProperty(PAGE_IDENTITY_PROPERTY_KEY) != null) {
+                    this.byIdentity.put(page.getProperty(PAGE_IDENTITY_PROPERTY_KEY), page);
+                }
+            });
         }
     }
 
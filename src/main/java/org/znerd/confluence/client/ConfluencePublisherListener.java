@@ -15,6 +15,34 @@ public interface ConfluencePublisherListener {
         // empty
     }
 
+    /**
+     * Called after pages that are no longer in the metadata were deleted from under the given ancestor, together with
+     * their descendants, with the number of deleted pages and the number of requests that took.
+     */
+    default void pagesDeleted(String ancestorId, int deletedPages, int requests) {
+        // empty
+    }
+
+    default void attachmentAdded(String contentId, String attachmentFileName) {
+        // empty
+    }
+
+    default void attachmentUpdated(String contentId, String attachmentFileName) {
+        // empty
+    }
+
+    default void attachmentDeleted(String contentId, String attachmentFileName) {
+        // empty
+    }
+
+    /**
+     * Called after every page and attachment that was added, updated or found unchanged. Runs on the publishing
+     * thread; wrap slow listeners in an {@link AsyncConfluencePublisherListener}.
+     */
+    default void publishProgress(PublishProgress progress) {
+        // empty
+    }
+
     default void publishCompleted() {
         // empty
     }
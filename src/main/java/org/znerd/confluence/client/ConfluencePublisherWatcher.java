@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.znerd.confluence.client.utils.AssertUtils.assertMandatoryParameter;
+import static org.znerd.confluence.client.utils.AssertUtils.assertNotNull;
+
+/**
+ * Publishes once and then republishes the pages and attachments whose files change, until closed. The directories of
+ * all content and attachment files in the publish result are registered with a {@link WatchService}; changes are
+ * collected until none arrived for the debounce interval and are then republished together on the watcher thread,
+ * reusing the content ids and versions of the earlier publish. Files added to or removed from the metadata are not
+ * picked up; publish again for those.
+ * <p>
+ * Exceptions while republishing are passed to the watcher thread's uncaught exception handler, after which watching
+ * continues.
+ */
+public class ConfluencePublisherWatcher implements AutoCloseable {
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+    private final ConfluencePublisher          confluencePublisher;
+    private final long                         debounceMillis;
+    private final Map<Path, PublishedPageInfo> pagesByContentFile    = new HashMap<>();
+    private final Map<Path, List<Attachment>>  attachmentsByFile     = new HashMap<>();
+    private final Map<WatchKey, Path>          directoriesByWatchKey = new HashMap<>();
+    private       WatchService                 watchService;
+    private       Thread                       thread;
+
+    public ConfluencePublisherWatcher(ConfluencePublisher confluencePublisher) {
+        this(confluencePublisher, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    public ConfluencePublisherWatcher(ConfluencePublisher confluencePublisher, long debounceMillis) {
+        assertMandatoryParameter(debounceMillis >= 0, "debounceMillis");
+        this.confluencePublisher = assertNotNull(confluencePublisher, "confluencePublisher");
+        this.debounceMillis = debounceMillis;
+    }
+
+    public synchronized ConfluencePublishResult start() {
+        if (this.thread != null) {
+            throw new IllegalStateException("Watcher was already started");
+        }
+
+        this.confluencePublisher.watched();
+        ConfluencePublishResult publishResult = this.confluencePublisher.publish();
+        indexFiles(publishResult);
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            for (Path directory : watchedDirectories()) {
+                this.directoriesByWatchKey.put(directory.register(this.watchService, ENTRY_CREATE, ENTRY_MODIFY), directory);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not watch content and attachment files", e);
+        }
+
+        this.thread = new Thread(this::watch, "confluence-publisher-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+
+        return publishResult;
+    }
+
+    /**
+     * Stops watching and waits for a running republish to complete. When interrupted while waiting, returns with the
+     * interrupt flag of the calling thread set.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.watchService != null) {
+            this.watchService.close();
+            try {
+                this.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void republish(Set<Path> changedFiles) {
+        Set<PublishedPageInfo> changedPages = new LinkedHashSet<>();
+        Map<PublishedPageInfo, Set<String>> changedAttachments = new LinkedHashMap<>();
+        changedFiles.forEach((changedFile) -> {
+            PublishedPageInfo pageInfo = this.pagesByContentFile.get(changedFile);
+            if (pageInfo != null) {
+                changedPages.add(pageInfo);
+            }
+            this.attachmentsByFile.getOrDefault(changedFile, new ArrayList<>()).forEach((attachment) ->
+                    changedAttachments.computeIfAbsent(attachment.pageInfo, (key) -> new LinkedHashSet<>()).add(attachment.attachmentFileName));
+        });
+
+        if (!changedPages.isEmpty() || !changedAttachments.isEmpty()) {
+            this.confluencePublisher.republish(changedPages, changedAttachments);
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                Set<Path> changedFiles = new LinkedHashSet<>();
+                collectChangedFiles(this.watchService.take(), changedFiles);
+
+                WatchKey watchKey;
+                while ((watchKey = this.watchService.poll(this.debounceMillis, MILLISECONDS)) != null) {
+                    collectChangedFiles(watchKey, changedFiles);
+                }
+
+                try {
+                    republish(changedFiles);
+                } catch (RuntimeException e) {
+                    Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // watcher was closed
+        }
+    }
+
+    private void collectChangedFiles(WatchKey watchKey, Set<Path> changedFiles) {
+        Path directory = this.directoriesByWatchKey.get(watchKey);
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                changedFiles.addAll(this.pagesByContentFile.keySet());
+                changedFiles.addAll(this.attachmentsByFile.keySet());
+            } else {
+                Path changedFile = directory.resolve((Path) event.context());
+                if (this.pagesByContentFile.containsKey(changedFile) || this.attachmentsByFile.containsKey(changedFile)) {
+                    changedFiles.add(changedFile);
+                }
+            }
+        }
+        watchKey.reset();
+    }
+
+    private void indexFiles(ConfluencePublishResult publishResult) {
+        publishResult.getPages().forEach((pageInfo) -> {
+            ConfluencePageMetadata page = pageInfo.getPage();
+            if (page.getContentFilePath() != null) {
+                this.pagesByContentFile.put(normalized(page.getContentFilePath()), pageInfo);
+            }
+            page.getAttachments().forEach((attachmentFileName, attachmentPath) ->
+                    this.attachmentsByFile.computeIfAbsent(normalized(attachmentPath), (key) -> new ArrayList<>()).add(new Attachment(pageInfo, attachmentFileName)));
+        });
+    }
+
+    private Set<Path> watchedDirectories() {
+        Set<Path> directories = new LinkedHashSet<>();
+        this.pagesByContentFile.keySet().forEach((file) -> directories.add(file.getParent()));
+        this.attachmentsByFile.keySet().forEach((file) -> directories.add(file.getParent()));
+
+        return directories;
+    }
+
+    private static Path normalized(String path) {
+        return Paths.get(path).toAbsolutePath().normalize();
+    }
+
+    private static final class Attachment {
+
+        private final PublishedPageInfo pageInfo;
+        private final String            attachmentFileName;
+
+        Attachment(PublishedPageInfo pageInfo, String attachmentFileName) {
+            this.pageInfo = pageInfo;
+            this.attachmentFileName = attachmentFileName;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
+import org.znerd.confluence.client.utils.XhtmlCanonicalizer;
+
+/**
+ * How page content is hashed to decide whether a page changed. {@link #CANONICAL_XHTML} ignores formatting
+ * differences such as whitespace, attribute order and character references, see {@link XhtmlCanonicalizer}. Switching
+ * strategies changes the stored hashes, so every page is updated once on the next publish.
+ */
+public enum ContentHashingStrategy {
+    RAW {
+        @Override
+        String hash(ConfluencePageMetadata page) {
+            return page.getContentHash();
+        }
+    },
+    CANONICAL_XHTML {
+        @Override
+        String hash(ConfluencePageMetadata page) {
+            return XhtmlCanonicalizer.canonicalSha256Hex(page.getContent());
+        }
+    };
+
+    abstract String hash(ConfluencePageMetadata page);
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.znerd.confluence.client.http.ConfluenceAttachment;
+import org.znerd.confluence.client.http.ConfluenceClient;
+import org.znerd.confluence.client.http.ConfluenceLabel;
+import org.znerd.confluence.client.http.ConfluencePage;
+import org.znerd.confluence.client.http.ConfluenceProperty;
+import org.znerd.confluence.client.http.MultipleResultsException;
+import org.znerd.confluence.client.http.NotFoundException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static org.znerd.confluence.client.utils.AssertUtils.assertNotNull;
+
+/**
+ * Client for a dry run, which sends the reads to the given client and only counts the writes. Pages it pretends to
+ * add get a made-up content id, and reads of those pages are answered without a request, as if the pages were empty.
+ */
+final class DryRunConfluenceClient implements ConfluenceClient {
+
+    private static final String DRY_RUN_CONTENT_ID_PREFIX = "dry-run-";
+
+    private final ConfluenceClient            confluenceClient;
+    private final Map<String, ConfluencePage> addedPages     = new ConcurrentHashMap<>();
+    private final AtomicInteger               addedPageCount = new AtomicInteger();
+    private final AtomicInteger               readRequests   = new AtomicInteger();
+    private final AtomicInteger               writeRequests  = new AtomicInteger();
+
+    DryRunConfluenceClient(ConfluenceClient confluenceClient) {
+        this.confluenceClient = assertNotNull(confluenceClient, "confluenceClient");
+    }
+
+    int getReadRequests() {
+        return this.readRequests.get();
+    }
+
+    int getWriteRequests() {
+        return this.writeRequests.get();
+    }
+
+    @Override
+    public String getConfluenceRootUrl() {
+        return this.confluenceClient.getConfluenceRootUrl();
+    }
+
+    @Override
+    public int getMaxConcurrentRequests() {
+        return this.confluenceClient.getMaxConcurrentRequests();
+    }
+
+    @Override
+    public String addPageUnderAncestor(String spaceKey, String ancestorId, String title, String content, String versionMessage) {
+        this.writeRequests.incrementAndGet();
+        String contentId = DRY_RUN_CONTENT_ID_PREFIX + this.addedPageCount.incrementAndGet();
+        this.addedPages.put(contentId, new ConfluencePage(contentId, title, content, ConfluencePublisher.INITIAL_PAGE_VERSION));
+
+        return contentId;
+    }
+
+    @Override
+    public void updatePage(String contentId, String ancestorId, String title, String content, int newVersion, String versionMessage) {
+        this.writeRequests.incrementAndGet();
+    }
+
+    @Override
+    public void deletePage(String contentId) {
+        this.writeRequests.incrementAndGet();
+    }
+
+    @Override
+    public String getPageByTitle(String spaceKey, String title) throws NotFoundException, MultipleResultsException {
+        return read(() -> this.confluenceClient.getPageByTitle(spaceKey, title));
+    }
+
+    @Override
+    public void addAttachment(String contentId, String attachmentFileName, InputStream attachmentContent) {
+        this.writeRequests.incrementAndGet();
+        close(attachmentContent);
+    }
+
+    @Override
+    public void updateAttachmentContent(String contentId, String attachmentId, InputStream attachmentContent) {
+        this.writeRequests.incrementAndGet();
+        close(attachmentContent);
+    }
+
+    @Override
+    public void deleteAttachment(String attachmentId) {
+        this.writeRequests.incrementAndGet();
+    }
+
+    @Override
+    public ConfluenceAttachment getAttachmentByFileName(String contentId, String attachmentFileName) throws NotFoundException, MultipleResultsException {
+        if (isAdded(contentId)) {
+            throw new NotFoundException();
+        }
+
+        return read(() -> this.confluenceClient.getAttachmentByFileName(contentId, attachmentFileName));
+    }
+
+    @Override
+    public ConfluencePage getPageWithContentAndVersionById(String contentId) {
+        return isAdded(contentId) ? this.addedPages.get(contentId) : read(() -> this.confluenceClient.getPageWithContentAndVersionById(contentId));
+    }
+
+    @Override
+    public List<ConfluencePage> getChildPages(String contentId) {
+        return isAdded(contentId) ? emptyList() : read(() -> this.confluenceClient.getChildPages(contentId));
+    }
+
+    @Override
+    public List<ConfluencePage> getChildPages(String contentId, Collection<String> propertyKeys) {
+        return isAdded(contentId) ? emptyList() : read(() -> this.confluenceClient.getChildPages(contentId, propertyKeys));
+    }
+
+    @Override
+    public List<ConfluenceAttachment> getAttachments(String contentId) {
+        return isAdded(contentId) ? emptyList() : read(() -> this.confluenceClient.getAttachments(contentId));
+    }
+
+    @Override
+    public void setPropertyByKey(String contentId, String key, String value) {
+        this.writeRequests.incrementAndGet();
+    }
+
+    @Override
+    public String getPropertyByKey(String contentId, String key) {
+        return isAdded(contentId) ? null : read(() -> this.confluenceClient.getPropertyByKey(contentId, key));
+    }
+
+    @Override
+    public Map<String, ConfluenceProperty> getPropertiesByKey(String contentId, Collection<String> keys) {
+        return isAdded(contentId) ? emptyMap() : read(() -> this.confluenceClient.getPropertiesByKey(contentId, keys));
+    }
+
+    @Override
+    public int updatePropertyByKey(String contentId, String key, String value, int currentVersion) {
+        this.writeRequests.incrementAndGet();
+
+        return currentVersion + 1;
+    }
+
+    @Override
+    public void deletePropertyByKey(String contentId, String key) {
+        this.writeRequests.incrementAndGet();
+    }
+
+    @Override
+    public void addLabelToPage(String contentId, String label) {
+        this.writeRequests.incrementAndGet();
+    }
+
+    @Override
+    public void addLabelToPage(String contentId, String prefix, String label) {
+        this.writeRequests.incrementAndGet();
+    }
+
+    @Override
+    public void addLabelsToPage(String contentId, Collection<String> labels) {
+        this.writeRequests.incrementAndGet();
+    }
+
+    @Override
+    public void deleteLabelFromPage(String contentId, String labelName) {
+        this.writeRequests.incrementAndGet();
+    }
+
+    @Override
+    public List<ConfluenceLabel> getLabelsFromPage(String contentId) {
+        return isAdded(contentId) ? emptyList() : read(() -> this.confluenceClient.getLabelsFromPage(contentId));
+    }
+
+    private boolean isAdded(String contentId) {
+        return contentId.startsWith(DRY_RUN_CONTENT_ID_PREFIX);
+    }
+
+    private <T> T read(Supplier<T> request) {
+        this.readRequests.incrementAndGet();
+
+        return request.get();
+    }
+
+    private static void close(InputStream attachmentContent) {
+        try {
+            attachmentContent.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not close attachment content", e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.znerd.confluence.client.http.ConfluencePage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * What a {@link ConfluencePublisher#dryRun() dry run} found a publish would do. Pages are listed by title and
+ * attachments as {@code <page title>/<attachment file name>}, in the order they were visited. The write requests and
+ * upload bytes are estimates: retries after conflicts are not counted, and clients that cannot add all labels of a
+ * page at once need more requests.
+ */
+public final class DryRunReport {
+
+    private final List<String> addedPages;
+    private final List<String> updatedPages;
+    private final List<String> unchangedPages;
+    private final List<String> deletedPages;
+    private final List<String> addedAttachments;
+    private final List<String> updatedAttachments;
+    private final List<String> unchangedAttachments;
+    private final List<String> deletedAttachments;
+    private final int          readRequests;
+    private final int          writeRequests;
+    private final long         uploadBytes;
+
+    private DryRunReport(Recorder recorder, ConfluencePublishResult result, int readRequests, int writeRequests) {
+        Map<String, String> titlesByContentId = new HashMap<>();
+        List<String> unchangedPages = new ArrayList<>();
+        List<String> unchangedAttachments = new ArrayList<>();
+        result.getPages().forEach(pageInfo -> {
+            String title = pageInfo.getPage().getTitle();
+            titlesByContentId.put(pageInfo.getPageId(), title);
+            if (!recorder.changedPageIds.contains(pageInfo.getPageId())) {
+                unchangedPages.add(title);
+            }
+            pageInfo.getPage().getAttachments().keySet().stream()
+                    .filter(attachmentFileName -> !recorder.changedAttachmentKeys.contains(pageInfo.getPageId() + "/" + attachmentFileName))
+                    .forEach(attachmentFileName -> unchangedAttachments.add(title + "/" + attachmentFileName));
+        });
+
+        this.addedPages = unmodifiableList(recorder.addedPages);
+        this.updatedPages = unmodifiableList(recorder.updatedPages);
+        this.unchangedPages = unmodifiableList(unchangedPages);
+        this.deletedPages = unmodifiableList(recorder.deletedPages);
+        this.addedAttachments = withTitles(recorder.addedAttachments, titlesByContentId);
+        this.updatedAttachments = withTitles(recorder.updatedAttachments, titlesByContentId);
+        this.unchangedAttachments = unmodifiableList(unchangedAttachments);
+        this.deletedAttachments = withTitles(recorder.deletedAttachments, titlesByContentId);
+        this.readRequests = readRequests;
+        this.writeRequests = writeRequests;
+        this.uploadBytes = recorder.uploadBytes;
+    }
+
+    public List<String> getAddedPages() {
+        return this.addedPages;
+    }
+
+    public List<String> getUpdatedPages() {
+        return this.updatedPages;
+    }
+
+    public List<String> getUnchangedPages() {
+        return this.unchangedPages;
+    }
+
+    /**
+     * Pages that are no longer in the metadata, together with their descendants.
+     */
+    public List<String> getDeletedPages() {
+        return this.deletedPages;
+    }
+
+    public List<String> getAddedAttachments() {
+        return this.addedAttachments;
+    }
+
+    public List<String> getUpdatedAttachments() {
+        return this.updatedAttachments;
+    }
+
+    public List<String> getUnchangedAttachments() {
+        return this.unchangedAttachments;
+    }
+
+    public List<String> getDeletedAttachments() {
+        return this.deletedAttachments;
+    }
+
+    /**
+     * Requests the dry run itself sent, all of them reads.
+     */
+    public int getReadRequests() {
+        return this.readRequests;
+    }
+
+    /**
+     * Requests a publish would send in addition to the reads.
+     */
+    public int getWriteRequests() {
+        return this.writeRequests;
+    }
+
+    /**
+     * Bytes of page content and attachments a publish would upload.
+     */
+    public long getUploadBytes() {
+        return this.uploadBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "DryRunReport{" +
+            "pages: " + this.addedPages.size() + " added, " + this.updatedPages.size() + " updated, " + this.unchangedPages.size() + " unchanged, " + this.deletedPages.size() + " deleted" +
+            "; attachments: " + this.addedAttachments.size() + " added, " + this.updatedAttachments.size() + " updated, " + this.unchangedAttachments.size() + " unchanged, " + this.deletedAttachments.size() + " deleted" +
+            "; " + this.readRequests + " read requests, " + this.writeRequests + " write requests, " + this.uploadBytes + " bytes to upload" +
+            '}';
+    }
+
+    private static List<String> withTitles(List<String[]> attachments, Map<String, String> titlesByContentId) {
+        List<String> attachmentsWithTitles = new ArrayList<>(attachments.size());
+        attachments.forEach(attachment -> attachmentsWithTitles.add(titlesByContentId.getOrDefault(attachment[0], attachment[0]) + "/" + attachment[1]));
+
+        return unmodifiableList(attachmentsWithTitles);
+    }
+
+    /**
+     * Records what the publisher reports it did during a dry run.
+     */
+    static final class Recorder implements ConfluencePublisherListener {
+
+        private final List<String>   addedPages            = new ArrayList<>();
+        private final List<String>   updatedPages          = new ArrayList<>();
+        private final List<String>   deletedPages          = new ArrayList<>();
+        private final List<String[]> addedAttachments      = new ArrayList<>();
+        private final List<String[]> updatedAttachments    = new ArrayList<>();
+        private final List<String[]> deletedAttachments    = new ArrayList<>();
+        private final Set<String>    changedPageIds        = new LinkedHashSet<>();
+        private final Set<String>    changedAttachmentKeys = new LinkedHashSet<>();
+        private       long           uploadBytes;
+
+        @Override
+        public void pageAdded(ConfluencePage addedPage) {
+            this.addedPages.add(addedPage.getTitle());
+            this.changedPageIds.add(addedPage.getContentId());
+        }
+
+        @Override
+        public void pageUpdated(ConfluencePage existingPage, ConfluencePage updatedPage) {
+            this.updatedPages.add(updatedPage.getTitle());
+            this.changedPageIds.add(updatedPage.getContentId());
+        }
+
+        @Override
+        public void pageDeleted(ConfluencePage deletedPage) {
+            this.deletedPages.add(deletedPage.getTitle());
+        }
+
+        @Override
+        public void attachmentAdded(String contentId, String attachmentFileName) {
+            this.addedAttachments.add(new String[] {contentId, attachmentFileName});
+            this.changedAttachmentKeys.add(contentId + "/" + attachmentFileName);
+        }
+
+        @Override
+        public void attachmentUpdated(String contentId, String attachmentFileName) {
+            this.updatedAttachments.add(new String[] {contentId, attachmentFileName});
+            this.changedAttachmentKeys.add(contentId + "/" + attachmentFileName);
+        }
+
+        @Override
+        public void attachmentDeleted(String contentId, String attachmentFileName) {
+            this.deletedAttachments.add(new String[] {contentId, attachmentFileName});
+        }
+
+        @Override
+        public void publishProgress(PublishProgress progress) {
+            this.uploadBytes = progress.getBytesUploaded();
+        }
+
+        DryRunReport report(ConfluencePublishResult result, DryRunConfluenceClient confluenceClient) {
+            return new DryRunReport(this, result, confluenceClient.getReadRequests(), confluenceClient.getWriteRequests());
+        }
+    }
+}
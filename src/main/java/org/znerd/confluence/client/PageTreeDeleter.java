@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.znerd.confluence.client.http.ConfluenceClient;
+import org.znerd.confluence.client.http.ConfluencePage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.toList;
+import static org.znerd.confluence.client.utils.AssertUtils.assertNotNull;
+
+/**
+ * Deletes pages together with all their descendants. The subtrees are discovered level by level, fetching the children
+ * of each page exactly once and of all pages of a level concurrently, and then deleted from the deepest level up, so a
+ * page is only deleted after all its descendants were. Requests run on the threads of the given
+ * {@link ParallelRequests}, which a publish creates once with {@link #parallelRequests()} for all its deletions.
+ */
+final class PageTreeDeleter {
+
+    static final int DEFAULT_PARALLELISM = 4;
+
+    private final ConfluenceClient confluenceClient;
+
+    PageTreeDeleter(ConfluenceClient confluenceClient) {
+        this.confluenceClient = assertNotNull(confluenceClient, "confluenceClient");
+    }
+
+    /**
+     * Creates the requests to delete pages on, with a parallelism of the system property
+     * {@code confluence.deletion.parallelism}, or {@value #DEFAULT_PARALLELISM}.
+     */
+    static ParallelRequests parallelRequests() {
+        return new ParallelRequests(Integer.getInteger("confluence.deletion.parallelism", DEFAULT_PARALLELISM), "confluence-page-deleter-", "delete pages");
+    }
+
+    /**
+     * Deletes the given pages and their descendants, passing each deleted page to {@code pageDeleted} on the calling
+     * thread, and returns the number of requests that were sent. When a deletion fails, the pages that were deleted
+     * already are passed to {@code pageDeleted} before the failure is rethrown.
+     */
+    int delete(List<ConfluencePage> pages, ParallelRequests parallelRequests, Consumer<ConfluencePage> pageDeleted) {
+        int requests = 0;
+        List<List<ConfluencePage>> levels = new ArrayList<>();
+        List<ConfluencePage> level = pages;
+        while (!level.isEmpty()) {
+            levels.add(level);
+            requests += level.size();
+            level = parallelRequests.invokeAll(level, (page) -> this.confluenceClient.getChildPages(page.getContentId())).stream()
+                    .flatMap(List::stream)
+                    .collect(toList());
+        }
+
+        for (int depth = levels.size() - 1; depth >= 0; depth--) {
+            List<ConfluencePage> levelToDelete = levels.get(depth);
+            requests += levelToDelete.size();
+            parallelRequests.invokeAll(levelToDelete, (page) -> {
+                this.confluenceClient.deletePage(page.getContentId());
+                return page;
+            }, pageDeleted);
+        }
+
+        return requests;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.Collections.singletonList;
+import static org.znerd.confluence.client.utils.AssertUtils.assertMandatoryParameter;
+
+/**
+ * Sends the requests for a batch of items on at most {@code parallelism} daemon threads and waits for all of them, so
+ * a batch costs about as many round trips as its slowest item. A single item is handled on the calling thread.
+ */
+final class ParallelRequests implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_SEQUENCE = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final String          description;
+
+    ParallelRequests(int parallelism, String threadNamePrefix, String description) {
+        assertMandatoryParameter(parallelism > 0, "parallelism");
+
+        this.executor = Executors.newFixedThreadPool(parallelism, (runnable) -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + THREAD_SEQUENCE.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.description = description;
+    }
+
+    /**
+     * Applies {@code request} to all items concurrently and returns the results in the order of the items. The first
+     * failure cancels the remaining requests and is rethrown.
+     */
+    <T, R> List<R> invokeAll(List<T> items, Function<T, R> request) {
+        return invokeAll(items, request, (result) -> {
+        });
+    }
+
+    /**
+     * Like {@link #invokeAll(List, Function)}, also passing each result to {@code completed} on the calling thread, in
+     * the order of the items. When a request fails, the results of the requests that had completed already are still
+     * passed to {@code completed} before the failure is rethrown.
+     */
+    <T, R> List<R> invokeAll(List<T> items, Function<T, R> request, Consumer<R> completed) {
+        if (items.size() == 1) {
+            R result = request.apply(items.get(0));
+            completed.accept(result);
+            return singletonList(result);
+        }
+
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        items.forEach((item) -> futures.add(this.executor.submit((Callable<R>) () -> request.apply(item))));
+        List<R> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<R> future : futures) {
+                R result = future.get();
+                completed.accept(result);
+                results.add(result);
+            }
+
+            return results;
+        } catch (ExecutionException e) {
+            futures.forEach((future) -> future.cancel(true));
+            passCompletedResults(futures.subList(results.size() + 1, futures.size()), completed);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Could not " + this.description, e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach((future) -> future.cancel(true));
+            passCompletedResults(futures.subList(results.size(), futures.size()), completed);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while trying to " + this.description, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private static <R> void passCompletedResults(List<Future<R>> futures, Consumer<R> completed) {
+        for (Future<R> future : futures) {
+            if (future.isDone() && !future.isCancelled()) {
+                try {
+                    completed.accept(future.get());
+                } catch (ExecutionException | InterruptedException e) {
+                    // the request failed as well, so it has no result; get does not block on a done future
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only journal of the pages a publish run completed, one line per page with its content id, version and
+ * fingerprint. Every line is written as soon as the page is completed, so it survives the process being killed, and
+ * the journal is synced to disk every {@value #SYNC_INTERVAL_ENTRIES} lines or {@value #SYNC_INTERVAL_MILLIS} ms, so
+ * an operating system crash loses at most the lines since. A resumed journal keeps the lines of the earlier run, minus
+ * a line that was cut off by the crash.
+ */
+class PublishJournal implements AutoCloseable {
+
+    static final PublishJournal NONE = new PublishJournal();
+
+    static final int  SYNC_INTERVAL_ENTRIES = 100;
+    static final long SYNC_INTERVAL_MILLIS  = 1000;
+
+    private static final String PAGE_ENTRY = "page";
+
+    private final Path                       journalFile;
+    private final FileChannel                channel;
+    private final Map<String, CompletedPage> completedPages = new HashMap<>();
+    private       int                        unsyncedEntries;
+    private       long                       lastSyncNanos;
+
+    private PublishJournal() {
+        this.journalFile = null;
+        this.channel = null;
+    }
+
+    private PublishJournal(Path journalFile, boolean resume) throws IOException {
+        this.journalFile = journalFile;
+        long validLength = resume && Files.exists(journalFile) ? readCompletedPages(journalFile) : 0;
+        this.channel = FileChannel.open(journalFile, CREATE, WRITE);
+        this.channel.truncate(validLength);
+        this.channel.position(validLength);
+        this.lastSyncNanos = System.nanoTime();
+    }
+
+    /**
+     * Opens the journal in the given file. Unless {@code resume} is set, the pages journaled by an earlier run are
+     * discarded.
+     */
+    static PublishJournal open(Path journalFile, boolean resume) {
+        try {
+            return new PublishJournal(journalFile, resume);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open publish journal [" + journalFile + "]", e);
+        }
+    }
+
+    /**
+     * Tells whether an earlier run journaled the page as completed with the same version and fingerprint.
+     */
+    synchronized boolean isCompleted(String contentId, int version, String fingerprint) {
+        CompletedPage completedPage = this.completedPages.get(contentId);
+
+        return completedPage != null && completedPage.version == version && completedPage.fingerprint.equals(fingerprint);
+    }
+
+    synchronized void pageCompleted(String contentId, int version, String fingerprint) {
+        if (this.channel == null) {
+            return;
+        }
+
+        this.completedPages.put(contentId, new CompletedPage(version, fingerprint));
+        ByteBuffer entry = ByteBuffer.wrap((PAGE_ENTRY + '\t' + contentId + '\t' + version + '\t' + fingerprint + '\n').getBytes(UTF_8));
+        try {
+            while (entry.hasRemaining()) {
+                this.channel.write(entry);
+            }
+            this.unsyncedEntries++;
+            if (this.unsyncedEntries >= SYNC_INTERVAL_ENTRIES || System.nanoTime() - this.lastSyncNanos >= TimeUnit.MILLISECONDS.toNanos(SYNC_INTERVAL_MILLIS)) {
+                sync();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write to publish journal [" + this.journalFile + "]", e);
+        }
+    }
+
+    boolean isEnabled() {
+        return this.channel != null;
+    }
+
+    /**
+     * Closes and deletes the journal, once the run it journals completed.
+     */
+    synchronized void delete() {
+        close();
+        if (this.journalFile != null) {
+            try {
+                Files.deleteIfExists(this.journalFile);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not delete publish journal [" + this.journalFile + "]", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.channel == null || !this.channel.isOpen()) {
+            return;
+        }
+
+        try {
+            sync();
+            this.channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not close publish journal [" + this.journalFile + "]", e);
+        }
+    }
+
+    private void sync() throws IOException {
+        this.channel.force(false);
+        this.unsyncedEntries = 0;
+        this.lastSyncNanos = System.nanoTime();
+    }
+
+    /**
+     * Reads the complete lines of the journal and returns their length, so a line cut off at the end is dropped.
+     */
+    private long readCompletedPages(Path journalFile) throws IOException {
+        byte[] bytes = Files.readAllBytes(journalFile);
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                readEntry(new String(bytes, lineStart, i - lineStart, UTF_8));
+                lineStart = i + 1;
+            }
+        }
+
+        return lineStart;
+    }
+
+    private void readEntry(String line) {
+        String[] fields = line.split("\t");
+        if (fields.length == 4 && fields[0].equals(PAGE_ENTRY)) {
+            try {
+                this.completedPages.put(fields[1], new CompletedPage(Integer.parseInt(fields[2]), fields[3]));
+            } catch (NumberFormatException e) {
+                // not written by this journal, so not trusted
+            }
+        }
+    }
+
+    private static class CompletedPage {
+        private final int    version;
+        private final String fingerprint;
+
+        CompletedPage(int version, String fingerprint) {
+            this.version = version;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client;
+
+/**
+ * Snapshot of the progress of a publish run, reported through {@link ConfluencePublisherListener#publishProgress}.
+ * Pages and attachments count as completed once they were added, updated or found unchanged.
+ */
+public final class PublishProgress {
+
+    private final int  totalPages;
+    private final int  totalAttachments;
+    private final int  completedPages;
+    private final int  completedAttachments;
+    private final int  unchangedPages;
+    private final int  unchangedAttachments;
+    private final long bytesUploaded;
+    private final long elapsedMillis;
+
+    PublishProgress(int totalPages, int totalAttachments, int completedPages, int completedAttachments,
+                    int unchangedPages, int unchangedAttachments, long bytesUploaded, long elapsedMillis) {
+        this.totalPages = totalPages;
+        this.totalAttachments = totalAttachments;
+        this.completedPages = completedPages;
+        this.completedAttachments = completedAttachments;
+        this.unchangedPages = unchangedPages;
+        this.unchangedAttachments = unchangedAttachments;
+        this.bytesUploaded = bytesUploaded;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getTotalPages() {
+        return this.totalPages;
+    }
+
+    public int getTotalAttachments() {
+        return this.totalAttachments;
+    }
+
+    public int getCompletedPages() {
+        return this.completedPages;
+    }
+
+    public int getCompletedAttachments() {
+        return this.completedAttachments;
+    }
+
+    public int getUnchangedPages() {
+        return this.unchangedPages;
+    }
+
+    public int getUnchangedAttachments() {
+        return this.unchangedAttachments;
+    }
+
+    public long getBytesUploaded() {
+        return this.bytesUploaded;
+    }
+
+    public long getElapsedMillis() {
+        return this.elapsedMillis;
+    }
+
+    /**
+     * Pages and attachments completed per second since the publish run started.
+     */
+    public double getThroughputPerSecond() {
+        return this.elapsedMillis > 0 ? (this.completedPages + this.completedAttachments) * 1000.0 / this.elapsedMillis : 0;
+    }
+
+    /**
+     * Estimated time until all pages and attachments are completed at the current throughput, or -1 while nothing
+     * was completed yet.
+     */
+    public long getEstimatedRemainingMillis() {
+        double throughputPerSecond = getThroughputPerSecond();
+        if (throughputPerSecond == 0) {
+            return -1;
+        }
+
+        int remaining = (this.totalPages - this.completedPages) + (this.totalAttachments - this.completedAttachments);
+        return Math.round(remaining * 1000 / throughputPerSecond);
+    }
+
+    @Override
+    public String toString() {
+        return "PublishProgress{" +
+                "pages=" + this.completedPages + "/" + this.totalPages +
+                ", attachments=" + this.completedAttachments + "/" + this.totalAttachments +
+                ", unchangedPages=" + this.unchangedPages +
+                ", unchangedAttachments=" + this.unchangedAttachments +
+                ", bytesUploaded=" + this.bytesUploaded +
+                ", elapsedMillis=" + this.elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client;
+
+import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
+
+import java.util.List;
+
+class PublishProgressTracker {
+
+    private final ConfluencePublisherListener listener;
+    private final long                        startNanos;
+    private final int                         totalPages;
+    private final int                         totalAttachments;
+    private       int                         completedPages;
+    private       int                         completedAttachments;
+    private       int                         unchangedPages;
+    private       int                         unchangedAttachments;
+    private       long                        bytesUploaded;
+
+    PublishProgressTracker(List<ConfluencePageMetadata> pages, ConfluencePublisherListener listener) {
+        this.listener = listener;
+        this.startNanos = System.nanoTime();
+        this.totalPages = countPages(pages);
+        this.totalAttachments = countAttachments(pages);
+    }
+
+    synchronized void pageCompleted(boolean changed, long bytesUploaded) {
+        this.completedPages++;
+        if (!changed) {
+            this.unchangedPages++;
+        }
+        this.bytesUploaded += bytesUploaded;
+        this.listener.publishProgress(snapshot());
+    }
+
+    synchronized void attachmentCompleted(boolean changed, long bytesUploaded) {
+        this.completedAttachments++;
+        if (!changed) {
+            this.unchangedAttachments++;
+        }
+        this.bytesUploaded += bytesUploaded;
+        this.listener.publishProgress(snapshot());
+    }
+
+    private PublishProgress snapshot() {
+        // streaming metadata does not know its size up front, so its totals are the pages and attachments seen so far
+        return new PublishProgress(Math.max(this.totalPages, this.completedPages), Math.max(this.totalAttachments, this.completedAttachments), this.completedPages, this.completedAttachments,
+                this.unchangedPages, this.unchangedAttachments, this.bytesUploaded, (System.nanoTime() - this.startNanos) / 1_000_000);
+    }
+
+    private static int countPages(List<ConfluencePageMetadata> pages) {
+        return pages.stream().mapToInt(page -> 1 + countPages(page.getChildren())).sum();
+    }
+
+    private static int countAttachments(List<ConfluencePageMetadata> pages) {
+        return pages.stream().mapToInt(page -> page.getAttachments().size() + countAttachments(page.getChildren())).sum();
+    }
+}
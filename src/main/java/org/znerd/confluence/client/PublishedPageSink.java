@@ -0,0 +1,34 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+/**
+ * Receives each page of a {@link ConfluencePublisher#publish(PublishedPageSink)} as soon as the page and its
+ * attachments were published, on the publishing thread. Child pages are delivered before their parent.
+ */
+@FunctionalInterface
+public interface PublishedPageSink {
+
+    void pagePublished(PublishedPageInfo publishedPage);
+
+    /**
+     * Called once no more pages will be delivered, also when publishing failed.
+     */
+    default void publishCompleted() {
+        // empty
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
+import org.znerd.confluence.client.metadata.PageContentCache;
+
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * Compact record of the pages of a publish, in the order they were published. Pages are identified by their index;
+ * titles and labels are interned, attachments are kept as flat name and path arrays, numeric content ids are kept as
+ * {@code long}s and the page hierarchy as parent and child index arrays. Pages whose content comes from a file do not
+ * keep their {@link ConfluencePageMetadata}, so the metadata graph of a large publish is not retained by its result;
+ * {@link #page(int)} returns a view that reads the content file again, in the
+ * {@link ConfluencePageMetadata#getContentEncoding() content encoding} of the page.
+ */
+final class PublishedPageTree {
+
+    static final int NO_PARENT = -1;
+
+    private static final int  INITIAL_CAPACITY = 16;
+    private static final long NON_NUMERIC_ID   = -1;
+
+    private final String                          spaceKey;
+    private final String                          ancestorId;
+    private final Map<Integer, String>            nonNumericContentIds = new HashMap<>();
+    private final Map<Integer, String>            identities           = new HashMap<>();
+    private final Map<Integer, Charset>           contentEncodings     = new HashMap<>();
+    private final Map<Integer, PublishedPageInfo> retainedPages        = new HashMap<>();
+    private       Map<String, String>             internedStrings      = new HashMap<>();
+    private       Map<String, Integer>            lastIndices          = new HashMap<>();
+    private       int                             size;
+    private       String[]                        titles;
+    private       String[]                        contentFilePaths;
+    private       String[][]                      attachments;
+    private       String[][]                      labels;
+    private       int[]                           parents;
+    private       long[]                          contentIds;
+    private       int[]                           childOffsets;
+    private       int[]                           childIndices;
+
+    PublishedPageTree(String spaceKey, String ancestorId) {
+        this.spaceKey = spaceKey;
+        this.ancestorId = ancestorId;
+        this.titles = new String[INITIAL_CAPACITY];
+        this.contentFilePaths = new String[INITIAL_CAPACITY];
+        this.attachments = new String[INITIAL_CAPACITY][];
+        this.labels = new String[INITIAL_CAPACITY][];
+        this.parents = new int[INITIAL_CAPACITY];
+        this.contentIds = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds a page published under the page at {@code parentIndex}, or directly under the ancestor for
+     * {@link #NO_PARENT}, and returns its index.
+     */
+    int add(int parentIndex, ConfluencePageMetadata page, String contentId) {
+        assertWritable();
+        if (parentIndex < NO_PARENT || parentIndex >= this.size) {
+            throw new IllegalArgumentException("Invalid parent index " + parentIndex);
+        }
+        ensureCapacity(this.size + 1);
+
+        int index = this.size++;
+        this.titles[index] = intern(page.getTitle());
+        this.parents[index] = parentIndex;
+        this.contentIds[index] = numericId(contentId);
+        if (this.contentIds[index] == NON_NUMERIC_ID) {
+            this.nonNumericContentIds.put(index, contentId);
+        }
+        this.lastIndices.put(contentId, index);
+        if (page.getContentFilePath() != null) {
+            this.contentFilePaths[index] = page.getContentFilePath();
+            this.attachments[index] = flattened(page.getAttachments());
+            this.labels[index] = interned(page.getLabels());
+            if (page.getIdentity() != null && !page.getIdentity().equals(page.getContentFilePath())) {
+                this.identities.put(index, page.getIdentity());
+            }
+            if (!page.getContentEncoding().equals(UTF_8)) {
+                this.contentEncodings.put(index, page.getContentEncoding());
+            }
+        } else {
+            String pageAncestorId = parentIndex == NO_PARENT ? this.ancestorId : contentId(parentIndex);
+            this.retainedPages.put(index, new PublishedPageInfo(this.spaceKey, pageAncestorId, page, contentId));
+        }
+
+        return index;
+    }
+
+    /**
+     * Adds a page that cannot be placed in the hierarchy of this tree, e.g. one published to another space, keeping
+     * its {@link PublishedPageInfo} as is.
+     */
+    int addDetached(PublishedPageInfo pageInfo) {
+        int index = add(NO_PARENT, pageInfo.getPage(), pageInfo.getPageId());
+        this.retainedPages.put(index, pageInfo);
+
+        return index;
+    }
+
+    /**
+     * Returns the index of the last page added with the given content id, or {@link #NO_PARENT} if there is none. Only
+     * available until the tree is compacted.
+     */
+    int lastIndexOf(String contentId) {
+        assertWritable();
+        return this.lastIndices.getOrDefault(contentId, NO_PARENT);
+    }
+
+    /**
+     * Trims the arrays to the number of pages and indexes the children of each page. No pages can be added afterwards.
+     */
+    PublishedPageTree compact() {
+        if (this.childOffsets != null) {
+            return this;
+        }
+
+        this.titles = Arrays.copyOf(this.titles, this.size);
+        this.contentFilePaths = Arrays.copyOf(this.contentFilePaths, this.size);
+        this.attachments = Arrays.copyOf(this.attachments, this.size);
+        this.labels = Arrays.copyOf(this.labels, this.size);
+        this.parents = Arrays.copyOf(this.parents, this.size);
+        this.contentIds = Arrays.copyOf(this.contentIds, this.size);
+        this.internedStrings = null;
+        this.lastIndices = null;
+
+        int[] childOffsets = new int[this.size + 2];
+        for (int index = 0; index < this.size; index++) {
+            childOffsets[this.parents[index] + 2]++;
+        }
+        for (int slot = 2; slot < childOffsets.length; slot++) {
+            childOffsets[slot] += childOffsets[slot - 1];
+        }
+        int[] childIndices = new int[this.size];
+        int[] nextChildSlots = childOffsets.clone();
+        for (int index = 0; index < this.size; index++) {
+            childIndices[nextChildSlots[this.parents[index] + 1]++] = index;
+        }
+        this.childOffsets = childOffsets;
+        this.childIndices = childIndices;
+
+        return this;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    String title(int index) {
+        return this.titles[checkedIndex(index)];
+    }
+
+    String contentId(int index) {
+        checkedIndex(index);
+        return this.contentIds[index] != NON_NUMERIC_ID ? Long.toString(this.contentIds[index]) : this.nonNumericContentIds.get(index);
+    }
+
+    int parent(int index) {
+        return this.parents[checkedIndex(index)];
+    }
+
+    String ancestorId(int index) {
+        PublishedPageInfo retainedPage = this.retainedPages.get(checkedIndex(index));
+        if (retainedPage != null) {
+            return retainedPage.getAncestorId();
+        }
+
+        int parentIndex = this.parents[index];
+        return parentIndex == NO_PARENT ? this.ancestorId : contentId(parentIndex);
+    }
+
+    /**
+     * Returns the indices of the children of the page at {@code index}, or of the pages published directly under the
+     * ancestor for {@link #NO_PARENT}.
+     */
+    int[] children(int index) {
+        assertCompacted();
+        if (index != NO_PARENT) {
+            checkedIndex(index);
+        }
+
+        return Arrays.copyOfRange(this.childIndices, this.childOffsets[index + 1], this.childOffsets[index + 2]);
+    }
+
+    ConfluencePageMetadata page(int index) {
+        PublishedPageInfo retainedPage = this.retainedPages.get(checkedIndex(index));
+        return retainedPage != null ? retainedPage.getPage() : new PageView(index);
+    }
+
+    PublishedPageInfo pageInfo(int index) {
+        PublishedPageInfo retainedPage = this.retainedPages.get(checkedIndex(index));
+        return retainedPage != null ? retainedPage : new PublishedPageInfo(this.spaceKey, ancestorId(index), new PageView(index), contentId(index));
+    }
+
+    /**
+     * Returns a read-only view of the pages, creating each {@link PublishedPageInfo} when it is accessed.
+     */
+    List<PublishedPageInfo> pageInfos() {
+        return new PageInfoList();
+    }
+
+    private String intern(String value) {
+        return value == null ? null : this.internedStrings.computeIfAbsent(value, (key) -> key);
+    }
+
+    private String[] interned(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+
+        String[] internedValues = new String[values.size()];
+        for (int i = 0; i < internedValues.length; i++) {
+            internedValues[i] = intern(values.get(i));
+        }
+
+        return internedValues;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.titles.length) {
+            int newCapacity = Math.max(capacity, this.titles.length + (this.titles.length >> 1));
+            this.titles = Arrays.copyOf(this.titles, newCapacity);
+            this.contentFilePaths = Arrays.copyOf(this.contentFilePaths, newCapacity);
+            this.attachments = Arrays.copyOf(this.attachments, newCapacity);
+            this.labels = Arrays.copyOf(this.labels, newCapacity);
+            this.parents = Arrays.copyOf(this.parents, newCapacity);
+            this.contentIds = Arrays.copyOf(this.contentIds, newCapacity);
+        }
+    }
+
+    private int checkedIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + this.size);
+        }
+
+        return index;
+    }
+
+    private void assertWritable() {
+        if (this.childOffsets != null) {
+            throw new IllegalStateException("Page tree was already compacted");
+        }
+    }
+
+    private void assertCompacted() {
+        if (this.childOffsets == null) {
+            throw new IllegalStateException("Page tree was not compacted yet");
+        }
+    }
+
+    private static String[] flattened(Map<String, String> attachments) {
+        if (attachments == null || attachments.isEmpty()) {
+            return null;
+        }
+
+        String[] namesAndPaths = new String[2 * attachments.size()];
+        int i = 0;
+        for (Map.Entry<String, String> attachment : attachments.entrySet()) {
+            namesAndPaths[i++] = attachment.getKey();
+            namesAndPaths[i++] = attachment.getValue();
+        }
+
+        return namesAndPaths;
+    }
+
+    private static long numericId(String contentId) {
+        if (contentId.isEmpty() || contentId.length() > 18 || (contentId.charAt(0) == '0' && contentId.length() > 1)) {
+            return NON_NUMERIC_ID;
+        }
+        for (int i = 0; i < contentId.length(); i++) {
+            if (contentId.charAt(i) < '0' || contentId.charAt(i) > '9') {
+                return NON_NUMERIC_ID;
+            }
+        }
+
+        return Long.parseLong(contentId);
+    }
+
+    private final class PageInfoList extends AbstractList<PublishedPageInfo> implements RandomAccess {
+
+        @Override
+        public PublishedPageInfo get(int index) {
+            return pageInfo(index);
+        }
+
+        @Override
+        public int size() {
+            return PublishedPageTree.this.size;
+        }
+    }
+
+    /**
+     * Page backed by the tree; content and hashes are read from the content file, like for file based metadata.
+     */
+    private final class PageView implements ConfluencePageMetadata {
+
+        private final int index;
+
+        PageView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getTitle() {
+            return title(this.index);
+        }
+
+        @Override
+        public String getContentFilePath() {
+            return PublishedPageTree.this.contentFilePaths[this.index];
+        }
+
+        @Override
+        public String getIdentity() {
+            String identity = PublishedPageTree.this.identities.get(this.index);
+            return identity != null ? identity : getContentFilePath();
+        }
+
+        @Override
+        public Charset getContentEncoding() {
+            return PublishedPageTree.this.contentEncodings.getOrDefault(this.index, UTF_8);
+        }
+
+        @Override
+        public String getContent() {
+            return PageContentCache.shared().get(Paths.get(getContentFilePath()), getContentEncoding()).getContent();
+        }
+
+        @Override
+        public String getContentHash() {
+            return PageContentCache.shared().get(Paths.get(getContentFilePath()), getContentEncoding()).getHash();
+        }
+
+        @Override
+        public List<ConfluencePageMetadata> getChildren() {
+            int[] children = children(this.index);
+            return new AbstractList<ConfluencePageMetadata>() {
+
+                @Override
+                public ConfluencePageMetadata get(int childIndex) {
+                    return page(children[childIndex]);
+                }
+
+                @Override
+                public int size() {
+                    return children.length;
+                }
+            };
+        }
+
+        @Override
+        public Map<String, String> getAttachments() {
+            String[] namesAndPaths = PublishedPageTree.this.attachments[this.index];
+            if (namesAndPaths == null) {
+                return emptyMap();
+            }
+
+            Map<String, String> attachments = new LinkedHashMap<>();
+            for (int i = 0; i < namesAndPaths.length; i += 2) {
+                attachments.put(namesAndPaths[i], namesAndPaths[i + 1]);
+            }
+
+            return unmodifiableMap(attachments);
+        }
+
+        @Override
+        public List<String> getLabels() {
+            String[] labels = PublishedPageTree.this.labels[this.index];
+            return labels == null ? emptyList() : unmodifiableList(Arrays.asList(labels));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PageView that = (PageView) o;
+            return this.index == that.index && tree() == that.tree();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(tree()) + this.index;
+        }
+
+        @Override
+        public String toString() {
+            return "PageView{title='" + getTitle() + "', contentFilePath='" + getContentFilePath() + "'}";
+        }
+
+        private PublishedPageTree tree() {
+            return PublishedPageTree.this;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Partitions a local and a remote set of items, matched by key, into the items to add, update and delete. Both
+ * sets are indexed by key once, so reconciling takes linear time however many siblings a page has. Each partition
+ * keeps the order of the set it was taken from. Keys are expected to be unique within each set, like page titles in a
+ * space and file names of attachments on a page; only the first remote item with a given key is matched.
+ */
+final class Reconciliation<L, R> {
+
+    private final List<L>           toAdd    = new ArrayList<>();
+    private final List<Match<L, R>> toUpdate = new ArrayList<>();
+    private final List<R>           toDelete = new ArrayList<>();
+
+    private Reconciliation() {
+    }
+
+    static <L, R> Reconciliation<L, R> reconcile(Collection<L> local, Function<L, String> localKey, Collection<R> remote, Function<R, String> remoteKey) {
+        Map<String, R> remoteByKey = new HashMap<>(2 * remote.size());
+        remote.forEach((remoteItem) -> remoteByKey.putIfAbsent(remoteKey.apply(remoteItem), remoteItem));
+
+        Reconciliation<L, R> reconciliation = new Reconciliation<>();
+        Set<String> localKeys = new HashSet<>(2 * local.size());
+        for (L localItem : local) {
+            String key = localKey.apply(localItem);
+            localKeys.add(key);
+            R remoteItem = remoteByKey.get(key);
+            if (remoteItem == null) {
+                reconciliation.toAdd.add(localItem);
+            } else {
+                reconciliation.toUpdate.add(new Match<>(localItem, remoteItem));
+            }
+        }
+        for (R remoteItem : remote) {
+            if (!localKeys.contains(remoteKey.apply(remoteItem))) {
+                reconciliation.toDelete.add(remoteItem);
+            }
+        }
+
+        return reconciliation;
+    }
+
+    List<L> toAdd() {
+        return unmodifiableList(this.toAdd);
+    }
+
+    List<Match<L, R>> toUpdate() {
+        return unmodifiableList(this.toUpdate);
+    }
+
+    List<R> toDelete() {
+        return unmodifiableList(this.toDelete);
+    }
+
+    static final class Match<L, R> {
+
+        private final L local;
+        private final R remote;
+
+        private Match(L local, R remote) {
+            this.local = local;
+            this.remote = remote;
+        }
+
+        L getLocal() {
+            return this.local;
+        }
+
+        R getRemote() {
+            return this.remote;
+        }
+    }
+}
@@ -17,7 +17,10 @@
 package org.znerd.confluence.client.http;
 
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface ConfluenceClient {
 
@@ -31,6 +34,14 @@ public interface ConfluenceClient {
 
     String getConfluenceRootUrl();
 
+    /**
+     * Returns how many requests can be sent concurrently without waiting for a connection, e.g. the size of the
+     * connection pool. Unlimited unless the client knows its limit.
+     */
+    default int getMaxConcurrentRequests() {
+        return Integer.MAX_VALUE;
+    }
+
     String addPageUnderAncestor(String spaceKey, String ancestorId, String title, String content, String versionMessage);
 
     void updatePage(String contentId, String ancestorId, String title, String content, int newVersion, String versionMessage);
@@ -51,18 +62,62 @@ public interface ConfluenceClient {
 
     List<ConfluencePage> getChildPages(String contentId);
 
+    /**
+     * Lists the child pages like {@link #getChildPages(String)}, along with the values of the given content properties,
+     * so they need not be fetched page by page. Clients that cannot fetch them in the same request return the pages
+     * without properties.
+     */
+    default List<ConfluencePage> getChildPages(String contentId, Collection<String> propertyKeys) {
+        return getChildPages(contentId);
+    }
+
     List<ConfluenceAttachment> getAttachments(String contentId);
 
     void setPropertyByKey(String contentId, String key, String value);
 
     String getPropertyByKey(String contentId, String key);
 
+    /**
+     * Returns those of the given content properties that are set on the page, keyed by property key. Clients that can
+     * list the properties of a page fetch them all at once instead of one by one, along with their versions.
+     */
+    default Map<String, ConfluenceProperty> getPropertiesByKey(String contentId, Collection<String> keys) {
+        Map<String, ConfluenceProperty> properties = new HashMap<>();
+        keys.forEach((key) -> {
+            String value = getPropertyByKey(contentId, key);
+            if (value != null) {
+                properties.put(key, new ConfluenceProperty(key, value, 0));
+            }
+        });
+
+        return properties;
+    }
+
+    /**
+     * Replaces the value of an existing content property and returns its new version. Clients that support versioned
+     * updates do so with a single request based on {@code currentVersion}, which is fetched when {@code 0}, create the
+     * property when it does not exist and retry when it was changed concurrently, so the property never goes missing.
+     */
+    default int updatePropertyByKey(String contentId, String key, String value, int currentVersion) {
+        deletePropertyByKey(contentId, key);
+        setPropertyByKey(contentId, key, value);
+
+        return 1;
+    }
+
     void deletePropertyByKey(String contentId, String key);
 
     void addLabelToPage(String contentId, String label);
 
     void addLabelToPage(String contentId, String prefix, String label);
 
+    /**
+     * Adds the given global labels to the page. Implementations may add all of them with a single request.
+     */
+    default void addLabelsToPage(String contentId, Collection<String> labels) {
+        labels.forEach(label -> addLabelToPage(contentId, label));
+    }
+
     void deleteLabelFromPage(String contentId, String labelName);
 
     List<ConfluenceLabel> getLabelsFromPage(String contentId);
@@ -16,22 +16,32 @@
 
 package org.znerd.confluence.client.http;
 
+import java.util.Map;
+
+import static java.util.Collections.emptyMap;
+
 public class ConfluencePage {
 
-    private final String contentId;
-    private final String title;
-    private final String content;
-    private final int    version;
+    private final String              contentId;
+    private final String              title;
+    private final String              content;
+    private final int                 version;
+    private final Map<String, String> properties;
 
     public ConfluencePage(String contentId, String title, int version) {
         this(contentId, title, null, version);
     }
 
     public ConfluencePage(String contentId, String title, String content, int version) {
+        this(contentId, title, content, version, emptyMap());
+    }
+
+    public ConfluencePage(String contentId, String title, String content, int version, Map<String, String> properties) {
         this.contentId = contentId;
         this.title = title;
         this.content = content;
         this.version = version;
+        this.properties = properties;
     }
 
     public String getContentId() {
@@ -50,6 +60,14 @@ public class ConfluencePage {
         return this.version;
     }
 
+    /**
+     * Value of a content property that was fetched along with the page, or {@code null} if the page has no such
+     * property or it was not fetched.
+     */
+    public String getProperty(String key) {
+        return this.properties.get(key);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
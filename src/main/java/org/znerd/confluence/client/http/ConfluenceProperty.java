@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client.http;
+
+import java.util.Objects;
+
+/**
+ * Content property of a page, with the version a versioned update must increment, or {@code 0} if the version is not
+ * known.
+ */
+public class ConfluenceProperty {
+
+    private final String key;
+    private final String value;
+    private final int    version;
+
+    public ConfluenceProperty(String key, String value, int version) {
+        this.key = key;
+        this.value = value;
+        this.version = version;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+
+    public int getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ConfluenceProperty that = (ConfluenceProperty) o;
+        return this.version == that.version && Objects.equals(this.key, that.key) && Objects.equals(this.value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.key, this.value, this.version);
+    }
+
+    @Override
+    public String toString() {
+        return "ConfluenceProperty{" +
+            "key='" + this.key + '\'' +
+            ", value='" + this.value + '\'' +
+            ", version=" + this.version +
+            '}';
+    }
+}
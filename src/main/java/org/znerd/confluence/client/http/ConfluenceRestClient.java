@@ -21,8 +21,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
 import org.apache.http.client.config.RequestConfig;
@@ -32,55 +36,95 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
 import org.apache.http.ssl.SSLContextBuilder;
+import org.znerd.confluence.client.jfr.FlightRecorderEvents;
+import org.znerd.confluence.client.jfr.HttpRequestRecording;
 import org.znerd.confluence.client.support.JsonParseRuntimeException;
 import org.znerd.confluence.client.utils.IoUtils;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.net.ssl.SSLContext;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 import static org.apache.http.HttpHeaders.AUTHORIZATION;
 import static org.apache.http.HttpHeaders.PROXY_AUTHORIZATION;
 import static org.apache.http.client.config.CookieSpecs.STANDARD;
 import static org.znerd.confluence.client.utils.AssertUtils.assertNotNull;
+import static org.znerd.confluence.client.utils.EndpointUtils.endpointTemplate;
 
 public class ConfluenceRestClient implements ConfluenceClient {
-    private final String              rootConfluenceUrl;
-    private final CloseableHttpClient httpClient;
-    private final String              username;
-    private final String              password;
-    private final HttpRequestFactory  httpRequestFactory;
-    private final ObjectMapper        jsonObjectMapper;
+    private static final AtomicLong MBEAN_SEQUENCE               = new AtomicLong();
+    private static final int        MAX_CONNECTIONS_PER_ROUTE    = 4;
+    private static final int        PROPERTIES_PAGE_SIZE         = 100;
+    private static final int        MAX_PROPERTY_UPDATE_ATTEMPTS = 3;
+
+    private final String                         rootConfluenceUrl;
+    private final CloseableHttpClient            httpClient;
+    private final String                         username;
+    private final String                         password;
+    private final HttpRequestFactory             httpRequestFactory;
+    private final ObjectMapper                   jsonObjectMapper;
+    private final ConfluenceRestClientStatistics statistics;
+    private final int                            maxConcurrentRequests;
 
     public ConfluenceRestClient(String rootConfluenceUrl, boolean disableSslVerification, String username, String password) {
         this(rootConfluenceUrl, null, disableSslVerification, username, password);
     }
 
     public ConfluenceRestClient(String rootConfluenceUrl, ProxyConfiguration proxyConfiguration, boolean disableSslVerification, String username, String password) {
-        this(rootConfluenceUrl, defaultHttpClient(proxyConfiguration, disableSslVerification), username, password);
+        this(rootConfluenceUrl, defaultConnectionManager(disableSslVerification), proxyConfiguration, username, password);
     }
 
     public ConfluenceRestClient(String rootConfluenceUrl, CloseableHttpClient httpClient, String username, String password) {
+        this(rootConfluenceUrl, httpClient, null, username, password);
+    }
+
+    private ConfluenceRestClient(String rootConfluenceUrl, PoolingHttpClientConnectionManager connectionManager, ProxyConfiguration proxyConfiguration, String username, String password) {
+        this(rootConfluenceUrl, defaultHttpClient(connectionManager, proxyConfiguration), connectionManager, username, password);
+    }
+
+    private ConfluenceRestClient(String rootConfluenceUrl, CloseableHttpClient httpClient, PoolingHttpClientConnectionManager connectionManager, String username, String password) {
         this.rootConfluenceUrl = rootConfluenceUrl;
         this.httpClient = assertNotNull(httpClient, "httpClient");
         this.username = username;
         this.password = password;
         this.httpRequestFactory = new HttpRequestFactory(assertNotNull(rootConfluenceUrl, "rootConfluenceUrl"));
         this.jsonObjectMapper = createJsonObjectMapper();
+        this.statistics = new ConfluenceRestClientStatistics(rootConfluenceUrl, connectionManager);
+        this.maxConcurrentRequests = connectionManager != null ? connectionManager.getDefaultMaxPerRoute() : Integer.MAX_VALUE;
     }
 
     private static ObjectMapper createJsonObjectMapper() {
@@ -94,6 +138,34 @@ public class ConfluenceRestClient implements ConfluenceClient {
         return rootConfluenceUrl;
     }
 
+    /**
+     * Returns the number of connections per route of the connection pool, {@value #MAX_CONNECTIONS_PER_ROUTE}, or no
+     * limit for a client created with its own HTTP client.
+     */
+    @Override
+    public int getMaxConcurrentRequests() {
+        return this.maxConcurrentRequests;
+    }
+
+    public ConfluenceRestClientMXBean getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Registers the {@link #getStatistics() statistics} of this client with the platform MBean server. Unregister the
+     * returned name when the client is no longer used.
+     */
+    public ObjectName registerMBean() {
+        try {
+            ObjectName objectName = new ObjectName("org.znerd.confluence.client:type=ConfluenceRestClient,name=" + ObjectName.quote(this.rootConfluenceUrl) + ",id=" + MBEAN_SEQUENCE.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this.statistics, objectName);
+
+            return objectName;
+        } catch (JMException e) {
+            throw new RuntimeException("Could not register MBean for Confluence REST client [" + this.rootConfluenceUrl + "]", e);
+        }
+    }
+
     @Override
     public String addPageUnderAncestor(String spaceKey, String ancestorId, String title, String content, String versionMessage) {
         HttpPost addPageUnderSpaceRequest = this.httpRequestFactory.addPageUnderAncestorRequest(spaceKey, ancestorId, title, content, versionMessage);
@@ -226,22 +298,56 @@ public class ConfluenceRestClient implements ConfluenceClient {
     <T> T sendRequest(HttpRequestBase httpRequest, Function<HttpResponse, T> responseHandler) {
         httpRequest.addHeader(AUTHORIZATION, basicAuthorizationHeaderValue(this.username, this.password));
 
+        HttpRequestRecording recording = FlightRecorderEvents.beginHttpRequest();
+        ConnectionReuseTrackingRequestExecutor.CONNECTION_REUSED.remove();
+        HttpResponse recordedResponse = null;
+        long startNanos = this.statistics.requestStarted();
+
         try (CloseableHttpResponse response = this.httpClient.execute(httpRequest)) {
+            recordedResponse = response;
+            this.statistics.connectionUsed(ConnectionReuseTrackingRequestExecutor.CONNECTION_REUSED.get());
             return responseHandler.apply(response);
         } catch (IOException | JsonParseRuntimeException e) {
             throw new RuntimeException("Request could not be sent: " + httpRequest, e);
+        } finally {
+            this.statistics.requestCompleted(startNanos);
+            if (recording.isRecording()) {
+                recordHttpRequest(recording, httpRequest, recordedResponse);
+            }
         }
     }
 
+    private static void recordHttpRequest(HttpRequestRecording recording, HttpRequestBase httpRequest, HttpResponse response) {
+        int statusCode = response != null ? response.getStatusLine().getStatusCode() : -1;
+        long responseBytes = response != null && response.getEntity() != null ? response.getEntity().getContentLength() : 0;
+
+        recording.complete(httpRequest.getMethod(), endpointTemplate(httpRequest.getURI().getPath()), statusCode, requestBytes(httpRequest),
+            responseBytes, ConnectionReuseTrackingRequestExecutor.CONNECTION_REUSED.get());
+    }
+
+    private static long requestBytes(HttpRequestBase httpRequest) {
+        if (httpRequest instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) httpRequest).getEntity();
+            return entity != null ? entity.getContentLength() : 0;
+        }
+
+        return 0;
+    }
+
     @Override
     public List<ConfluencePage> getChildPages(String contentId) {
+        return getChildPages(contentId, emptyList());
+    }
+
+    @Override
+    public List<ConfluencePage> getChildPages(String contentId, Collection<String> propertyKeys) {
         int start = 0;
         int limit = 25;
 
         ArrayList<ConfluencePage> childPages = new ArrayList<>();
         boolean fetchMore = true;
         while (fetchMore) {
-            List<ConfluencePage> nextChildPages = getNextChildPages(contentId, limit, start);
+            List<ConfluencePage> nextChildPages = getNextChildPages(contentId, propertyKeys, limit, start);
             childPages.addAll(nextChildPages);
 
             start++;
@@ -269,13 +375,14 @@ public class ConfluenceRestClient implements ConfluenceClient {
         return attachments;
     }
 
-    private List<ConfluencePage> getNextChildPages(String contentId, int limit, int start) {
+    private List<ConfluencePage> getNextChildPages(String contentId, Collection<String> propertyKeys, int limit, int start) {
         List<ConfluencePage> pages = new ArrayList<>(limit);
-        HttpGet getChildPagesByIdRequest = this.httpRequestFactory.getChildPagesByIdRequest(contentId, limit, start, "version");
+        String expandOptions = Stream.concat(Stream.of("version"), propertyKeys.stream().map((key) -> "metadata.properties." + key)).collect(joining(","));
+        HttpGet getChildPagesByIdRequest = this.httpRequestFactory.getChildPagesByIdRequest(contentId, limit, start, expandOptions);
 
         return sendRequestAndFailIfNot20x(getChildPagesByIdRequest, (response) -> {
             JsonNode jsonNode = parseJsonResponse(response);
-            jsonNode.withArray("results").forEach((page) -> pages.add(extractConfluencePageWithoutContent(page)));
+            jsonNode.withArray("results").forEach((page) -> pages.add(extractConfluencePageWithoutContent(page, propertyKeys)));
 
             return pages;
         });
@@ -312,6 +419,66 @@ public class ConfluenceRestClient implements ConfluenceClient {
         });
     }
 
+    @Override
+    public Map<String, ConfluenceProperty> getPropertiesByKey(String contentId, Collection<String> keys) {
+        Set<String> keysToReturn = new HashSet<>(keys);
+        Map<String, ConfluenceProperty> properties = new HashMap<>();
+        int start = 0;
+        boolean fetchMore = !keysToReturn.isEmpty();
+        while (fetchMore) {
+            HttpGet getPropertiesRequest = this.httpRequestFactory.getPropertiesRequest(contentId, PROPERTIES_PAGE_SIZE, start);
+            int fetchedProperties = sendRequestAndFailIfNot20x(getPropertiesRequest, (response) -> {
+                JsonNode results = parseJsonResponse(response).withArray("results");
+                results.forEach((property) -> {
+                    String key = property.path("key").asText();
+                    if (keysToReturn.contains(key)) {
+                        properties.put(key, new ConfluenceProperty(key, extractPropertyValueFromJsonNode(property), property.path("version").path("number").asInt(0)));
+                    }
+                });
+
+                return results.size();
+            });
+
+            start += PROPERTIES_PAGE_SIZE;
+            fetchMore = fetchedProperties == PROPERTIES_PAGE_SIZE && properties.size() < keysToReturn.size();
+        }
+
+        return properties;
+    }
+
+    @Override
+    public int updatePropertyByKey(String contentId, String key, String value, int currentVersion) {
+        int version = currentVersion;
+        for (int attempt = 1; ; attempt++) {
+            if (version <= 0) {
+                ConfluenceProperty property = getPropertiesByKey(contentId, singletonList(key)).get(key);
+                version = property != null ? property.getVersion() : 0;
+            }
+
+            HttpRequestBase request = version > 0
+                ? this.httpRequestFactory.updatePropertyByKeyRequest(contentId, key, value, version + 1)
+                : this.httpRequestFactory.setPropertyByKeyRequest(contentId, key, value);
+            boolean retry = attempt < MAX_PROPERTY_UPDATE_ATTEMPTS;
+            boolean updated = sendRequest(request, (response) -> {
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (statusCode >= 200 && statusCode <= 206) {
+                    return true;
+                }
+                if (retry && (statusCode == 404 || statusCode == 409)) {
+                    return false;
+                }
+
+                throw new RequestFailedException(request, response);
+            });
+
+            if (updated) {
+                return version + 1;
+            }
+            this.statistics.propertyUpdateRetried();
+            version = 0;
+        }
+    }
+
     @Override
     public void deletePropertyByKey(String contentId, String key) {
         HttpDelete deletePropertyByKeyRequest = this.httpRequestFactory.deletePropertyByKeyRequest(contentId, key);
@@ -339,12 +506,19 @@ public class ConfluenceRestClient implements ConfluenceClient {
         return jsonNode.path("body").path("storage").get("value").asText();
     }
 
-    private static ConfluencePage extractConfluencePageWithoutContent(JsonNode jsonNode) {
+    private static ConfluencePage extractConfluencePageWithoutContent(JsonNode jsonNode, Collection<String> propertyKeys) {
         String id = extractIdFromJsonNode(jsonNode);
         String title = extractTitleFromJsonNode(jsonNode);
         int version = extractVersionFromJsonNode(jsonNode);
+        Map<String, String> properties = new HashMap<>();
+        propertyKeys.forEach((key) -> {
+            JsonNode propertyNode = jsonNode.path("metadata").path("properties").path(key);
+            if (propertyNode.has("value")) {
+                properties.put(key, extractPropertyValueFromJsonNode(propertyNode));
+            }
+        });
 
-        return new ConfluencePage(id, title, version);
+        return new ConfluencePage(id, title, null, version, properties);
     }
 
     private static ConfluenceAttachment extractConfluenceAttachment(JsonNode jsonNode) {
@@ -380,7 +554,21 @@ public class ConfluenceRestClient implements ConfluenceClient {
         return jsonNode.get("name").asText();
     }
 
-    private static CloseableHttpClient defaultHttpClient(ProxyConfiguration proxyConfiguration, boolean disableSslVerification) {
+    private static PoolingHttpClientConnectionManager defaultConnectionManager(boolean disableSslVerification) {
+        SSLConnectionSocketFactory sslSocketFactory = disableSslVerification
+            ? new SSLConnectionSocketFactory(trustAllSslContext(), NoopHostnameVerifier.INSTANCE)
+            : SSLConnectionSocketFactory.getSocketFactory();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sslSocketFactory)
+            .build());
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+
+        return connectionManager;
+    }
+
+    private static CloseableHttpClient defaultHttpClient(PoolingHttpClientConnectionManager connectionManager, ProxyConfiguration proxyConfiguration) {
         RequestConfig requestConfig = RequestConfig.custom()
             .setConnectionRequestTimeout(20 * 1000)
             .setConnectTimeout(20 * 1000)
@@ -388,7 +576,9 @@ public class ConfluenceRestClient implements ConfluenceClient {
             .build();
 
         HttpClientBuilder builder = HttpClients.custom()
-            .setDefaultRequestConfig(requestConfig);
+            .setDefaultRequestConfig(requestConfig)
+            .setConnectionManager(connectionManager)
+            .setRequestExecutor(new ConnectionReuseTrackingRequestExecutor());
 
         if (proxyConfiguration != null) {
             if (proxyConfiguration.proxyHost() != null) {
@@ -407,11 +597,6 @@ public class ConfluenceRestClient implements ConfluenceClient {
             }
         }
 
-        if (disableSslVerification) {
-            builder.setSSLContext(trustAllSslContext());
-            builder.setSSLHostnameVerifier(new NoopHostnameVerifier());
-        }
-
         return builder.build();
     }
 
@@ -441,6 +626,13 @@ public class ConfluenceRestClient implements ConfluenceClient {
         sendRequestAndFailIfNot20x(addLabelToPageRequest);
     }
 
+    @Override
+    public void addLabelsToPage(String contentId, Collection<String> labels) {
+        List<String> lowerCaseLabels = labels.stream().map(String::toLowerCase).collect(toList());
+        HttpPost addLabelsToPageRequest = this.httpRequestFactory.addLabelsToPageRequest(contentId, lowerCaseLabels);
+        sendRequestAndFailIfNot20x(addLabelsToPageRequest);
+    }
+
     @Override
     public void deleteLabelFromPage(String contentId, String labelName) {
         HttpDelete deleteLabelFromPageRequest = this.httpRequestFactory.deleteLabelFromPageRequest(contentId, labelName.toLowerCase());
@@ -467,6 +659,18 @@ public class ConfluenceRestClient implements ConfluenceClient {
         });
     }
 
+    private static class ConnectionReuseTrackingRequestExecutor extends HttpRequestExecutor {
+
+        private static final ThreadLocal<Boolean> CONNECTION_REUSED = ThreadLocal.withInitial(() -> false);
+
+        @Override
+        public HttpResponse execute(HttpRequest request, HttpClientConnection connection, HttpContext context) throws IOException, HttpException {
+            CONNECTION_REUSED.set(connection.getMetrics().getRequestCount() > 0);
+
+            return super.execute(request, connection, context);
+        }
+    }
+
     public static class ProxyConfiguration {
 
         private final String  proxyScheme;
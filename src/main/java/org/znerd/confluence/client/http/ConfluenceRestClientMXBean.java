@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client.http;
+
+/**
+ * Live statistics of a {@link ConfluenceRestClient}, see {@link ConfluenceRestClient#registerMBean()}. Connection pool
+ * and connection reuse attributes are -1 when the client was created with an externally supplied HTTP client. The
+ * pool limits the concurrent requests per route to {@link #getMaxConnectionsPerRoute()}, further requests wait as
+ * pending connection requests. Latencies are in milliseconds over the most recent requests.
+ */
+public interface ConfluenceRestClientMXBean {
+
+    String getRootConfluenceUrl();
+
+    int getLeasedConnections();
+
+    int getAvailableConnections();
+
+    int getPendingConnectionRequests();
+
+    int getMaxConnections();
+
+    int getMaxConnectionsPerRoute();
+
+    long getReusedConnectionRequests();
+
+    long getNewConnectionRequests();
+
+    int getInFlightRequests();
+
+    long getTotalRequests();
+
+    long getPropertyUpdateRetries();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP95Millis();
+
+    double getLatencyP99Millis();
+
+    double getLatencyMaxMillis();
+}
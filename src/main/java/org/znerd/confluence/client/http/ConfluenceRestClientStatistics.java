@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client.http;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToIntFunction;
+
+class ConfluenceRestClientStatistics implements ConfluenceRestClientMXBean {
+
+    static final int LATENCY_WINDOW_SIZE = 1024;
+
+    private final String                             rootConfluenceUrl;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final AtomicInteger                      inFlightRequests         = new AtomicInteger();
+    private final AtomicLong                         totalRequests            = new AtomicLong();
+    private final AtomicLong                         reusedConnectionRequests = new AtomicLong();
+    private final AtomicLong                         newConnectionRequests    = new AtomicLong();
+    private final AtomicLong                         propertyUpdateRetries    = new AtomicLong();
+    private final AtomicLongArray                    latencyNanos             = new AtomicLongArray(LATENCY_WINDOW_SIZE);
+
+    ConfluenceRestClientStatistics(String rootConfluenceUrl, PoolingHttpClientConnectionManager connectionManager) {
+        this.rootConfluenceUrl = rootConfluenceUrl;
+        this.connectionManager = connectionManager;
+    }
+
+    long requestStarted() {
+        this.inFlightRequests.incrementAndGet();
+
+        return System.nanoTime();
+    }
+
+    void requestCompleted(long startNanos) {
+        long requestNumber = this.totalRequests.getAndIncrement();
+        this.latencyNanos.set((int) (requestNumber % LATENCY_WINDOW_SIZE), System.nanoTime() - startNanos);
+        this.inFlightRequests.decrementAndGet();
+    }
+
+    void connectionUsed(boolean reused) {
+        (reused ? this.reusedConnectionRequests : this.newConnectionRequests).incrementAndGet();
+    }
+
+    void propertyUpdateRetried() {
+        this.propertyUpdateRetries.incrementAndGet();
+    }
+
+    @Override
+    public String getRootConfluenceUrl() {
+        return this.rootConfluenceUrl;
+    }
+
+    @Override
+    public int getLeasedConnections() {
+        return poolStat(PoolStats::getLeased);
+    }
+
+    @Override
+    public int getAvailableConnections() {
+        return poolStat(PoolStats::getAvailable);
+    }
+
+    @Override
+    public int getPendingConnectionRequests() {
+        return poolStat(PoolStats::getPending);
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return poolStat(PoolStats::getMax);
+    }
+
+    @Override
+    public int getMaxConnectionsPerRoute() {
+        return this.connectionManager != null ? this.connectionManager.getDefaultMaxPerRoute() : -1;
+    }
+
+    @Override
+    public long getReusedConnectionRequests() {
+        return this.connectionManager != null ? this.reusedConnectionRequests.get() : -1;
+    }
+
+    @Override
+    public long getNewConnectionRequests() {
+        return this.connectionManager != null ? this.newConnectionRequests.get() : -1;
+    }
+
+    @Override
+    public int getInFlightRequests() {
+        return this.inFlightRequests.get();
+    }
+
+    @Override
+    public long getTotalRequests() {
+        return this.totalRequests.get();
+    }
+
+    @Override
+    public long getPropertyUpdateRetries() {
+        return this.propertyUpdateRetries.get();
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return latencyPercentileMillis(0.50);
+    }
+
+    @Override
+    public double getLatencyP95Millis() {
+        return latencyPercentileMillis(0.95);
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return latencyPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getLatencyMaxMillis() {
+        return latencyPercentileMillis(1.0);
+    }
+
+    private int poolStat(ToIntFunction<PoolStats> poolStat) {
+        return this.connectionManager != null ? poolStat.applyAsInt(this.connectionManager.getTotalStats()) : -1;
+    }
+
+    private double latencyPercentileMillis(double percentile) {
+        int sampleCount = (int) Math.min(this.totalRequests.get(), LATENCY_WINDOW_SIZE);
+        if (sampleCount == 0) {
+            return 0;
+        }
+
+        long[] samples = new long[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            samples[i] = this.latencyNanos.get(i);
+        }
+        Arrays.sort(samples);
+
+        int index = Math.max(0, (int) Math.ceil(percentile * sampleCount) - 1);
+        return samples[index] / 1_000_000.0;
+    }
+}
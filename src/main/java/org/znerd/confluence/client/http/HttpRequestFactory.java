@@ -19,6 +19,7 @@ package org.znerd.confluence.client.http;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.HttpDelete;
@@ -26,7 +27,7 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.mime.HttpMultipartMode;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.InputStreamBody;
@@ -39,14 +40,15 @@ import org.znerd.confluence.client.http.payloads.Space;
 import org.znerd.confluence.client.http.payloads.Storage;
 import org.znerd.confluence.client.http.payloads.Version;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.List;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
 import static org.apache.http.entity.ContentType.APPLICATION_OCTET_STREAM;
 import static org.znerd.confluence.client.http.HttpRequestFactory.PagePayloadBuilder.pagePayloadBuilder;
@@ -56,6 +58,7 @@ class HttpRequestFactory {
     private final static Header APPLICATION_JSON_UTF8_HEADER = new BasicHeader("Content-Type", "application/json;charset=utf-8");
     private static final String REST_API_CONTEXT             = "/rest/api";
     private static final int    INITIAL_VERSION              = 1;
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_EMPTY).writer();
     private final        String rootConfluenceUrl;
     private final        String confluenceRestApiEndpoint;
 
@@ -254,6 +257,28 @@ class HttpRequestFactory {
         return new HttpGet(this.confluenceRestApiEndpoint + "/content/" + contentId + "/property/" + key + "?expand=value");
     }
 
+    public HttpGet getPropertiesRequest(String contentId, Integer limit, Integer start) {
+        assertMandatoryParameter(isNotBlank(contentId), "contentId");
+        URIBuilder uriBuilder = createUriBuilder(this.confluenceRestApiEndpoint + "/content/" + contentId + "/property");
+        uriBuilder.addParameter("expand", "value,version");
+
+        if (limit != null) {
+            uriBuilder.addParameter("limit", limit.toString());
+        }
+        if (start != null) {
+            uriBuilder.addParameter("start", start.toString());
+        }
+
+        HttpGet getPropertiesRequest;
+        try {
+            getPropertiesRequest = new HttpGet(uriBuilder.build().toString());
+        } catch (URISyntaxException e) {
+            throw new RuntimeException("Invalid URL", e);
+        }
+
+        return getPropertiesRequest;
+    }
+
     public HttpDelete deletePropertyByKeyRequest(String contentId, String key) {
         assertMandatoryParameter(isNotBlank(contentId), "contentId");
         assertMandatoryParameter(isNotBlank(key), "key");
@@ -277,6 +302,26 @@ class HttpRequestFactory {
         return postRequest;
     }
 
+    public HttpPut updatePropertyByKeyRequest(String contentId, String key, String value, int newVersion) {
+        assertMandatoryParameter(isNotBlank(contentId), "contentId");
+        assertMandatoryParameter(isNotBlank(key), "key");
+        assertMandatoryParameter(isNotBlank(value), "value");
+
+        Version version = new Version();
+        version.setNumber(newVersion);
+
+        PropertyPayload propertyPayload = new PropertyPayload();
+        propertyPayload.setKey(key);
+        propertyPayload.setValue(value);
+        propertyPayload.setVersion(version);
+
+        HttpPut putRequest = new HttpPut(this.confluenceRestApiEndpoint + "/content/" + contentId + "/property/" + key);
+        putRequest.setEntity(httpEntityWithJsonPayload(propertyPayload));
+        putRequest.addHeader(APPLICATION_JSON_UTF8_HEADER);
+
+        return putRequest;
+    }
+
     public HttpDelete deleteLabelFromPageRequest(String contentId, String label) {
         assertMandatoryParameter(isNotBlank(contentId), "contentId");
         assertMandatoryParameter(isNotBlank(label), "label");
@@ -302,6 +347,21 @@ class HttpRequestFactory {
         return postRequest;
     }
 
+    public HttpPost addLabelsToPageRequest(String contentId, Collection<String> labels) {
+        assertMandatoryParameter(isNotBlank(contentId), "contentId");
+        assertMandatoryParameter(labels != null && !labels.isEmpty(), "labels");
+
+        List<LabelPayload> labelPayloads = labels.stream()
+            .map(label -> new LabelPayload("global", label))
+            .collect(toList());
+
+        HttpPost postRequest = new HttpPost(this.confluenceRestApiEndpoint + "/content/" + contentId + "/label");
+        postRequest.setEntity(httpEntityWithJsonPayload(labelPayloads));
+        postRequest.addHeader(APPLICATION_JSON_UTF8_HEADER);
+
+        return postRequest;
+    }
+
     HttpGet getLabelsByContentIdRequest(String contentId) {
         assertMandatoryParameter(isNotBlank(contentId), "contentId");
 
@@ -326,20 +386,13 @@ class HttpRequestFactory {
         return postRequest;
     }
 
-    private static BasicHttpEntity httpEntityWithJsonPayload(Object payload) {
-        String jsonPayload = toJsonString(payload);
-        BasicHttpEntity entity = new BasicHttpEntity();
-        entity.setContent(new ByteArrayInputStream(jsonPayload.getBytes(UTF_8)));
-
-        return entity;
+    private static ByteArrayEntity httpEntityWithJsonPayload(Object payload) {
+        return new ByteArrayEntity(toJsonBytes(payload));
     }
 
-    private static String toJsonString(Object objectToConvert) {
+    private static byte[] toJsonBytes(Object objectToConvert) {
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
-
-            return objectMapper.writeValueAsString(objectToConvert);
+            return JSON_WRITER.writeValueAsBytes(objectToConvert);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Error while converting object to JSON", e);
         }
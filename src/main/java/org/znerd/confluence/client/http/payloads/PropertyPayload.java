@@ -20,8 +20,9 @@ import org.znerd.confluence.client.support.RuntimeUse;
 
 public class PropertyPayload {
 
-    private String key;
-    private String value;
+    private String  key;
+    private String  value;
+    private Version version;
 
     @RuntimeUse
     public String getKey() {
@@ -40,4 +41,13 @@ public class PropertyPayload {
     public void setValue(String value) {
         this.value = value;
     }
+
+    @RuntimeUse
+    public Version getVersion() {
+        return version;
+    }
+
+    public void setVersion(Version version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client.jfr;
+
+/**
+ * Emits Java Flight Recorder events for HTTP requests and for the pages and attachments processed while publishing.
+ * The {@code jdk.jfr} classes are only touched when the running JVM provides them, and when no recording has the
+ * events enabled, the returned recordings do nothing, so the cost is a single check per request or page.
+ */
+public final class FlightRecorderEvents {
+
+    private static final boolean FLIGHT_RECORDER_AVAILABLE = isFlightRecorderAvailable();
+
+    private FlightRecorderEvents() {
+        throw new UnsupportedOperationException("Utils class cannot be instantiated");
+    }
+
+    public static HttpRequestRecording beginHttpRequest() {
+        return FLIGHT_RECORDER_AVAILABLE ? JfrEventFactory.beginHttpRequest() : HttpRequestRecording.NONE;
+    }
+
+    public static ProcessingRecording beginPageProcessing(final String spaceKey, final String title) {
+        return FLIGHT_RECORDER_AVAILABLE ? JfrEventFactory.beginPageProcessing(spaceKey, title) : ProcessingRecording.NONE;
+    }
+
+    public static ProcessingRecording beginAttachmentProcessing(final String attachmentFileName) {
+        return FLIGHT_RECORDER_AVAILABLE ? JfrEventFactory.beginAttachmentProcessing(attachmentFileName) : ProcessingRecording.NONE;
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.znerd.confluence.HttpRequest")
+@Label("Confluence HTTP Request")
+@Category({"Confluence Client", "HTTP"})
+@Description("A request sent to the Confluence REST API")
+final class HttpRequestEvent extends Event implements HttpRequestRecording {
+
+    @Label("Method")
+    String method;
+
+    @Label("Endpoint")
+    @Description("Endpoint template, e.g. /content/{id}/property/{key}")
+    String endpoint;
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Request Bytes")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Connection Reused")
+    @Description("Whether a pooled connection was reused; always false for externally supplied HTTP clients")
+    boolean connectionReused;
+
+    @Override
+    public boolean isRecording() {
+        return true;
+    }
+
+    @Override
+    public void complete(final String method, final String endpoint, final int statusCode, final long requestBytes, final long responseBytes, final boolean connectionReused) {
+        end();
+        if (shouldCommit()) {
+            this.method = method;
+            this.endpoint = endpoint;
+            this.statusCode = statusCode;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+            this.connectionReused = connectionReused;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client.jfr;
+
+public interface HttpRequestRecording {
+
+    HttpRequestRecording NONE = new HttpRequestRecording() {
+
+        @Override
+        public boolean isRecording() {
+            return false;
+        }
+
+        @Override
+        public void complete(final String method, final String endpoint, final int statusCode, final long requestBytes, final long responseBytes, final boolean connectionReused) {
+        }
+    };
+
+    /**
+     * Whether {@link #complete} records anything; lets callers skip collecting the event details when it does not.
+     */
+    boolean isRecording();
+
+    /**
+     * Ends and commits the event. Byte counts are the entity content lengths, or -1 when unknown.
+     */
+    void complete(String method, String endpoint, int statusCode, long requestBytes, long responseBytes, boolean connectionReused);
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client.jfr;
+
+final class JfrEventFactory {
+
+    private JfrEventFactory() {
+        throw new UnsupportedOperationException("Utils class cannot be instantiated");
+    }
+
+    static HttpRequestRecording beginHttpRequest() {
+        final HttpRequestEvent event = new HttpRequestEvent();
+        if (!event.isEnabled()) {
+            return HttpRequestRecording.NONE;
+        }
+        event.begin();
+        return event;
+    }
+
+    static ProcessingRecording beginPageProcessing(final String spaceKey, final String title) {
+        final PageProcessingEvent event = new PageProcessingEvent();
+        if (!event.isEnabled()) {
+            return ProcessingRecording.NONE;
+        }
+        event.spaceKey = spaceKey;
+        event.title = title;
+        event.begin();
+        return event;
+    }
+
+    static ProcessingRecording beginAttachmentProcessing(final String attachmentFileName) {
+        final AttachmentProcessingEvent event = new AttachmentProcessingEvent();
+        if (!event.isEnabled()) {
+            return ProcessingRecording.NONE;
+        }
+        event.fileName = attachmentFileName;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.znerd.confluence.PageProcessing")
+@Label("Confluence Page Processing")
+@Category({"Confluence Client", "Publishing"})
+@Description("A page added, updated or found unchanged while publishing")
+final class PageProcessingEvent extends Event implements ProcessingRecording {
+
+    @Label("Space Key")
+    String spaceKey;
+
+    @Label("Title")
+    String title;
+
+    @Label("Content Id")
+    String contentId;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Hash Check")
+    String hashCheck;
+
+    @Override
+    public void complete(final String contentId, final Outcome outcome, final HashCheck hashCheck) {
+        end();
+        if (shouldCommit()) {
+            this.contentId = contentId;
+            this.outcome = outcome.name();
+            this.hashCheck = hashCheck.name();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client.jfr;
+
+public interface ProcessingRecording {
+
+    ProcessingRecording NONE = (contentId, outcome, hashCheck) -> {
+    };
+
+    void complete(String contentId, Outcome outcome, HashCheck hashCheck);
+
+    enum Outcome {
+        ADDED,
+        UPDATED,
+        UNCHANGED
+    }
+
+    enum HashCheck {
+        MATCH,
+        MISMATCH,
+        MISSING,
+        NOT_CHECKED;
+
+        public static HashCheck of(final String existingHash, final String newHash) {
+            if (existingHash == null) {
+                return MISSING;
+            }
+            return existingHash.equals(newHash) ? MATCH : MISMATCH;
+        }
+    }
+}
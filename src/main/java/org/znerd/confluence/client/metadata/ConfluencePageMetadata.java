@@ -17,17 +17,74 @@
 package org.znerd.confluence.client.metadata;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.znerd.confluence.client.utils.IoUtils;
 
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+
 @JsonDeserialize(as = FileConfluencePageMetadata.class)
 public interface ConfluencePageMetadata {
     String getTitle();
 
     String getContent();
 
+    /**
+     * Path of the file the content is read from, or {@code null} if the content does not come from a file.
+     */
+    default String getContentFilePath() {
+        return null;
+    }
+
+    /**
+     * Encoding of the content file, which the pages of a publish result read their content from again.
+     */
+    default Charset getContentEncoding() {
+        return UTF_8;
+    }
+
+    /**
+     * Identity of the page that stays the same when the page is moved or retitled, so the publisher can update the
+     * page on Confluence instead of replacing it, or {@code null} if the page has none.
+     */
+    default String getIdentity() {
+        return null;
+    }
+
+    /**
+     * Global labels the page should carry. Labels that were removed here since the last publish are removed from the
+     * page, labels added on Confluence by other means are kept.
+     */
+    default List<String> getLabels() {
+        return emptyList();
+    }
+
+    default String getContentHash() {
+        return sha256Hex(getContent());
+    }
+
     List<ConfluencePageMetadata> getChildren();
 
     Map<String, String> getAttachments();
+
+    default String getAttachmentHash(String attachmentFileName) {
+        return IoUtils.sha256Hex(Paths.get(getAttachments().get(attachmentFileName)));
+    }
+
+    default long getAttachmentSize(String attachmentFileName) {
+        Path attachmentPath = Paths.get(getAttachments().get(attachmentFileName));
+        try {
+            return Files.size(attachmentPath);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not determine size of attachment [" + attachmentPath + "]", e);
+        }
+    }
 }
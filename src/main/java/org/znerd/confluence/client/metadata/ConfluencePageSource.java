@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.metadata;
+
+/**
+ * The space, ancestor and pages to publish. The pages are walked depth first; whether they are held in memory or only
+ * read while walking them is told by {@link #hasPageTree()}.
+ */
+public interface ConfluencePageSource {
+
+    String getSpaceKey();
+
+    String getAncestorId();
+
+    /**
+     * Tells whether the pages are held as a tree, so the pages passed to a visitor keep their children and can be
+     * walked again. Otherwise each page is only read while walking it.
+     */
+    boolean hasPageTree();
+
+    void walkPages(ConfluencePageVisitor visitor);
+}
@@ -21,11 +21,12 @@ import org.znerd.confluence.client.support.RuntimeUse;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ConfluencePublisherMetadata {
+public class ConfluencePublisherMetadata implements ConfluencePageSource {
     private String                       spaceKey;
     private String                       ancestorId;
     private List<ConfluencePageMetadata> pages = new ArrayList<>();
 
+    @Override
     public String getSpaceKey() {
         return this.spaceKey;
     }
@@ -35,6 +36,7 @@ public class ConfluencePublisherMetadata {
         this.spaceKey = spaceKey;
     }
 
+    @Override
     public String getAncestorId() {
         return this.ancestorId;
     }
@@ -44,6 +46,11 @@ public class ConfluencePublisherMetadata {
         this.ancestorId = ancestorId;
     }
 
+    @Override
+    public boolean hasPageTree() {
+        return true;
+    }
+
     public List<ConfluencePageMetadata> getPages() {
         return this.pages;
     }
@@ -52,4 +59,17 @@ public class ConfluencePublisherMetadata {
     public void setPages(List<ConfluencePageMetadata> pages) {
         this.pages = pages;
     }
+
+    @Override
+    public void walkPages(ConfluencePageVisitor visitor) {
+        walkPages(getPages(), visitor);
+    }
+
+    static void walkPages(List<ConfluencePageMetadata> pages, ConfluencePageVisitor visitor) {
+        pages.forEach((page) -> {
+            visitor.enterPage(page);
+            walkPages(page.getChildren(), visitor);
+            visitor.exitPage(page);
+        });
+    }
 }
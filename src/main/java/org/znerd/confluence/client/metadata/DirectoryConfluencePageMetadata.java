@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.metadata;
+
+import org.znerd.confluence.client.utils.IoUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * Page discovered by {@link DirectoryConfluencePublisherMetadata}, with the size and hash of its content and
+ * attachments computed during discovery. They are computed again for files that changed since, and kept until the
+ * files change again.
+ */
+public class DirectoryConfluencePageMetadata implements ConfluencePageMetadata {
+
+    private final String                       title;
+    private final String                       contentFilePath;
+    private volatile FileState                 contentState;
+    private final List<ConfluencePageMetadata> children;
+    private final Map<String, FileState>       attachmentStates;
+    private final Map<String, String>          attachments;
+
+    DirectoryConfluencePageMetadata(String title, String contentFilePath, FileState contentState,
+                                    List<ConfluencePageMetadata> children, Map<String, FileState> attachmentStates,
+                                    Map<String, String> attachments) {
+        this.title = title;
+        this.contentFilePath = contentFilePath;
+        this.contentState = contentState;
+        this.children = children;
+        this.attachmentStates = new ConcurrentHashMap<>(attachmentStates);
+        this.attachments = unmodifiableMap(attachments);
+    }
+
+    @Override
+    public String getTitle() {
+        return this.title;
+    }
+
+    @Override
+    public String getContentFilePath() {
+        return this.contentFilePath;
+    }
+
+    public long getContentSize() {
+        return currentContentState().size;
+    }
+
+    @Override
+    public String getContent() {
+        return PageContentCache.shared().get(Paths.get(this.contentFilePath), UTF_8).getContent();
+    }
+
+    @Override
+    public String getContentHash() {
+        return currentContentState().hash;
+    }
+
+    @Override
+    public List<ConfluencePageMetadata> getChildren() {
+        return this.children;
+    }
+
+    @Override
+    public Map<String, String> getAttachments() {
+        return this.attachments;
+    }
+
+    @Override
+    public String getAttachmentHash(String attachmentFileName) {
+        return currentAttachmentState(attachmentFileName).hash;
+    }
+
+    @Override
+    public long getAttachmentSize(String attachmentFileName) {
+        return currentAttachmentState(attachmentFileName).size;
+    }
+
+    private FileState currentContentState() {
+        FileState contentState = this.contentState.current(Paths.get(this.contentFilePath));
+        this.contentState = contentState;
+
+        return contentState;
+    }
+
+    private FileState currentAttachmentState(String attachmentFileName) {
+        Path attachmentFile = Paths.get(this.attachments.get(attachmentFileName));
+        return this.attachmentStates.compute(attachmentFileName, (name, attachmentState) -> attachmentState.current(attachmentFile));
+    }
+
+    static final class FileState {
+
+        private final long     size;
+        private final FileTime lastModifiedTime;
+        private final String   hash;
+
+        private FileState(long size, FileTime lastModifiedTime, String hash) {
+            this.size = size;
+            this.lastModifiedTime = lastModifiedTime;
+            this.hash = hash;
+        }
+
+        static FileState of(Path file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileState(attributes.size(), attributes.lastModifiedTime(), IoUtils.sha256Hex(file));
+            } catch (IOException e) {
+                throw new RuntimeException("Could not read attributes of [" + file + "]", e);
+            }
+        }
+
+        private FileState current(Path file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.size() == this.size && attributes.lastModifiedTime().equals(this.lastModifiedTime)) {
+                    return this;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Could not read attributes of [" + file + "]", e);
+            }
+
+            return of(file);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.metadata;
+
+import org.znerd.confluence.client.metadata.DirectoryConfluencePageMetadata.FileState;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.sort;
+import static org.znerd.confluence.client.utils.AssertUtils.assertMandatoryParameter;
+import static org.znerd.confluence.client.utils.AssertUtils.assertNotNull;
+
+/**
+ * Metadata discovered from a directory layout instead of a metadata file. Every {@code <title>.xhtml} file is a page
+ * titled after the file name. The directory {@code <title>} next to it, if any, holds the page's children, again as
+ * {@code .xhtml} files, and its attachments, which are all other files in that directory. Hidden files are ignored and
+ * siblings are ordered by file name.
+ * <p>
+ * The tree is walked on a fork-join pool, one task per directory, page and attachment, and the sizes and hashes of all
+ * content and attachment files are computed during the walk. Without an explicit pool a dedicated one with
+ * {@link #DEFAULT_PARALLELISM} threads is used, as the walk mostly waits on the file system.
+ */
+public class DirectoryConfluencePublisherMetadata extends ConfluencePublisherMetadata {
+
+    public static final int DEFAULT_PARALLELISM = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    static final String CONTENT_FILE_EXTENSION = ".xhtml";
+
+    public DirectoryConfluencePublisherMetadata(Path rootDirectory, String spaceKey, String ancestorId) {
+        this(rootDirectory, spaceKey, ancestorId, DEFAULT_PARALLELISM);
+    }
+
+    public DirectoryConfluencePublisherMetadata(Path rootDirectory, String spaceKey, String ancestorId, int parallelism) {
+        assertMandatoryParameter(parallelism > 0, "parallelism");
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try {
+            initialize(rootDirectory, spaceKey, ancestorId, forkJoinPool);
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    public DirectoryConfluencePublisherMetadata(Path rootDirectory, String spaceKey, String ancestorId, ForkJoinPool forkJoinPool) {
+        initialize(rootDirectory, spaceKey, ancestorId, assertNotNull(forkJoinPool, "forkJoinPool"));
+    }
+
+    private void initialize(Path rootDirectory, String spaceKey, String ancestorId, ForkJoinPool forkJoinPool) {
+        assertNotNull(rootDirectory, "rootDirectory");
+        assertMandatoryParameter(Files.isDirectory(rootDirectory), "rootDirectory");
+
+        setSpaceKey(spaceKey);
+        setAncestorId(ancestorId);
+        setPages(forkJoinPool.invoke(new DirectoryTask(rootDirectory.toAbsolutePath())));
+    }
+
+    private static List<Path> visibleEntries(Path directory) {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory, (entry) -> !entry.getFileName().toString().startsWith("."))) {
+            directoryStream.forEach(entries::add);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not list directory [" + directory + "]", e);
+        }
+        sort(entries);
+
+        return entries;
+    }
+
+    private static boolean isContentFile(Path path) {
+        return path.getFileName().toString().endsWith(CONTENT_FILE_EXTENSION) && Files.isRegularFile(path);
+    }
+
+    private static final class DirectoryTask extends RecursiveTask<List<ConfluencePageMetadata>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+
+        DirectoryTask(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected List<ConfluencePageMetadata> compute() {
+            List<PageTask> pageTasks = new ArrayList<>();
+            visibleEntries(this.directory).stream()
+                    .filter(DirectoryConfluencePublisherMetadata::isContentFile)
+                    .forEach((contentFile) -> pageTasks.add(new PageTask(contentFile)));
+            invokeAll(pageTasks);
+
+            List<ConfluencePageMetadata> pages = new ArrayList<>(pageTasks.size());
+            pageTasks.forEach((pageTask) -> pages.add(pageTask.join()));
+
+            return pages;
+        }
+    }
+
+    private static final class PageTask extends RecursiveTask<ConfluencePageMetadata> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path contentFile;
+
+        PageTask(Path contentFile) {
+            this.contentFile = contentFile;
+        }
+
+        @Override
+        protected ConfluencePageMetadata compute() {
+            String fileName = this.contentFile.getFileName().toString();
+            String title = fileName.substring(0, fileName.length() - CONTENT_FILE_EXTENSION.length());
+            Path pageDirectory = this.contentFile.resolveSibling(title);
+
+            DirectoryTask childrenTask = null;
+            Map<String, AttachmentTask> attachmentTasks = new LinkedHashMap<>();
+            if (Files.isDirectory(pageDirectory)) {
+                childrenTask = new DirectoryTask(pageDirectory);
+                childrenTask.fork();
+                visibleEntries(pageDirectory).stream()
+                        .filter((entry) -> Files.isRegularFile(entry) && !isContentFile(entry))
+                        .forEach((attachmentFile) -> attachmentTasks.put(attachmentFile.getFileName().toString(), new AttachmentTask(attachmentFile)));
+                invokeAll(attachmentTasks.values());
+            }
+
+            FileState contentState = FileState.of(this.contentFile);
+
+            Map<String, FileState> attachmentStates = new LinkedHashMap<>();
+            Map<String, String> attachments = new LinkedHashMap<>();
+            attachmentTasks.forEach((attachmentFileName, attachmentTask) -> {
+                attachmentStates.put(attachmentFileName, attachmentTask.join());
+                attachments.put(attachmentFileName, attachmentTask.attachmentFile.toString());
+            });
+            List<ConfluencePageMetadata> children = childrenTask != null ? childrenTask.join() : emptyList();
+
+            return new DirectoryConfluencePageMetadata(title, this.contentFile.toString(), contentState, children, attachmentStates, attachments);
+        }
+    }
+
+    private static final class AttachmentTask extends RecursiveTask<FileState> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path attachmentFile;
+
+        AttachmentTask(Path attachmentFile) {
+            this.attachmentFile = attachmentFile;
+        }
+
+        @Override
+        protected FileState compute() {
+            return FileState.of(this.attachmentFile);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package org.znerd.confluence.client.metadata;
 
 import org.znerd.confluence.client.support.RuntimeUse;
-import org.znerd.confluence.client.utils.IoUtils;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -14,8 +14,10 @@ import static java.util.Collections.emptyList;
 public final class FileConfluencePageMetadata implements ConfluencePageMetadata {
     private String                       title;
     private String                       contentFilePath;
+    private String                       identity;
+    private List<String>                 labels      = new ArrayList<>();
     private List<ConfluencePageMetadata> children    = new ArrayList<>();
-    private Map<String, String> attachments = new HashMap<>();
+    private Map<String, String>          attachments = new HashMap<>();
 
     @Override
     public String getTitle() {
@@ -27,13 +29,19 @@ public final class FileConfluencePageMetadata implements ConfluencePageMetadata
         this.title = title;
     }
 
+    @Override
     public String getContentFilePath() {
         return this.contentFilePath;
     }
 
     @Override
     public String getContent() {
-        return IoUtils.fileContent(getContentFilePath(), UTF_8);
+        return pageContent().getContent();
+    }
+
+    @Override
+    public String getContentHash() {
+        return pageContent().getHash();
     }
 
     @RuntimeUse
@@ -41,6 +49,34 @@ public final class FileConfluencePageMetadata implements ConfluencePageMetadata
         this.contentFilePath = contentFilePath;
     }
 
+    /**
+     * The identity set in the metadata, or else the content file path, which stays the same when the page is moved
+     * to another parent or retitled.
+     */
+    @Override
+    public String getIdentity() {
+        return this.identity != null ? this.identity : this.contentFilePath;
+    }
+
+    @RuntimeUse
+    public void setIdentity(String identity) {
+        this.identity = identity;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        if (this.labels == null) {
+            return emptyList();
+        } else {
+            return this.labels;
+        }
+    }
+
+    @RuntimeUse
+    public void setLabels(List<String> labels) {
+        this.labels = labels;
+    }
+
     @Override
     public List<ConfluencePageMetadata> getChildren() {
         if (this.children == null) {
@@ -64,4 +100,8 @@ public final class FileConfluencePageMetadata implements ConfluencePageMetadata
     public void setAttachments(Map<String, String> attachments) {
         this.attachments = attachments;
     }
+
+    private PageContentCache.PageContent pageContent() {
+        return PageContentCache.shared().get(Paths.get(getContentFilePath()), UTF_8);
+    }
 }
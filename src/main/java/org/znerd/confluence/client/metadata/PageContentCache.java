@@ -0,0 +1,258 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.metadata;
+
+import org.znerd.confluence.client.utils.IoUtils;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+import static org.znerd.confluence.client.utils.AssertUtils.assertMandatoryParameter;
+
+/**
+ * Least-recently-used cache of page content files, bounded by the number of bytes it holds. An entry keeps the raw
+ * file bytes, the decoded content and its hash, and is reloaded when the size or modification time of the file
+ * changes, or, on file systems that provide them, its status change time or file key, so a file rewritten with the same
+ * size within the resolution of the modification time, or replaced by another file, is not served stale. Files larger
+ * than the budget are read but not cached.
+ * <p>
+ * The budget of the {@link #shared() shared} cache defaults to 64 MiB and can be set with the system property
+ * {@value #MAX_BYTES_PROPERTY} or {@link #setMaxBytes(long)}.
+ */
+public class PageContentCache implements PageContentCacheMXBean {
+
+    public static final String MAX_BYTES_PROPERTY = "confluence.contentCache.maxBytes";
+
+    private static final long             DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final PageContentCache SHARED            = new PageContentCache(Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES));
+    private static final AtomicInteger    MBEAN_SEQUENCE    = new AtomicInteger();
+
+    private final Map<Path, PageContent> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private       long                   maxBytes;
+    private       long                   cachedBytes;
+    private       long                   hits;
+    private       long                   misses;
+
+    public PageContentCache(long maxBytes) {
+        assertMandatoryParameter(maxBytes >= 0, "maxBytes");
+        this.maxBytes = maxBytes;
+    }
+
+    public static PageContentCache shared() {
+        return SHARED;
+    }
+
+    public PageContent get(Path file, Charset encoding) {
+        try {
+            FileStamp stamp = FileStamp.of(file);
+
+            synchronized (this) {
+                PageContent cached = this.entries.get(file);
+                if (cached != null && cached.isCurrent(stamp, encoding)) {
+                    this.hits++;
+                    return cached;
+                }
+                this.misses++;
+            }
+
+            PageContent loaded = new PageContent(IoUtils.fileBytes(file), encoding, stamp);
+            put(file, loaded);
+
+            return loaded;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read file [" + file + "] using encoding [" + encoding + "].", e);
+        }
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        assertMandatoryParameter(maxBytes >= 0, "maxBytes");
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    @Override
+    public synchronized long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    @Override
+    public synchronized long getCachedBytes() {
+        return this.cachedBytes;
+    }
+
+    @Override
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    @Override
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    @Override
+    public synchronized double getHitRatio() {
+        long lookups = this.hits + this.misses;
+
+        return lookups == 0 ? 0 : (double) this.hits / lookups;
+    }
+
+    /**
+     * Registers the statistics of this cache with the platform MBean server. Unregister the returned name when the cache
+     * is no longer used.
+     */
+    public ObjectName registerMBean() {
+        try {
+            ObjectName objectName = new ObjectName("org.znerd.confluence.client:type=PageContentCache,id=" + MBEAN_SEQUENCE.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+
+            return objectName;
+        } catch (JMException e) {
+            throw new RuntimeException("Could not register MBean for page content cache", e);
+        }
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+        this.cachedBytes = 0;
+    }
+
+    private synchronized void put(Path file, PageContent content) {
+        PageContent previous = this.entries.remove(file);
+        if (previous != null) {
+            this.cachedBytes -= previous.weight();
+        }
+        if (content.weight() <= this.maxBytes) {
+            this.entries.put(file, content);
+            this.cachedBytes += content.weight();
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<PageContent> leastRecentlyUsed = this.entries.values().iterator();
+        while (this.cachedBytes > this.maxBytes && leastRecentlyUsed.hasNext()) {
+            this.cachedBytes -= leastRecentlyUsed.next().weight();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    public static final class PageContent {
+
+        private final byte[]    bytes;
+        private final Charset   encoding;
+        private final FileStamp stamp;
+        private final String    content;
+        private final String    hash;
+
+        private PageContent(byte[] bytes, Charset encoding, FileStamp stamp) {
+            this.bytes = bytes;
+            this.encoding = encoding;
+            this.stamp = stamp;
+            this.content = new String(bytes, encoding);
+            this.hash = encoding.equals(UTF_8) ? sha256Hex(bytes) : sha256Hex(this.content);
+        }
+
+        public byte[] getBytes() {
+            return this.bytes.clone();
+        }
+
+        public int getSize() {
+            return this.bytes.length;
+        }
+
+        public String getContent() {
+            return this.content;
+        }
+
+        public String getHash() {
+            return this.hash;
+        }
+
+        private boolean isCurrent(FileStamp stamp, Charset encoding) {
+            return this.bytes.length == stamp.size && this.stamp.equals(stamp) && this.encoding.equals(encoding);
+        }
+
+        private long weight() {
+            // raw bytes plus the UTF-16 chars of the decoded content
+            return this.bytes.length + 2L * this.content.length();
+        }
+    }
+
+    private static final class FileStamp {
+
+        private final long     size;
+        private final FileTime lastModifiedTime;
+        private final FileTime changeTime;
+        private final Object   fileKey;
+
+        private FileStamp(long size, FileTime lastModifiedTime, FileTime changeTime, Object fileKey) {
+            this.size = size;
+            this.lastModifiedTime = lastModifiedTime;
+            this.changeTime = changeTime;
+            this.fileKey = fileKey;
+        }
+
+        private static FileStamp of(Path file) throws IOException {
+            if (file.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+                // a single stat call, like reading the basic attributes
+                Map<String, Object> attributes = Files.readAttributes(file, "unix:size,lastModifiedTime,ctime,fileKey");
+
+                return new FileStamp((Long) attributes.get("size"), (FileTime) attributes.get("lastModifiedTime"), (FileTime) attributes.get("ctime"),
+                        attributes.get("fileKey"));
+            }
+
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new FileStamp(attributes.size(), attributes.lastModifiedTime(), null, attributes.fileKey());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof FileStamp)) {
+                return false;
+            }
+
+            FileStamp that = (FileStamp) other;
+            return this.size == that.size
+                    && this.lastModifiedTime.equals(that.lastModifiedTime)
+                    && Objects.equals(this.changeTime, that.changeTime)
+                    && Objects.equals(this.fileKey, that.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.size, this.lastModifiedTime, this.changeTime, this.fileKey);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client.metadata;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.emptyList;
+import static org.znerd.confluence.client.utils.AssertUtils.assertNotNull;
+
+/**
+ * Metadata that is read from a JSON file while publishing, instead of being bound to a page tree up front. Only the
+ * pages on the path from the root to the page being published are held in memory, so heap use does not grow with the
+ * size of the tree. It has no {@link #hasPageTree() page tree}: the pages are only available through
+ * {@link #walkPages}.
+ * <p>
+ * Pages are handed to the visitor as soon as their {@code title} and {@code contentFilePath} are read, which is before
+ * their {@code children} when the fields appear in that order. Children that precede those fields are read into memory
+ * first. Relative content and attachment paths are resolved against the given content root.
+ */
+public class StreamingConfluencePublisherMetadata implements ConfluencePageSource {
+
+    private static final ObjectMapper                               OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<ConfluencePageMetadata>> PAGES_TYPE    = new TypeReference<List<ConfluencePageMetadata>>() {
+    };
+    private static final TypeReference<List<String>>                 LABELS_TYPE   = new TypeReference<List<String>>() {
+    };
+
+    private final Path   metadataFile;
+    private final Path   contentRoot;
+    private       String spaceKey;
+    private       String ancestorId;
+
+    public StreamingConfluencePublisherMetadata(Path metadataFile, Path contentRoot) {
+        this.metadataFile = assertNotNull(metadataFile, "metadataFile");
+        this.contentRoot = assertNotNull(contentRoot, "contentRoot");
+        readSpaceKeyAndAncestorId();
+    }
+
+    @Override
+    public String getSpaceKey() {
+        return this.spaceKey;
+    }
+
+    @Override
+    public String getAncestorId() {
+        return this.ancestorId;
+    }
+
+    @Override
+    public boolean hasPageTree() {
+        return false;
+    }
+
+    @Override
+    public void walkPages(ConfluencePageVisitor visitor) {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(this.metadataFile.toFile())) {
+            expectStartObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (fieldName.equals("pages")) {
+                    readPages(parser, visitor);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read metadata [" + this.metadataFile + "]", e);
+        }
+    }
+
+    private void readSpaceKeyAndAncestorId() {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(this.metadataFile.toFile())) {
+            expectStartObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME && (this.spaceKey == null || this.ancestorId == null)) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (fieldName.equals("spaceKey")) {
+                    this.spaceKey = parser.getValueAsString();
+                } else if (fieldName.equals("ancestorId")) {
+                    this.ancestorId = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read metadata [" + this.metadataFile + "]", e);
+        }
+    }
+
+    private void readPages(JsonParser parser, ConfluencePageVisitor visitor) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+
+        expectToken(parser, JsonToken.START_ARRAY);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            readPage(parser, visitor);
+        }
+    }
+
+    private void readPage(JsonParser parser, ConfluencePageVisitor visitor) throws IOException {
+        FileConfluencePageMetadata page = new FileConfluencePageMetadata();
+        List<ConfluencePageMetadata> bufferedChildren = emptyList();
+        boolean entered = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "title":
+                    page.setTitle(parser.getValueAsString());
+                    break;
+                case "contentFilePath":
+                    page.setIdentity(page.getIdentity() != null ? page.getIdentity() : parser.getValueAsString());
+                    page.setContentFilePath(resolve(parser.getValueAsString()));
+                    break;
+                case "identity":
+                    page.setIdentity(parser.getValueAsString());
+                    break;
+                case "labels":
+                    page.setLabels(parser.currentToken() == JsonToken.VALUE_NULL ? emptyList() : OBJECT_MAPPER.readValue(parser, LABELS_TYPE));
+                    break;
+                case "attachments":
+                    page.setAttachments(readAttachments(parser));
+                    break;
+                case "children":
+                    if (!entered && page.getTitle() != null && page.getContentFilePath() != null) {
+                        visitor.enterPage(page);
+                        entered = true;
+                        readPages(parser, visitor);
+                    } else {
+                        bufferedChildren = parser.currentToken() == JsonToken.VALUE_NULL ? emptyList() : OBJECT_MAPPER.readValue(parser, PAGES_TYPE);
+                        resolvePaths(bufferedChildren);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (!entered) {
+            visitor.enterPage(page);
+            ConfluencePublisherMetadata.walkPages(bufferedChildren, visitor);
+        }
+        visitor.exitPage(page);
+    }
+
+    private Map<String, String> readAttachments(JsonParser parser) throws IOException {
+        Map<String, String> attachments = new LinkedHashMap<>();
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return attachments;
+        }
+
+        expectToken(parser, JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String attachmentFileName = parser.getCurrentName();
+            parser.nextToken();
+            attachments.put(attachmentFileName, resolve(parser.getValueAsString()));
+        }
+
+        return attachments;
+    }
+
+    private void resolvePaths(List<ConfluencePageMetadata> pages) {
+        pages.forEach((page) -> {
+            FileConfluencePageMetadata filePage = (FileConfluencePageMetadata) page;
+            // keeps the content file path relative to the content root as identity, unless one is set
+            filePage.setIdentity(filePage.getIdentity());
+            filePage.setContentFilePath(resolve(filePage.getContentFilePath()));
+            Map<String, String> attachments = new LinkedHashMap<>();
+            if (filePage.getAttachments() != null) {
+                filePage.getAttachments().forEach((attachmentFileName, attachmentPath) -> attachments.put(attachmentFileName, resolve(attachmentPath)));
+            }
+            filePage.setAttachments(attachments);
+
+            resolvePaths(filePage.getChildren());
+        });
+    }
+
+    private String resolve(String path) {
+        return path != null ? this.contentRoot.resolve(path).toString() : null;
+    }
+
+    private void expectStartObject(JsonParser parser) throws IOException {
+        parser.nextToken();
+        expectToken(parser, JsonToken.START_OBJECT);
+    }
+
+    private void expectToken(JsonParser parser, JsonToken expectedToken) throws IOException {
+        if (parser.currentToken() != expectedToken) {
+            throw new IOException("Expected " + expectedToken + " but found " + parser.currentToken() + " at " + parser.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.utils;
+
+public final class EndpointUtils {
+
+    private static final String REST_API_CONTEXT = "/rest/api";
+
+    private EndpointUtils() {
+        throw new UnsupportedOperationException("Utils class cannot be instantiated");
+    }
+
+    /**
+     * Reduces a REST API path to its endpoint template, e.g. {@code /confluence/rest/api/content/1234/property/content-hash}
+     * becomes {@code /content/{id}/property/{key}}.
+     */
+    public static String endpointTemplate(final String path) {
+        final int restApiContextIndex = path.indexOf(REST_API_CONTEXT);
+        final String relativePath = restApiContextIndex >= 0 ? path.substring(restApiContextIndex + REST_API_CONTEXT.length()) : path;
+        final String[] segments = relativePath.split("/");
+        final StringBuilder template = new StringBuilder();
+        for (int i = 1; i < segments.length; i++) {
+            final String previous = segments[i - 1];
+            final boolean isVariable = segments[i].chars().allMatch(Character::isDigit)
+                    || previous.equals("property")
+                    || previous.equals("label");
+            template.append('/').append(isVariable ? variableName(previous) : segments[i]);
+        }
+        return template.toString();
+    }
+
+    private static String variableName(final String previousSegment) {
+        switch (previousSegment) {
+            case "property":
+                return "{key}";
+            case "label":
+                return "{label}";
+            default:
+                return "{id}";
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.znerd.confluence.client.utils.AssertUtils.assertNotBlank;
+import static org.znerd.confluence.client.utils.AssertUtils.assertNotNull;
+
+/**
+ * Runs the {@code git} command line client of the local installation.
+ */
+public final class GitUtils {
+
+    private GitUtils() {
+        throw new UnsupportedOperationException("Utils class cannot be instantiated");
+    }
+
+    /**
+     * Returns the absolute paths of the files that were added, modified, renamed or deleted between two revisions of
+     * the git repository containing the given directory. Without a {@code toRevision}, the working tree is compared
+     * with {@code fromRevision}.
+     */
+    public static Set<Path> changedFiles(final Path repositoryDirectory, final String fromRevision, final String toRevision) {
+        assertNotNull(repositoryDirectory, "repositoryDirectory");
+        assertNotBlank(fromRevision, "fromRevision");
+
+        final Path topLevelDirectory = Paths.get(git(repositoryDirectory, "rev-parse", "--show-toplevel").trim());
+        final List<String> diffArguments = new ArrayList<>(asList("diff", "--name-only", "--no-renames", "-z", fromRevision));
+        if (toRevision != null) {
+            diffArguments.add(toRevision);
+        }
+        diffArguments.add("--");
+
+        final Set<Path> changedFiles = new LinkedHashSet<>();
+        for (final String changedFile : git(repositoryDirectory, diffArguments.toArray(new String[0])).split("\0")) {
+            if (!changedFile.isEmpty()) {
+                changedFiles.add(topLevelDirectory.resolve(changedFile).toAbsolutePath().normalize());
+            }
+        }
+
+        return changedFiles;
+    }
+
+    private static String git(final Path repositoryDirectory, final String... arguments) {
+        final List<String> command = new ArrayList<>(asList("git", "-C", repositoryDirectory.toString()));
+        command.addAll(asList(arguments));
+
+        try {
+            final Process process = new ProcessBuilder(command).start();
+            process.getOutputStream().close();
+            final String output = IoUtils.inputStreamAsString(process.getInputStream(), UTF_8);
+            final String error = IoUtils.inputStreamAsString(process.getErrorStream(), UTF_8);
+            if (process.waitFor() != 0) {
+                throw new RuntimeException("Could not run " + String.join(" ", command) + ": " + error.trim());
+            }
+
+            return output;
+        } catch (final IOException e) {
+            throw new RuntimeException("Could not run " + String.join(" ", command), e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running " + String.join(" ", command), e);
+        }
+    }
+}
@@ -16,27 +16,94 @@
 
 package org.znerd.confluence.client.utils;
 
-import java.io.*;
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.util.stream.Collectors;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.apache.commons.codec.digest.DigestUtils.getSha256Digest;
 
+/**
+ * Reads files in one pass through NIO channels, without splitting them into lines, so content and hashes reflect the
+ * bytes on disk. Small files are read through a per-thread pooled buffer, files from {@value #MAPPED_THRESHOLD} bytes
+ * up are memory-mapped.
+ */
 public final class IoUtils {
 
+    static final int MAPPED_THRESHOLD = 4 * 1024 * 1024;
+
+    private static final int                   BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> BUFFERS    = ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
     private IoUtils() {
         throw new UnsupportedOperationException("Utils class cannot be instantiated");
     }
 
     public static String fileContent(final String filePath, final Charset encoding) {
-        try (FileInputStream fileInputStream = new FileInputStream(new File(filePath))) {
-            return inputStreamAsString(fileInputStream, encoding);
+        return fileContent(Paths.get(filePath), encoding);
+    }
+
+    public static String fileContent(final Path filePath, final Charset encoding) {
+        try (FileChannel channel = FileChannel.open(filePath, READ)) {
+            final long size = channel.size();
+            if (size >= MAPPED_THRESHOLD) {
+                return encoding.decode(channel.map(READ_ONLY, 0, size)).toString();
+            }
+
+            return new String(readFully(channel, size), encoding);
         } catch (final IOException e) {
             throw new RuntimeException("Could not read file [" + filePath + "] using encoding [" + encoding + "].", e);
         }
     }
 
+    public static byte[] fileBytes(final Path filePath) {
+        try (FileChannel channel = FileChannel.open(filePath, READ)) {
+            return readFully(channel, channel.size());
+        } catch (final IOException e) {
+            throw new RuntimeException("Could not read file [" + filePath + "].", e);
+        }
+    }
+
+    public static String sha256Hex(final Path filePath) {
+        final MessageDigest digest = getSha256Digest();
+        try (FileChannel channel = FileChannel.open(filePath, READ)) {
+            final long size = channel.size();
+            if (size >= MAPPED_THRESHOLD) {
+                digest.update(channel.map(READ_ONLY, 0, size));
+            } else {
+                final ByteBuffer buffer = pooledBuffer();
+                while (channel.read(buffer) >= 0) {
+                    digest.update(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException("Could not compute hash of file [" + filePath + "].", e);
+        }
+
+        return Hex.encodeHexString(digest.digest());
+    }
+
     public static String inputStreamAsString(final InputStream is, final Charset encoding) {
-        try (BufferedReader buffer = new BufferedReader(new InputStreamReader(is, encoding))) {
-            return buffer.lines().collect(Collectors.joining("\n"));
+        try (InputStream inputStream = is) {
+            final ByteBuffer buffer = pooledBuffer();
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int read;
+            while ((read = inputStream.read(buffer.array())) >= 0) {
+                bytes.write(buffer.array(), 0, read);
+            }
+
+            return new String(bytes.toByteArray(), encoding);
         } catch (final IOException e) {
             throw new RuntimeException("Could not convert InputStream to String ", e);
         }
@@ -48,4 +115,28 @@ public final class IoUtils {
         } catch (final IOException ignored) {
         }
     }
+
+    private static byte[] readFully(final FileChannel channel, final long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("File is too large to be read into memory (" + size + " bytes)");
+        }
+
+        final byte[] bytes = new byte[(int) size];
+        final ByteBuffer target = ByteBuffer.wrap(bytes);
+        while (target.hasRemaining() && channel.read(target) >= 0) {
+            // keep reading until the file is consumed
+        }
+        if (target.hasRemaining()) {
+            throw new IOException("File was truncated while reading (" + target.position() + " of " + size + " bytes)");
+        }
+
+        return bytes;
+    }
+
+    private static ByteBuffer pooledBuffer() {
+        final ByteBuffer buffer = BUFFERS.get();
+        buffer.clear();
+
+        return buffer;
+    }
 }
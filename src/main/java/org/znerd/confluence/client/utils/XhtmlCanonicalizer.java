@@ -0,0 +1,517 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.utils;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.codec.digest.DigestUtils.getSha256Digest;
+
+/**
+ * Canonical form of Confluence storage format (XHTML) for hashing, so that formatting differences that do not change
+ * the rendered page do not change the hash either. In a single pass over the content it
+ * <ul>
+ * <li>collapses runs of whitespace in text to one space and drops whitespace next to block-level tags, including
+ * block-level macro, layout and task list tags, except inside {@code <pre>} elements and CDATA sections; whitespace
+ * next to inline Confluence tags such as {@code <ac:link>}, {@code <ac:emoticon>} or {@code <ri:page>} is kept,</li>
+ * <li>sorts attributes by name, quotes their values with double quotes and writes tags without redundant
+ * whitespace,</li>
+ * <li>decodes numeric and common named character references and escapes only {@code <}, {@code &}, {@code >} and, in
+ * attribute values, {@code "}.</li>
+ * </ul>
+ * The canonical form is only hashed, never published. Hashing streams it into the digest without building a string.
+ */
+public final class XhtmlCanonicalizer {
+
+    private static final Set<String> BLOCK_TAGS = new HashSet<>(Arrays.asList(
+            "address", "article", "aside", "blockquote", "body", "br", "caption", "col", "colgroup", "dd", "div", "dl",
+            "dt", "figcaption", "figure", "footer", "h1", "h2", "h3", "h4", "h5", "h6", "head", "header", "hr", "html",
+            "li", "nav", "ol", "p", "pre", "section", "table", "tbody", "td", "tfoot", "th", "thead", "tr", "ul",
+            "ac:layout", "ac:layout-cell", "ac:layout-section", "ac:macro", "ac:parameter", "ac:plain-text-body",
+            "ac:rich-text-body", "ac:structured-macro", "ac:task", "ac:task-body", "ac:task-id", "ac:task-list",
+            "ac:task-status"));
+
+    private static final Map<String, Integer> NAMED_ENTITIES = new HashMap<>();
+
+    static {
+        NAMED_ENTITIES.put("lt", (int) '<');
+        NAMED_ENTITIES.put("gt", (int) '>');
+        NAMED_ENTITIES.put("amp", (int) '&');
+        NAMED_ENTITIES.put("quot", (int) '"');
+        NAMED_ENTITIES.put("apos", (int) '\'');
+        NAMED_ENTITIES.put("nbsp", 0xA0);
+        NAMED_ENTITIES.put("copy", 0xA9);
+        NAMED_ENTITIES.put("reg", 0xAE);
+        NAMED_ENTITIES.put("ndash", 0x2013);
+        NAMED_ENTITIES.put("mdash", 0x2014);
+        NAMED_ENTITIES.put("lsquo", 0x2018);
+        NAMED_ENTITIES.put("rsquo", 0x2019);
+        NAMED_ENTITIES.put("ldquo", 0x201C);
+        NAMED_ENTITIES.put("rdquo", 0x201D);
+        NAMED_ENTITIES.put("hellip", 0x2026);
+        NAMED_ENTITIES.put("trade", 0x2122);
+    }
+
+    private XhtmlCanonicalizer() {
+        throw new UnsupportedOperationException("Utils class cannot be instantiated");
+    }
+
+    public static String canonicalize(final CharSequence xhtml) {
+        final StringBuilder canonicalXhtml = new StringBuilder(xhtml.length());
+        new Canonicalization(xhtml, canonicalXhtml::append).run();
+
+        return canonicalXhtml.toString();
+    }
+
+    public static String canonicalSha256Hex(final CharSequence xhtml) {
+        final DigestOutput digestOutput = new DigestOutput();
+        new Canonicalization(xhtml, digestOutput).run();
+
+        return Hex.encodeHexString(digestOutput.digest());
+    }
+
+    private interface Output {
+        void append(char c);
+    }
+
+    private static final class Canonicalization {
+
+        private final CharSequence in;
+        private final Output       out;
+        private final int          length;
+        private       int          position;
+        private       boolean      pendingSpace;
+        private       boolean      afterBlockTag = true;
+        private       int          preDepth;
+
+        // attribute boundaries of the current start tag, reused across tags
+        private int[] attributes = new int[4 * 8];
+        private int   attributeCount;
+
+        Canonicalization(final CharSequence in, final Output out) {
+            this.in = in;
+            this.out = out;
+            this.length = in.length();
+        }
+
+        void run() {
+            while (this.position < this.length) {
+                final char c = this.in.charAt(this.position);
+                if (c == '<') {
+                    markup();
+                } else if (this.preDepth > 0) {
+                    preformattedText(c);
+                } else if (isWhitespace(c)) {
+                    this.pendingSpace = true;
+                    this.position++;
+                } else {
+                    if (this.pendingSpace && !this.afterBlockTag) {
+                        this.out.append(' ');
+                    }
+                    this.pendingSpace = false;
+                    this.afterBlockTag = false;
+                    if (c == '&') {
+                        reference(false);
+                    } else {
+                        escaped(c, false);
+                        this.position++;
+                    }
+                }
+            }
+        }
+
+        private void preformattedText(final char c) {
+            if (c == '&') {
+                reference(false);
+            } else if (c == '\r') {
+                this.out.append('\n');
+                this.position += startsWith("\r\n", this.position) ? 2 : 1;
+            } else {
+                escaped(c, false);
+                this.position++;
+            }
+        }
+
+        private void markup() {
+            if (startsWith("<![CDATA[", this.position)) {
+                textBeforeMarkup();
+                verbatimUntil("]]>");
+            } else if (startsWith("<!--", this.position)) {
+                textBeforeMarkup();
+                verbatimUntil("-->");
+            } else if (startsWith("<!", this.position) || startsWith("<?", this.position)) {
+                textBeforeMarkup();
+                verbatimUntil(">");
+            } else {
+                tag();
+            }
+        }
+
+        private void textBeforeMarkup() {
+            if (this.pendingSpace && !this.afterBlockTag) {
+                this.out.append(' ');
+            }
+            this.pendingSpace = false;
+            this.afterBlockTag = false;
+        }
+
+        private void verbatimUntil(final String terminator) {
+            final int end = indexOf(terminator, this.position);
+            final int stop = end < 0 ? this.length : end + terminator.length();
+            for (int i = this.position; i < stop; i++) {
+                this.out.append(this.in.charAt(i));
+            }
+            this.position = stop;
+        }
+
+        private void tag() {
+            int i = this.position + 1;
+            final boolean endTag = i < this.length && this.in.charAt(i) == '/';
+            if (endTag) {
+                i++;
+            }
+            final int nameStart = i;
+            while (i < this.length && !isWhitespace(this.in.charAt(i)) && this.in.charAt(i) != '/' && this.in.charAt(i) != '>') {
+                i++;
+            }
+            final int nameEnd = i;
+            if (nameEnd == nameStart) {
+                // a lone '<' is text, not markup
+                textBeforeMarkup();
+                escaped('<', false);
+                this.position++;
+                return;
+            }
+
+            final boolean blockTag = isBlockTag(nameStart, nameEnd);
+            if (this.pendingSpace && !this.afterBlockTag && !blockTag && this.preDepth == 0) {
+                this.out.append(' ');
+            }
+            this.pendingSpace = false;
+
+            boolean selfClosing = false;
+            this.attributeCount = 0;
+            while (i < this.length && this.in.charAt(i) != '>') {
+                final char c = this.in.charAt(i);
+                if (isWhitespace(c)) {
+                    i++;
+                } else if (c == '/') {
+                    selfClosing = true;
+                    i++;
+                } else {
+                    selfClosing = false;
+                    i = attribute(i);
+                }
+            }
+            this.position = Math.min(i + 1, this.length);
+
+            this.out.append('<');
+            if (endTag) {
+                this.out.append('/');
+            }
+            append(nameStart, nameEnd);
+            sortAttributes();
+            for (int a = 0; a < this.attributeCount; a++) {
+                final int base = a * 4;
+                this.out.append(' ');
+                append(this.attributes[base], this.attributes[base + 1]);
+                if (this.attributes[base + 2] >= 0) {
+                    this.out.append('=');
+                    this.out.append('"');
+                    attributeValue(this.attributes[base + 2], this.attributes[base + 3]);
+                    this.out.append('"');
+                }
+            }
+            if (selfClosing) {
+                this.out.append('/');
+            }
+            this.out.append('>');
+
+            if (regionMatches(nameStart, nameEnd, "pre") && !selfClosing) {
+                this.preDepth = Math.max(0, this.preDepth + (endTag ? -1 : 1));
+            }
+            this.afterBlockTag = blockTag && this.preDepth == 0;
+        }
+
+        private int attribute(int i) {
+            final int nameStart = i;
+            while (i < this.length && this.in.charAt(i) != '=' && this.in.charAt(i) != '>' && this.in.charAt(i) != '/' && !isWhitespace(this.in.charAt(i))) {
+                i++;
+            }
+            final int nameEnd = i;
+            while (i < this.length && isWhitespace(this.in.charAt(i))) {
+                i++;
+            }
+
+            int valueStart = -1;
+            int valueEnd = -1;
+            if (i < this.length && this.in.charAt(i) == '=') {
+                i++;
+                while (i < this.length && isWhitespace(this.in.charAt(i))) {
+                    i++;
+                }
+                if (i < this.length && (this.in.charAt(i) == '"' || this.in.charAt(i) == '\'')) {
+                    final char quote = this.in.charAt(i);
+                    valueStart = ++i;
+                    while (i < this.length && this.in.charAt(i) != quote) {
+                        i++;
+                    }
+                    valueEnd = i;
+                    i = Math.min(i + 1, this.length);
+                } else {
+                    valueStart = i;
+                    while (i < this.length && !isWhitespace(this.in.charAt(i)) && this.in.charAt(i) != '>') {
+                        i++;
+                    }
+                    valueEnd = i;
+                }
+            }
+
+            if (this.attributes.length < (this.attributeCount + 1) * 4) {
+                this.attributes = Arrays.copyOf(this.attributes, this.attributes.length * 2);
+            }
+            final int base = this.attributeCount++ * 4;
+            this.attributes[base] = nameStart;
+            this.attributes[base + 1] = nameEnd;
+            this.attributes[base + 2] = valueStart;
+            this.attributes[base + 3] = valueEnd;
+
+            return nameEnd == nameStart ? i + 1 : i;
+        }
+
+        private void sortAttributes() {
+            // insertion sort, as tags rarely have more than a handful of attributes
+            for (int a = 1; a < this.attributeCount; a++) {
+                for (int b = a; b > 0 && compareAttributeNames(b - 1, b) > 0; b--) {
+                    for (int k = 0; k < 4; k++) {
+                        final int swap = this.attributes[(b - 1) * 4 + k];
+                        this.attributes[(b - 1) * 4 + k] = this.attributes[b * 4 + k];
+                        this.attributes[b * 4 + k] = swap;
+                    }
+                }
+            }
+        }
+
+        private int compareAttributeNames(final int left, final int right) {
+            int l = this.attributes[left * 4];
+            final int lEnd = this.attributes[left * 4 + 1];
+            int r = this.attributes[right * 4];
+            final int rEnd = this.attributes[right * 4 + 1];
+            while (l < lEnd && r < rEnd) {
+                final int difference = this.in.charAt(l++) - this.in.charAt(r++);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+
+            return (lEnd - l) - (rEnd - r);
+        }
+
+        private void attributeValue(final int start, final int end) {
+            final int savedPosition = this.position;
+            this.position = start;
+            while (this.position < end) {
+                final char c = this.in.charAt(this.position);
+                if (c == '&') {
+                    reference(true);
+                } else {
+                    escaped(isWhitespace(c) ? ' ' : c, true);
+                    this.position++;
+                }
+            }
+            this.position = savedPosition;
+        }
+
+        private void reference(final boolean inAttribute) {
+            final int start = this.position + 1;
+            int end = start;
+            while (end < this.length && end - start < 32 && this.in.charAt(end) != ';' && !isWhitespace(this.in.charAt(end)) && this.in.charAt(end) != '&' && this.in.charAt(end) != '<') {
+                end++;
+            }
+            if (end >= this.length || this.in.charAt(end) != ';' || end == start) {
+                escaped('&', inAttribute);
+                this.position++;
+                return;
+            }
+
+            final int codePoint = codePoint(start, end);
+            if (codePoint < 0) {
+                append(this.position, end + 1);
+            } else if (Character.isSupplementaryCodePoint(codePoint)) {
+                this.out.append(Character.highSurrogate(codePoint));
+                this.out.append(Character.lowSurrogate(codePoint));
+            } else {
+                escaped((char) codePoint, inAttribute);
+            }
+            this.position = end + 1;
+        }
+
+        private int codePoint(final int start, final int end) {
+            try {
+                if (this.in.charAt(start) == '#') {
+                    final boolean hexadecimal = end > start + 1 && (this.in.charAt(start + 1) == 'x' || this.in.charAt(start + 1) == 'X');
+                    final int codePoint = Integer.parseInt(this.in.subSequence(start + (hexadecimal ? 2 : 1), end).toString(), hexadecimal ? 16 : 10);
+                    return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+                }
+            } catch (final NumberFormatException e) {
+                return -1;
+            }
+
+            final Integer codePoint = NAMED_ENTITIES.get(this.in.subSequence(start, end).toString());
+            return codePoint != null ? codePoint : -1;
+        }
+
+        private void escaped(final char c, final boolean inAttribute) {
+            switch (c) {
+                case '<':
+                    appendAll("&lt;");
+                    break;
+                case '>':
+                    appendAll("&gt;");
+                    break;
+                case '&':
+                    appendAll("&amp;");
+                    break;
+                case '"':
+                    if (inAttribute) {
+                        appendAll("&quot;");
+                    } else {
+                        this.out.append(c);
+                    }
+                    break;
+                default:
+                    this.out.append(c);
+            }
+        }
+
+        private boolean isBlockTag(final int nameStart, final int nameEnd) {
+            for (final String blockTag : BLOCK_TAGS) {
+                if (blockTag.length() == nameEnd - nameStart && regionMatches(nameStart, nameEnd, blockTag)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private boolean regionMatches(final int start, final int end, final String prefix) {
+            if (end - start < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (this.in.charAt(start + i) != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+
+            return prefix.endsWith(":") || end - start == prefix.length();
+        }
+
+        private boolean startsWith(final String prefix, final int at) {
+            if (at + prefix.length() > this.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (this.in.charAt(at + i) != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private int indexOf(final String terminator, final int from) {
+            for (int i = from; i <= this.length - terminator.length(); i++) {
+                if (startsWith(terminator, i)) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        private void append(final int start, final int end) {
+            for (int i = start; i < end; i++) {
+                this.out.append(this.in.charAt(i));
+            }
+        }
+
+        private void appendAll(final String text) {
+            for (int i = 0; i < text.length(); i++) {
+                this.out.append(text.charAt(i));
+            }
+        }
+
+        private static boolean isWhitespace(final char c) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+        }
+    }
+
+    private static final class DigestOutput implements Output {
+
+        private final MessageDigest digest = getSha256Digest();
+        private final byte[]        buffer = new byte[8192];
+        private       int           count;
+        private       char          highSurrogate;
+
+        @Override
+        public void append(final char c) {
+            if (this.count > this.buffer.length - 4) {
+                flush();
+            }
+            if (Character.isHighSurrogate(c)) {
+                this.highSurrogate = c;
+            } else if (Character.isLowSurrogate(c) && this.highSurrogate != 0) {
+                final int codePoint = Character.toCodePoint(this.highSurrogate, c);
+                this.highSurrogate = 0;
+                put(0xF0 | (codePoint >> 18));
+                put(0x80 | ((codePoint >> 12) & 0x3F));
+                put(0x80 | ((codePoint >> 6) & 0x3F));
+                put(0x80 | (codePoint & 0x3F));
+            } else if (c < 0x80) {
+                put(c);
+            } else if (c < 0x800) {
+                put(0xC0 | (c >> 6));
+                put(0x80 | (c & 0x3F));
+            } else {
+                put(0xE0 | (c >> 12));
+                put(0x80 | ((c >> 6) & 0x3F));
+                put(0x80 | (c & 0x3F));
+            }
+        }
+
+        byte[] digest() {
+            flush();
+            return this.digest.digest();
+        }
+
+        private void put(final int b) {
+            this.buffer[this.count++] = (byte) b;
+        }
+
+        private void flush() {
+            this.digest.update(this.buffer, 0, this.count);
+            this.count = 0;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.znerd.confluence.client;
+
+import org.junit.Test;
+import org.znerd.confluence.client.http.ConfluencePage;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class AsyncConfluencePublisherListenerTest {
+
+    @Test
+    public void publishCompleted_afterEvents_deliversAllEventsInOrderBeforeReturning() {
+        // arrange
+        List<String> events = new CopyOnWriteArrayList<>();
+        ConfluencePublisherListener delegate = new RecordingListener(events, new CountDownLatch(0));
+
+        try (AsyncConfluencePublisherListener asyncListener = new AsyncConfluencePublisherListener(delegate, 16)) {
+            // act
+            asyncListener.pageAdded(new ConfluencePage("1", "Page", 1));
+            asyncListener.attachmentAdded("1", "attachment.txt");
+            asyncListener.publishProgress(progress(1));
+            asyncListener.publishCompleted();
+
+            // assert
+            assertThat(events, contains("pageAdded 1", "attachmentAdded attachment.txt", "publishProgress 1", "publishCompleted"));
+        }
+    }
+
+    @Test
+    public void pageAdded_withBlockedDelegateAndFullQueue_dropsEventsWithoutBlocking() {
+        // arrange
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        ConfluencePublisherListener delegate = new RecordingListener(events, release);
+
+        try (AsyncConfluencePublisherListener asyncListener = new AsyncConfluencePublisherListener(delegate, 2)) {
+            // act
+            for (int i = 0; i < 10; i++) {
+                asyncListener.pageAdded(new ConfluencePage(Integer.toString(i), "Page", 1));
+            }
+            release.countDown();
+            asyncListener.publishCompleted();
+
+            // assert
+            assertThat(events.size() + asyncListener.getDroppedEvents(), is(11L));
+            assertThat(asyncListener.getDroppedEvents() > 0, is(true));
+        }
+    }
+
+    @Test
+    public void publishProgress_withBlockedDelegate_coalescesToLatestProgress() {
+        // arrange
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        ConfluencePublisherListener delegate = new RecordingListener(events, release);
+
+        try (AsyncConfluencePublisherListener asyncListener = new AsyncConfluencePublisherListener(delegate, 16)) {
+            // act
+            for (int i = 1; i <= 100; i++) {
+                asyncListener.publishProgress(progress(i));
+            }
+            release.countDown();
+            asyncListener.publishCompleted();
+
+            // assert
+            assertThat(events.size(), is(lessThan(10)));
+            assertThat(events.subList(events.size() - 2, events.size()), is(asList("publishProgress 100", "publishCompleted")));
+            assertThat(asyncListener.getDroppedEvents(), is(0L));
+        }
+    }
+
+    private static PublishProgress progress(int completedPages) {
+        return new PublishProgress(100, 0, completedPages, 0, 0, 0, 0, 10);
+    }
+
+    private static class RecordingListener implements ConfluencePublisherListener {
+
+        private final List<String>   events;
+        private final CountDownLatch release;
+
+        RecordingListener(List<String> events, CountDownLatch release) {
+            this.events = events;
+            this.release = release;
+        }
+
+        @Override
+        public void pageAdded(ConfluencePage addedPage) {
+            record("pageAdded " + addedPage.getContentId());
+        }
+
+        @Override
+        public void attachmentAdded(String contentId, String attachmentFileName) {
+            record("attachmentAdded " + attachmentFileName);
+        }
+
+        @Override
+        public void publishProgress(PublishProgress progress) {
+            record("publishProgress " + progress.getCompletedPages());
+        }
+
+        @Override
+        public void publishCompleted() {
+            record("publishCompleted");
+        }
+
+        private void record(String event) {
+            try {
+                this.release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.events.add(event);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
+import org.znerd.confluence.client.metadata.FileConfluencePageMetadata;
+import org.znerd.confluence.client.utils.IoUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AttachmentRegistryTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void hash_sameFileReferencedFromMultiplePages_hashesFileOnce() throws IOException {
+        // arrange
+        Path logo = file("logo.png", "logo");
+        ConfluencePageMetadata first = page("First", logo);
+        ConfluencePageMetadata second = page("Second", logo);
+        AttachmentRegistry attachmentRegistry = new AttachmentRegistry(asList(first, second), 1024);
+
+        // act
+        String firstHash = attachmentRegistry.hash(first, "logo.png");
+        Files.delete(logo);
+        String secondHash = attachmentRegistry.hash(second, "logo.png");
+
+        // assert
+        assertThat(firstHash, is(sha256Hex("logo")));
+        assertThat(secondHash, is(firstHash));
+    }
+
+    @Test
+    public void content_sameBytesUploadedTwice_readsFileOnce() throws IOException {
+        // arrange
+        Path logo = file("logo.png", "logo");
+        List<ConfluencePageMetadata> pages = asList(page("First", logo), page("Second", logo), page("Third", logo));
+        AttachmentRegistry attachmentRegistry = new AttachmentRegistry(pages, 1024);
+        String hash = attachmentRegistry.hash(pages.get(0), "logo.png");
+        read(attachmentRegistry.content(logo.toString(), hash, 4));
+        Files.delete(logo);
+
+        // act
+        String content = read(attachmentRegistry.content(logo.toString(), hash, 4));
+
+        // assert
+        assertThat(content, is("logo"));
+        assertThat(attachmentRegistry.getCachedBytes(), is(4L));
+    }
+
+    @Test
+    public void content_lastReferenceUploaded_releasesBytes() throws IOException {
+        // arrange
+        Path logo = file("logo.png", "logo");
+        AttachmentRegistry attachmentRegistry = new AttachmentRegistry(asList(page("First", logo), page("Second", logo)), 1024);
+        read(attachmentRegistry.content(logo.toString(), sha256Hex("logo"), 4));
+        Files.delete(logo);
+
+        // act
+        String content = read(attachmentRegistry.content(logo.toString(), sha256Hex("logo"), 4));
+
+        // assert
+        assertThat(content, is("logo"));
+        assertThat(attachmentRegistry.getCachedBytes(), is(0L));
+    }
+
+    @Test
+    public void content_budgetExceeded_evictsLeastRecentlyUsedBytes() throws IOException {
+        // arrange
+        Path logo = file("logo.png", "logo");
+        Path icon = file("icon.png", "icon");
+        Path text = file("text.txt", "text");
+        AttachmentRegistry attachmentRegistry = new AttachmentRegistry(emptyList(), 8);
+        read(attachmentRegistry.content(logo.toString(), sha256Hex("logo"), 4));
+        read(attachmentRegistry.content(icon.toString(), sha256Hex("icon"), 4));
+        read(attachmentRegistry.content(logo.toString(), sha256Hex("logo"), 4));
+
+        // act
+        read(attachmentRegistry.content(text.toString(), sha256Hex("text"), 4));
+
+        // assert
+        Files.delete(logo);
+        Files.delete(text);
+        assertThat(read(attachmentRegistry.content(logo.toString(), sha256Hex("logo"), 4)), is("logo"));
+        assertThat(read(attachmentRegistry.content(text.toString(), sha256Hex("text"), 4)), is("text"));
+        assertThat(attachmentRegistry.getCachedBytes(), is(8L));
+    }
+
+    @Test
+    public void content_fileReferencedOnce_isNotKept() throws IOException {
+        // arrange
+        Path diagram = file("diagram.png", "diagram");
+        AttachmentRegistry attachmentRegistry = new AttachmentRegistry(asList(page("Only", diagram)), 1024);
+
+        // act
+        String content = read(attachmentRegistry.content(diagram.toString(), sha256Hex("diagram"), 7));
+
+        // assert
+        assertThat(content, is("diagram"));
+        assertThat(attachmentRegistry.getCachedBytes(), is(0L));
+    }
+
+    @Test
+    public void content_moreBytesThanBudget_readsFromFile() throws IOException {
+        // arrange
+        Path logo = file("logo.png", "logo");
+        AttachmentRegistry attachmentRegistry = new AttachmentRegistry(emptyList(), 3);
+
+        // act
+        String content = read(attachmentRegistry.content(logo.toString(), sha256Hex("logo"), 4));
+
+        // assert
+        assertThat(content, is("logo"));
+        assertThat(attachmentRegistry.getCachedBytes(), is(0L));
+    }
+
+    private Path file(String name, String content) throws IOException {
+        return Files.write(this.temporaryFolder.getRoot().toPath().resolve(name), content.getBytes(UTF_8));
+    }
+
+    private static FileConfluencePageMetadata page(String title, Path attachment) {
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put(attachment.getFileName().toString(), attachment.toString());
+        FileConfluencePageMetadata page = new FileConfluencePageMetadata();
+        page.setTitle(title);
+        page.setAttachments(attachments);
+
+        return page;
+    }
+
+    private static String read(InputStream inputStream) {
+        return IoUtils.inputStreamAsString(inputStream, UTF_8);
+    }
+}
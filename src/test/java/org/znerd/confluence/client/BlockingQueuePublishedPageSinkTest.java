@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.junit.Test;
+import org.znerd.confluence.client.metadata.FileConfluencePageMetadata;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class BlockingQueuePublishedPageSinkTest {
+
+    @Test
+    public void take_pagesPublishedAndCompleted_returnsPagesAndThenNull() throws InterruptedException {
+        // arrange
+        BlockingQueuePublishedPageSink pageSink = new BlockingQueuePublishedPageSink(2);
+        PublishedPageInfo first = pageInfo("First", "1");
+        PublishedPageInfo second = pageInfo("Second", "2");
+        pageSink.pagePublished(first);
+        pageSink.pagePublished(second);
+
+        Thread publisher = new Thread(pageSink::publishCompleted);
+        publisher.start();
+
+        // act & assert
+        assertThat(pageSink.take(), is(sameInstance(first)));
+        assertThat(pageSink.take(), is(sameInstance(second)));
+        assertThat(pageSink.take(), is(nullValue()));
+        assertThat(pageSink.take(), is(nullValue()));
+        assertThat(pageSink.isCompleted(), is(true));
+        publisher.join();
+    }
+
+    @Test
+    public void poll_noPagePublishedWithinTimeout_returnsNullWithoutCompleting() throws InterruptedException {
+        // arrange
+        BlockingQueuePublishedPageSink pageSink = new BlockingQueuePublishedPageSink(1);
+
+        // act
+        PublishedPageInfo publishedPage = pageSink.poll(10, MILLISECONDS);
+
+        // assert
+        assertThat(publishedPage, is(nullValue()));
+        assertThat(pageSink.isCompleted(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_withoutQueueCapacity_throwsIllegalArgumentException() {
+        // act
+        new BlockingQueuePublishedPageSink(0);
+    }
+
+    private static PublishedPageInfo pageInfo(String title, String contentId) {
+        FileConfluencePageMetadata page = new FileConfluencePageMetadata();
+        page.setTitle(title);
+
+        return new PublishedPageInfo("~SPACE", "42", page, contentId);
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.znerd.confluence.client.benchmark.FakeConfluenceServer;
+import org.znerd.confluence.client.benchmark.SyntheticPageTree;
+import org.znerd.confluence.client.http.ConfluenceRestClient;
+import org.znerd.confluence.client.utils.RequestCounter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.znerd.confluence.client.PublishingStrategy.APPEND_TO_ANCESTOR;
+import static org.znerd.confluence.client.utils.RequestBudget.isWithinRequestBudget;
+
+/**
+ * Guards the number of round trips {@link ConfluencePublisher} needs per page and attachment. When an optimization
+ * lowers the number of requests, tighten the budgets here so the improvement cannot silently regress.
+ */
+public class ConfluencePublisherRequestBudgetTest {
+
+    private static final String SPACE_KEY            = "BUDGET";
+    private static final int    PAGES                = 100;
+    private static final int    FAN_OUT              = 10;
+    private static final int    ATTACHMENTS_PER_PAGE = 2;
+    private static final int    ATTACHMENTS          = PAGES * ATTACHMENTS_PER_PAGE;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeConfluenceServer server;
+    private RequestCounter       requestCounter;
+    private SyntheticPageTree    pageTree;
+    private ConfluenceRestClient confluenceClient;
+    private ConfluencePublisher  confluencePublisher;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new FakeConfluenceServer();
+        this.requestCounter = new RequestCounter();
+        String ancestorId = this.server.createPage(SPACE_KEY, null, "Budget Root", "");
+        this.pageTree = new SyntheticPageTree(this.temporaryFolder.getRoot().toPath(), SPACE_KEY, ancestorId, PAGES, FAN_OUT, ATTACHMENTS_PER_PAGE, 256, 42L);
+        this.confluenceClient = new ConfluenceRestClient(this.server.getRootConfluenceUrl(), this.requestCounter.countingHttpClient(), "budget", "budget");
+        this.confluencePublisher = new ConfluencePublisher(this.pageTree.getMetadata(), APPEND_TO_ANCESTOR, this.confluenceClient);
+    }
+
+    @After
+    public void tearDown() {
+        this.server.close();
+    }
+
+    @Test
+    public void publish_newPageTree_staysWithinRequestBudget() {
+        // act
+        this.confluencePublisher.publish();
+
+        // assert
+        assertThat(this.requestCounter, isWithinRequestBudget()
+                .total(1 + 5 * PAGES + 2 * ATTACHMENTS)
+                .method("PUT", 0)
+                .method("DELETE", 0)
+                .endpoint("POST /content", PAGES)
+                .endpoint("GET /content/{id}/child/attachment", 0)
+                .endpoint("POST /content/{id}/child/attachment", ATTACHMENTS)
+                .endpoint("POST /content/{id}/property", 3 * PAGES + ATTACHMENTS));
+    }
+
+    @Test
+    public void publish_unchangedPageTree_staysWithinRequestBudget() {
+        // arrange
+        ConfluencePublishResult firstResult = this.confluencePublisher.publish();
+        this.requestCounter.reset();
+
+        // act
+        ConfluencePublishResult result = this.confluencePublisher.publish();
+
+        // assert
+        assertThat(this.requestCounter, isWithinRequestBudget()
+                // the root pages are listed with their subtree hashes, which match, so no branch is entered
+                .total(1)
+                .endpoint("GET /content/{id}/child/page", 1));
+        assertThat(pageAndAncestorIds(result), is(pageAndAncestorIds(firstResult)));
+    }
+
+    @Test
+    public void publish_singleChangedPage_writesOnlyThatPageAndAttachment() {
+        // arrange
+        this.confluencePublisher.publish();
+        int changedPages = this.pageTree.modifyPages(0.01);
+        this.requestCounter.reset();
+
+        // act
+        this.confluencePublisher.publish();
+
+        // assert
+        int depth = this.pageTree.getDepth();
+        assertThat(this.requestCounter, isWithinRequestBudget()
+                // only the branches down to the changed page are entered, each page on the way updates its subtree hash
+                .total(1 + changedPages * (5 * depth + 4))
+                .method("DELETE", 0)
+                .endpoint("PUT /content/{id}", changedPages)
+                .endpoint("POST /content/{id}/child/attachment/{id}/data", changedPages)
+                .endpoint("PUT /content/{id}/property/{key}", changedPages * (depth + 2))
+                .endpoint("POST /content/{id}/property", 0)
+                .endpoint("POST /content", 0));
+    }
+
+    @Test
+    public void publishBreadthFirst_newPageTree_staysWithinRequestBudgetOfDepthFirstPublish() {
+        // act
+        ConfluencePublishResult result = this.confluencePublisher.publishBreadthFirst(4);
+
+        // assert
+        assertThat(this.requestCounter, isWithinRequestBudget()
+                .total(1 + 5 * PAGES + 2 * ATTACHMENTS)
+                .method("PUT", 0)
+                .method("DELETE", 0)
+                .endpoint("POST /content", PAGES)
+                .endpoint("GET /content/{id}/child/attachment", 0)
+                .endpoint("POST /content/{id}/child/attachment", ATTACHMENTS)
+                .endpoint("POST /content/{id}/property", 3 * PAGES + ATTACHMENTS));
+        assertThat(this.server.getPageCount(), is(1 + PAGES));
+        assertThat(this.server.getAttachmentCount(), is(ATTACHMENTS));
+
+        this.requestCounter.reset();
+        ConfluencePublishResult depthFirstResult = this.confluencePublisher.publish();
+        assertThat(this.requestCounter.total(), is(1L));
+        assertThat(pageAndAncestorIds(result), is(pageAndAncestorIds(depthFirstResult)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void publishBreadthFirst_withoutParallelism_throwsIllegalArgumentException() {
+        // act
+        this.confluencePublisher.publishBreadthFirst(0);
+    }
+
+    @Test
+    public void publishBreadthFirst_withParallelismBeyondConnectionPool_publishesPageTree() {
+        // arrange
+        ConfluencePublisher confluencePublisher = new ConfluencePublisher(this.pageTree.getMetadata(), APPEND_TO_ANCESTOR,
+                new ConfluenceRestClient(this.server.getRootConfluenceUrl(), false, "budget", "budget"));
+
+        // act
+        ConfluencePublishResult result = confluencePublisher.publishBreadthFirst(64);
+
+        // assert
+        assertThat(result.getPages().size(), is(PAGES));
+        assertThat(this.server.getPageCount(), is(1 + PAGES));
+    }
+
+    @Test
+    public void publishBreadthFirst_singleChangedPage_writesOnlyThatPageAndAttachment() {
+        // arrange
+        this.confluencePublisher.publish();
+        int changedPages = this.pageTree.modifyPages(0.01);
+        this.requestCounter.reset();
+
+        // act
+        this.confluencePublisher.publishBreadthFirst(4);
+
+        // assert
+        int depth = this.pageTree.getDepth();
+        assertThat(this.requestCounter, isWithinRequestBudget()
+                .total(1 + changedPages * (5 * depth + 4))
+                .method("DELETE", 0)
+                .endpoint("PUT /content/{id}", changedPages)
+                .endpoint("POST /content/{id}/child/attachment/{id}/data", changedPages)
+                .endpoint("POST /content", 0));
+    }
+
+    @Test
+    public void dryRun_newPageTree_reportsAdditionsAndWritesOfPublishWithoutWriting() {
+        // act
+        DryRunReport report = this.confluencePublisher.dryRun();
+
+        // assert
+        assertThat(this.requestCounter, isWithinRequestBudget()
+                .total(1 + 2 * PAGES)
+                .method("POST", 0)
+                .method("PUT", 0)
+                .method("DELETE", 0));
+        assertThat(report.getAddedPages().size(), is(PAGES));
+        assertThat(report.getAddedAttachments().size(), is(ATTACHMENTS));
+        assertThat(report.getUnchangedPages().size(), is(0));
+        assertThat(report.getReadRequests(), is((int) this.requestCounter.total()));
+
+        this.requestCounter.reset();
+        this.confluencePublisher.publish();
+        assertThat(report.getWriteRequests(), is((int) writeRequests()));
+    }
+
+    @Test
+    public void dryRun_singleChangedPage_reportsOnlyThatPageAndAttachmentAsUpdated() {
+        // arrange
+        this.confluencePublisher.publish();
+        int changedPages = this.pageTree.modifyPages(0.01);
+        this.requestCounter.reset();
+
+        // act
+        DryRunReport report = this.confluencePublisher.dryRun();
+
+        // assert
+        assertThat(this.requestCounter, isWithinRequestBudget()
+                .method("POST", 0)
+                .method("PUT", 0)
+                .method("DELETE", 0));
+        assertThat(report.getUpdatedPages().size(), is(changedPages));
+        assertThat(report.getUpdatedAttachments().size(), is(changedPages));
+        assertThat(report.getUnchangedPages().size(), is(PAGES - changedPages));
+        assertThat(report.getUnchangedAttachments().size(), is(ATTACHMENTS - changedPages));
+        assertThat(report.getAddedPages().size() + report.getDeletedPages().size(), is(0));
+
+        this.requestCounter.reset();
+        this.confluencePublisher.publish();
+        assertThat(report.getWriteRequests(), is((int) writeRequests()));
+    }
+
+    @Test
+    public void publishWithJournal_resumedAfterCrash_verifiesOnlyPagesNotJournaled() throws IOException {
+        // arrange
+        Path journalFile = this.temporaryFolder.newFolder().toPath().resolve("publish.journal");
+        ConfluencePublisher crashingPublisher = new ConfluencePublisher(this.pageTree.getMetadata(), APPEND_TO_ANCESTOR, this.confluenceClient, new ConfluencePublisherListener() {
+
+            @Override
+            public void publishProgress(PublishProgress progress) {
+                if (progress.getCompletedPages() == PAGES / 2) {
+                    throw new IllegalStateException("crash");
+                }
+            }
+        }, null);
+        try {
+            crashingPublisher.publishWithJournal(journalFile, false);
+            fail("publish did not crash");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        long journaledPages = Files.readAllLines(journalFile).size();
+        this.requestCounter.reset();
+
+        // act
+        this.confluencePublisher.publishWithJournal(journalFile, true);
+
+        // assert
+        assertThat(journaledPages, is(greaterThan(0L)));
+        assertThat(Files.exists(journalFile), is(false));
+        assertThat(this.requestCounter, isWithinRequestBudget()
+                // journaled pages are only listed as parents, pages published before the crash but not journaled are verified again
+                .total(1 + journaledPages + (6 + 2 * ATTACHMENTS_PER_PAGE) * (PAGES - journaledPages))
+                .endpoint("GET /content/{id}", PAGES / 2 - journaledPages)
+                .endpoint("DELETE /content/{id}", 0));
+    }
+
+    private static List<String> pageAndAncestorIds(ConfluencePublishResult result) {
+        return result.getPages().stream()
+                .map(page -> page.getAncestorId() + "/" + page.getPageId())
+                .collect(toList());
+    }
+
+    private long writeRequests() {
+        return this.requestCounter.countByMethod("POST") + this.requestCounter.countByMethod("PUT") + this.requestCounter.countByMethod("DELETE");
+    }
+}
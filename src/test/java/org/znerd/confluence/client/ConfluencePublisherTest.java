@@ -25,25 +25,36 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.znerd.confluence.client.http.ConfluenceAttachment;
+import org.znerd.confluence.client.http.ConfluenceLabel;
 import org.znerd.confluence.client.http.ConfluencePage;
+import org.znerd.confluence.client.http.ConfluenceProperty;
 import org.znerd.confluence.client.http.ConfluenceRestClient;
 import org.znerd.confluence.client.http.NotFoundException;
 import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
+import org.znerd.confluence.client.metadata.ConfluencePageSource;
 import org.znerd.confluence.client.metadata.ConfluencePublisherMetadata;
 import org.znerd.confluence.client.metadata.FileConfluencePageMetadata;
+import org.znerd.confluence.client.metadata.StreamingConfluencePublisherMetadata;
 import org.znerd.confluence.client.utils.IoUtils;
+import org.znerd.confluence.client.utils.XhtmlCanonicalizer;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.Files.newInputStream;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
 import static org.hamcrest.CoreMatchers.is;
@@ -51,6 +62,7 @@ import static org.hamcrest.Matchers.contains;
 import static org.junit.Assert.assertThat;
 import static org.junit.rules.ExpectedException.none;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -60,8 +72,12 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.znerd.confluence.client.ConfluencePublisher.CONTENT_HASH_PROPERTY_KEY;
+import static org.znerd.confluence.client.ContentHashingStrategy.CANONICAL_XHTML;
 import static org.znerd.confluence.client.ConfluencePublisher.INITIAL_PAGE_VERSION;
+import static org.znerd.confluence.client.ConfluencePublisher.LABELS_PROPERTY_KEY;
+import static org.znerd.confluence.client.ConfluencePublisher.PAGE_IDENTITY_PROPERTY_KEY;
 import static org.znerd.confluence.client.PublishingStrategy.APPEND_TO_ANCESTOR;
+import static org.znerd.confluence.client.PublishingStrategy.APPEND_TO_ANCESTOR_KEEP_CHILDREN;
 import static org.znerd.confluence.client.PublishingStrategy.REPLACE_ANCESTOR;
 
 public class ConfluencePublisherTest {
@@ -79,7 +95,7 @@ public class ConfluencePublisherTest {
         this.expectedException.expectMessage("spaceKey must be set");
 
         // arrange + act
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         ConfluencePublisher confluencePublisher = confluencePublisher("without-space-key", confluenceRestClientMock);
         confluencePublisher.publish();
     }
@@ -91,15 +107,27 @@ public class ConfluencePublisherTest {
         this.expectedException.expectMessage("ancestorId must be set");
 
         // arrange + act
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         ConfluencePublisher confluencePublisher = confluencePublisher("without-ancestor-id", confluenceRestClientMock);
         confluencePublisher.publish();
     }
 
+    @Test
+    public void publishWithJournal_withKeepChildrenStrategy_throwsIllegalArgumentException() {
+        // assert
+        this.expectedException.expect(IllegalArgumentException.class);
+        this.expectedException.expectMessage("'APPEND_TO_ANCESTOR_KEEP_CHILDREN' publishing strategy does not support publishing with a journal");
+
+        // arrange + act
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        ConfluencePublisher confluencePublisher = confluencePublisher("one-page-ancestor-id", APPEND_TO_ANCESTOR_KEEP_CHILDREN, confluenceRestClientMock, null, null);
+        confluencePublisher.publishWithJournal(Paths.get("publish.journal"), false);
+    }
+
     @Test
     public void publish_oneNewPageWithAncestorId_delegatesToConfluenceRestClient() {
         // arrange
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageByTitle(anyString(), anyString())).thenThrow(new NotFoundException());
         when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn("2345");
@@ -114,6 +142,7 @@ public class ConfluencePublisherTest {
         // assert
         verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(eq("~personalSpace"), eq("72189173"), eq("Some Confluence Content"), eq("<h1>Some Confluence Content</h1>"), eq("version message"));
         verify(confluencePublisherListenerMock, times(1)).pageAdded(eq(new ConfluencePage("2345", "Some Confluence Content", "<h1>Some Confluence Content</h1>", INITIAL_PAGE_VERSION)));
+        verify(confluencePublisherListenerMock, times(1)).publishProgress(any(PublishProgress.class));
         verify(confluencePublisherListenerMock, times(1)).publishCompleted();
         verifyNoMoreInteractions(confluencePublisherListenerMock);
     }
@@ -121,7 +150,7 @@ public class ConfluencePublisherTest {
     @Test
     public void publish_multiplePageWithAncestorId_delegatesToConfluenceRestClient() {
         // arrange
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageByTitle(anyString(), anyString())).thenThrow(new NotFoundException());
         when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn("2345", "3456");
@@ -138,6 +167,7 @@ public class ConfluencePublisherTest {
         verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(eq("~personalSpace"), eq("72189173"), eq("Some Other Confluence Content"), eq("<h1>Some Confluence Content</h1>"), eq("version message"));
         verify(confluencePublisherListenerMock, times(1)).pageAdded(eq(new ConfluencePage("2345", "Some Confluence Content", "<h1>Some Confluence Content</h1>", INITIAL_PAGE_VERSION)));
         verify(confluencePublisherListenerMock, times(1)).pageAdded(eq(new ConfluencePage("3456", "Some Other Confluence Content", "<h1>Some Confluence Content</h1>", INITIAL_PAGE_VERSION)));
+        verify(confluencePublisherListenerMock, times(2)).publishProgress(any(PublishProgress.class));
         verify(confluencePublisherListenerMock, times(1)).publishCompleted();
         verifyNoMoreInteractions(confluencePublisherListenerMock);
     }
@@ -147,14 +177,14 @@ public class ConfluencePublisherTest {
         expectedException.expect(IllegalArgumentException.class);
         expectedException.expectMessage("Multiple root pages detected: 'Some Confluence Content', 'Some Other Confluence Content', but 'REPLACE_ANCESTOR' publishing strategy only supports one single root page");
 
-        ConfluencePublisher confluencePublisher = confluencePublisher("multiple-page-ancestor-id-replace", REPLACE_ANCESTOR, mock(ConfluenceRestClient.class), null, "version message");
+        ConfluencePublisher confluencePublisher = confluencePublisher("multiple-page-ancestor-id-replace", REPLACE_ANCESTOR, confluenceRestClientMock(), null, "version message");
         confluencePublisher.publish();
     }
 
     @Test
     public void publish_multiplePagesInHierarchyWithAncestorIdAsRoot_delegatesToConfluenceRestClient() {
         // arrange
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn("1234", "2345");
         when(confluenceRestClientMock.getPageByTitle(anyString(), anyString())).thenThrow(new NotFoundException());
@@ -181,14 +211,137 @@ public class ConfluencePublisherTest {
 
         verify(confluencePublisherListenerMock, times(1)).pageAdded(eq(new ConfluencePage("1234", "Some Confluence Content", "<h1>Some Confluence Content</h1>", INITIAL_PAGE_VERSION)));
         verify(confluencePublisherListenerMock, times(1)).pageAdded(eq(new ConfluencePage("2345", "Some Child Content", "<h1>Some Child Content</h1>", INITIAL_PAGE_VERSION)));
+        verify(confluencePublisherListenerMock, times(2)).publishProgress(any(PublishProgress.class));
+        verify(confluencePublisherListenerMock, times(1)).publishCompleted();
+        verifyNoMoreInteractions(confluencePublisherListenerMock);
+    }
+
+    @Test
+    public void publish_streamingMetadataWithPagesInHierarchy_publishesChildUnderParent() {
+        // arrange
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn("1234", "2345");
+        when(confluenceRestClientMock.getPageByTitle(anyString(), anyString())).thenThrow(new NotFoundException());
+
+        ConfluencePublisherListener confluencePublisherListenerMock = mock(ConfluencePublisherListener.class);
+
+        ConfluencePublisher confluencePublisher = new ConfluencePublisher(streamingMetadata("root-ancestor-id-multiple-pages"), APPEND_TO_ANCESTOR, confluenceRestClientMock, confluencePublisherListenerMock, "version message");
+
+        // act
+        confluencePublisher.publish();
+
+        // assert
+        InOrder inOrder = Mockito.inOrder(confluenceRestClientMock);
+        inOrder.verify(confluenceRestClientMock).addPageUnderAncestor(eq("~personalSpace"), eq("72189173"), eq("Some Confluence Content"), eq("<h1>Some Confluence Content</h1>"), eq("version message"));
+        inOrder.verify(confluenceRestClientMock).addPageUnderAncestor(eq("~personalSpace"), eq("1234"), eq("Some Child Content"), eq("<h1>Some Child Content</h1>"), eq("version message"));
+        verify(confluencePublisherListenerMock, times(1)).pageAdded(eq(new ConfluencePage("1234", "Some Confluence Content", "<h1>Some Confluence Content</h1>", INITIAL_PAGE_VERSION)));
+        verify(confluencePublisherListenerMock, times(1)).pageAdded(eq(new ConfluencePage("2345", "Some Child Content", "<h1>Some Child Content</h1>", INITIAL_PAGE_VERSION)));
+        verify(confluencePublisherListenerMock, times(2)).publishProgress(any(PublishProgress.class));
         verify(confluencePublisherListenerMock, times(1)).publishCompleted();
         verifyNoMoreInteractions(confluencePublisherListenerMock);
     }
 
+    @Test
+    public void publish_withPageSink_deliversChildBeforeParentAndReturnsResultWithoutPages() {
+        // arrange
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn("1234", "2345");
+        when(confluenceRestClientMock.getPageByTitle(anyString(), anyString())).thenThrow(new NotFoundException());
+
+        List<PublishedPageInfo> publishedPages = new ArrayList<>();
+        ConfluencePublisher confluencePublisher = new ConfluencePublisher(streamingMetadata("root-ancestor-id-multiple-pages"), APPEND_TO_ANCESTOR, confluenceRestClientMock);
+
+        // act
+        ConfluencePublishResult publishResult = confluencePublisher.publish(publishedPages::add);
+
+        // assert
+        assertThat(publishedPages.stream().map(PublishedPageInfo::getTitle).collect(toList()), contains("Some Child Content", "Some Confluence Content"));
+        assertThat(publishedPages.get(0).getPageId(), is("2345"));
+        assertThat(publishedPages.get(0).getAncestorId(), is("1234"));
+        assertThat(publishedPages.get(1).getAncestorId(), is("72189173"));
+        assertThat(publishResult.getPages().isEmpty(), is(true));
+    }
+
+    @Test
+    public void publishChanged_withChangedChildContentFile_looksUpParentAndUpdatesOnlyChild() {
+        // arrange
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+        when(confluenceRestClientMock.getPageByTitle("~personalSpace", "Some Confluence Content")).thenReturn("1234");
+        when(confluenceRestClientMock.getPageByTitle("~personalSpace", "Some Child Content")).thenReturn("2345");
+        when(confluenceRestClientMock.getPageWithContentAndVersionById("2345")).thenReturn(new ConfluencePage("2345", "Some Child Content", "<h1>Old Child Content</h1>", 1));
+        when(confluenceRestClientMock.getPropertyByKey("2345", CONTENT_HASH_PROPERTY_KEY)).thenReturn("old-hash");
+
+        ConfluencePublisher confluencePublisher = confluencePublisher("root-ancestor-id-multiple-pages", confluenceRestClientMock);
+
+        // act
+        ConfluencePublishResult publishResult = confluencePublisher.publishChanged(singletonList(Paths.get(TEST_RESOURCES, "some-child-content.html")));
+
+        // assert
+        verify(confluenceRestClientMock).updatePage("2345", "1234", "Some Child Content", "<h1>Some Child Content</h1>", 2, null);
+        verify(confluenceRestClientMock, never()).getPageWithContentAndVersionById("1234");
+        verify(confluenceRestClientMock, never()).addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), anyString());
+        assertThat(publishResult.getPages().stream().map(PublishedPageInfo::getTitle).collect(toList()), contains("Some Child Content"));
+    }
+
+    @Test
+    public void publishChanged_withChangedAttachmentOnly_publishesAttachmentWithoutUpdatingPage() {
+        // arrange
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+        when(confluenceRestClientMock.getPageByTitle("~personalSpace", "Some Confluence Content")).thenReturn("4321");
+        when(confluenceRestClientMock.getAttachmentByFileName(anyString(), anyString())).thenThrow(new NotFoundException());
+
+        ConfluencePublisher confluencePublisher = confluencePublisher("root-ancestor-id-page-with-attachments", confluenceRestClientMock);
+
+        // act
+        confluencePublisher.publishChanged(singletonList(Paths.get(TEST_RESOURCES, "attachmentOne.txt")));
+
+        // assert
+        verify(confluenceRestClientMock).addAttachment(eq("4321"), eq("attachmentOne.txt"), any(InputStream.class));
+        verify(confluenceRestClientMock, never()).addAttachment(eq("4321"), eq("attachmentTwo.txt"), any(InputStream.class));
+        verify(confluenceRestClientMock, never()).getPageWithContentAndVersionById(anyString());
+        verify(confluenceRestClientMock, never()).getAttachments(anyString());
+    }
+
+    @Test
+    public void publishChanged_withoutChangedPageFiles_sendsNoPageRequests() {
+        // arrange
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+
+        ConfluencePublisher confluencePublisher = confluencePublisher("root-ancestor-id-multiple-pages", confluenceRestClientMock);
+
+        // act
+        ConfluencePublishResult publishResult = confluencePublisher.publishChanged(singletonList(Paths.get("README.adoc")));
+
+        // assert
+        verify(confluenceRestClientMock).getConfluenceRootUrl();
+        verifyNoMoreInteractions(confluenceRestClientMock);
+        assertThat(publishResult.getPages().isEmpty(), is(true));
+    }
+
+    @Test
+    public void publish_streamingMetadataWithMultipleRootPagesAndReplaceAncestorStrategy_throwsIllegalArgumentException() {
+        // arrange
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getPageWithContentAndVersionById(anyString())).thenReturn(new ConfluencePage("72189173", "Existing Page", "<h1>Some Confluence Content</h1>", 1));
+        ConfluencePublisher confluencePublisher = new ConfluencePublisher(streamingMetadata("multiple-page-ancestor-id-replace"), REPLACE_ANCESTOR, confluenceRestClientMock);
+
+        // assert
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Multiple root pages detected: 'Some Confluence Content', 'Some Other Confluence Content', but 'REPLACE_ANCESTOR' publishing strategy only supports one single root page");
+
+        // act
+        confluencePublisher.publish();
+    }
+
     @Test
     public void publish_metadataOnePageWithNewAttachmentsAndAncestorIdAsRoot_attachesAttachmentToContent() {
         // arrange
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn("4321");
         when(confluenceRestClientMock.getPageByTitle(anyString(), anyString())).thenThrow(new NotFoundException());
@@ -218,7 +371,7 @@ public class ConfluencePublisherTest {
         // arrange
         ConfluencePage existingPage = new ConfluencePage("3456", "Existing Page", "<h1>Some Other Confluence Content</h1>", 1);
 
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageByTitle("~personalSpace", "Existing Page")).thenReturn("3456");
         when(confluenceRestClientMock.getPageWithContentAndVersionById("3456")).thenReturn(existingPage);
@@ -236,16 +389,42 @@ public class ConfluencePublisherTest {
         verify(confluenceRestClientMock, times(1)).updatePage(eq("3456"), eq("1234"), eq("Existing Page"), eq("<h1>Some Confluence Content</h1>"), eq(2), eq("version message"));
 
         verify(confluencePublisherListenerMock, times(1)).pageUpdated(eq(existingPage), eq(new ConfluencePage("3456", "Existing Page", "<h1>Some Confluence Content</h1>", 2)));
+        verify(confluencePublisherListenerMock, times(1)).publishProgress(any(PublishProgress.class));
         verify(confluencePublisherListenerMock, times(1)).publishCompleted();
         verifyNoMoreInteractions(confluencePublisherListenerMock);
     }
 
+    @Test
+    public void publish_withCanonicalXhtmlHashingAndOnlyFormattingChanged_doesNotSendUpdateRequest() {
+        // arrange
+        ConfluencePage existingPage = new ConfluencePage("3456", "Existing Page", "<h1>Some Confluence Content</h1>", 1);
+
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+        when(confluenceRestClientMock.getPageByTitle("~personalSpace", "Existing Page")).thenReturn("3456");
+        when(confluenceRestClientMock.getPageWithContentAndVersionById("3456")).thenReturn(existingPage);
+        when(confluenceRestClientMock.getPropertyByKey("3456", CONTENT_HASH_PROPERTY_KEY)).thenReturn(XhtmlCanonicalizer.canonicalSha256Hex("\n  <h1>Some   Confluence Content</h1>\r\n"));
+
+        ConfluencePublisherMetadata metadata = readConfig(Paths.get(TEST_RESOURCES + "/metadata-existing-page-ancestor-id.json"));
+        resolveAbsoluteContentFileAndAttachmentsPath(metadata.getPages(), Paths.get(TEST_RESOURCES).toAbsolutePath());
+        Map<String, String> existingPageProperties = singletonMap(PAGE_IDENTITY_PROPERTY_KEY, metadata.getPages().get(0).getIdentity());
+        when(confluenceRestClientMock.getChildPages(eq("1234"), anyCollectionOf(String.class))).thenReturn(singletonList(new ConfluencePage("3456", "Existing Page", null, 1, existingPageProperties)));
+        ConfluencePublisher confluencePublisher = new ConfluencePublisher(metadata, APPEND_TO_ANCESTOR, confluenceRestClientMock, null, "version message", CANONICAL_XHTML);
+
+        // act
+        confluencePublisher.publish();
+
+        // assert
+        verify(confluenceRestClientMock, never()).updatePage(anyString(), anyString(), anyString(), anyString(), any(Integer.class), anyString());
+        verify(confluenceRestClientMock, never()).setPropertyByKey(anyString(), eq(CONTENT_HASH_PROPERTY_KEY), anyString());
+    }
+
     @Test
     public void publish_metadataWithExistingPageWithDifferentContentUnderRootAncestorAndReplaceAncestorStrategy_sendsUpdateRequest() {
         // arrange
         ConfluencePage existingPage = new ConfluencePage("1234", "Existing Page", "<h1>Some Other Confluence Content</h1>", 1);
 
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageWithContentAndVersionById("1234")).thenReturn(existingPage);
         when(confluenceRestClientMock.getPropertyByKey("1234", CONTENT_HASH_PROPERTY_KEY)).thenReturn("someWrongHash");
@@ -262,6 +441,7 @@ public class ConfluencePublisherTest {
         verify(confluenceRestClientMock, times(1)).updatePage(eq("1234"), eq(null), eq("Existing Page"), eq("<h1>Some Confluence Content</h1>"), eq(2), eq("version message"));
 
         verify(confluencePublisherListenerMock, times(1)).pageUpdated(eq(existingPage), eq(new ConfluencePage("1234", "Existing Page", "<h1>Some Confluence Content</h1>", 2)));
+        verify(confluencePublisherListenerMock, times(1)).publishProgress(any(PublishProgress.class));
         verify(confluencePublisherListenerMock, times(1)).publishCompleted();
         verifyNoMoreInteractions(confluencePublisherListenerMock);
     }
@@ -271,7 +451,7 @@ public class ConfluencePublisherTest {
         // arrange
         ConfluencePage existingPage = new ConfluencePage("1234", "Existing Page (Old Title)", "<h1>Some Confluence Content</h1>", 1);
 
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageWithContentAndVersionById("1234")).thenReturn(existingPage);
         when(confluenceRestClientMock.getPropertyByKey("1234", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
@@ -288,6 +468,7 @@ public class ConfluencePublisherTest {
         verify(confluenceRestClientMock, times(1)).updatePage(eq("1234"), eq(null), eq("Existing Page"), eq("<h1>Some Confluence Content</h1>"), eq(2), eq(null));
 
         verify(confluencePublisherListenerMock, times(1)).pageUpdated(eq(existingPage), eq(new ConfluencePage("1234", "Existing Page", "<h1>Some Confluence Content</h1>", 2)));
+        verify(confluencePublisherListenerMock, times(1)).publishProgress(any(PublishProgress.class));
         verify(confluencePublisherListenerMock, times(1)).publishCompleted();
         verifyNoMoreInteractions(confluencePublisherListenerMock);
     }
@@ -297,7 +478,7 @@ public class ConfluencePublisherTest {
         // arrange
         ConfluencePage existingPage = new ConfluencePage("72189173", "Existing Page (Old Title)", "<h1>Some Confluence Content</h1>", 1);
 
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageWithContentAndVersionById("72189173")).thenReturn(existingPage);
         when(confluenceRestClientMock.getPropertyByKey("72189173", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
@@ -312,6 +493,7 @@ public class ConfluencePublisherTest {
         verify(confluenceRestClientMock, never()).addPageUnderAncestor(any(), any(), any(), any(), any());
         verify(confluenceRestClientMock).updatePage(eq("72189173"), eq(null), eq("Some Confluence Content"), eq("<h1>Some Confluence Content</h1>"), eq(2), eq(null));
         verify(confluencePublisherListenerMock).pageUpdated(existingPage, new ConfluencePage("72189173", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 2));
+        verify(confluencePublisherListenerMock, times(1)).publishProgress(any(PublishProgress.class));
         verify(confluencePublisherListenerMock).publishCompleted();
         verifyNoMoreInteractions(confluencePublisherListenerMock);
     }
@@ -319,15 +501,16 @@ public class ConfluencePublisherTest {
     @Test
     public void publish_whenAttachmentsHaveSameContentHash_doesNotUpdateAttachments() {
         // arrange
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageWithContentAndVersionById("72189173")).thenReturn(new ConfluencePage("72189173", "Existing Page (Old Title)", "<h1>Some Confluence Content</h1>", 1));
         when(confluenceRestClientMock.getPropertyByKey("72189173", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
 
-        when(confluenceRestClientMock.getAttachmentByFileName("72189173", "attachmentOne.txt")).thenReturn(new ConfluenceAttachment("att1", "attachmentOne.txt", "/download/attachmentOne.txt", 1));
-        when(confluenceRestClientMock.getPropertyByKey("72189173", "attachmentOne.txt-hash")).thenReturn(sha256Hex("attachment1"));
+        when(confluenceRestClientMock.getAttachments("72189173")).thenReturn(asList(
+                new ConfluenceAttachment("att1", "attachmentOne.txt", "/download/attachmentOne.txt", 1),
+                new ConfluenceAttachment("att2", "attachmentTwo.txt", "/download/attachmentTwo.txt", 1)));
 
-        when(confluenceRestClientMock.getAttachmentByFileName("72189173", "attachmentTwo.txt")).thenReturn(new ConfluenceAttachment("att2", "attachmentTwo.txt", "/download/attachmentTwo.txt", 1));
+        when(confluenceRestClientMock.getPropertyByKey("72189173", "attachmentOne.txt-hash")).thenReturn(sha256Hex("attachment1"));
         when(confluenceRestClientMock.getPropertyByKey("72189173", "attachmentTwo.txt-hash")).thenReturn(sha256Hex("attachment2"));
 
         ConfluencePublisher confluencePublisher = confluencePublisher("root-ancestor-id-page-with-attachments", REPLACE_ANCESTOR, confluenceRestClientMock, null, null);
@@ -343,15 +526,16 @@ public class ConfluencePublisherTest {
     @Test
     public void publish_whenExistingAttachmentsHaveMissingHashProperty_updatesAttachmentsAndHashProperties() {
         // arrange
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageWithContentAndVersionById("72189173")).thenReturn(new ConfluencePage("72189173", "Existing Page (Old Title)", "<h1>Some Confluence Content</h1>", 1));
         when(confluenceRestClientMock.getPropertyByKey("72189173", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
 
-        when(confluenceRestClientMock.getAttachmentByFileName("72189173", "attachmentOne.txt")).thenReturn(new ConfluenceAttachment("att1", "attachmentOne.txt", "", 1));
-        when(confluenceRestClientMock.getPropertyByKey("72189173", "attachmentOne.txt-hash")).thenReturn(null);
+        when(confluenceRestClientMock.getAttachments("72189173")).thenReturn(asList(
+                new ConfluenceAttachment("att1", "attachmentOne.txt", "", 1),
+                new ConfluenceAttachment("att2", "attachmentTwo.txt", "", 1)));
 
-        when(confluenceRestClientMock.getAttachmentByFileName("72189173", "attachmentTwo.txt")).thenReturn(new ConfluenceAttachment("att2", "attachmentTwo.txt", "", 1));
+        when(confluenceRestClientMock.getPropertyByKey("72189173", "attachmentOne.txt-hash")).thenReturn(null);
         when(confluenceRestClientMock.getPropertyByKey("72189173", "attachmentTwo.txt-hash")).thenReturn(null);
 
         ConfluencePublisher confluencePublisher = confluencePublisher("root-ancestor-id-page-with-attachments", REPLACE_ANCESTOR, confluenceRestClientMock, null, null);
@@ -374,17 +558,18 @@ public class ConfluencePublisherTest {
     @Test
     public void publish_whenExistingAttachmentsHaveDifferentHashProperty_updatesAttachmentsAndHashProperties() {
         // arrange
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageWithContentAndVersionById("72189173")).thenReturn(new ConfluencePage("72189173", "Existing Page (Old Title)", "<h1>Some Confluence Content</h1>", 1));
         when(confluenceRestClientMock.getPropertyByKey("72189173", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
 
         ArgumentCaptor<InputStream> content = ArgumentCaptor.forClass(InputStream.class);
 
-        when(confluenceRestClientMock.getAttachmentByFileName("72189173", "attachmentOne.txt")).thenReturn(new ConfluenceAttachment("att1", "attachmentOne.txt", "", 1));
-        when(confluenceRestClientMock.getPropertyByKey("72189173", "attachmentOne.txt-hash")).thenReturn("otherHash1");
+        when(confluenceRestClientMock.getAttachments("72189173")).thenReturn(asList(
+                new ConfluenceAttachment("att1", "attachmentOne.txt", "", 1),
+                new ConfluenceAttachment("att2", "attachmentTwo.txt", "", 1)));
 
-        when(confluenceRestClientMock.getAttachmentByFileName("72189173", "attachmentTwo.txt")).thenReturn(new ConfluenceAttachment("att2", "attachmentTwo.txt", "", 1));
+        when(confluenceRestClientMock.getPropertyByKey("72189173", "attachmentOne.txt-hash")).thenReturn("otherHash1");
         when(confluenceRestClientMock.getPropertyByKey("72189173", "attachmentTwo.txt-hash")).thenReturn("otherHash2");
 
         ConfluencePublisher confluencePublisher = confluencePublisher("root-ancestor-id-page-with-attachments", REPLACE_ANCESTOR, confluenceRestClientMock, null, null);
@@ -394,23 +579,56 @@ public class ConfluencePublisherTest {
 
         // assert
         InOrder inOrder = Mockito.inOrder(confluenceRestClientMock);
-        inOrder.verify(confluenceRestClientMock).deletePropertyByKey("72189173", "attachmentOne.txt-hash");
         inOrder.verify(confluenceRestClientMock).updateAttachmentContent(eq("72189173"), eq("att1"), content.capture());
-        inOrder.verify(confluenceRestClientMock).setPropertyByKey("72189173", "attachmentOne.txt-hash", sha256Hex("attachment1"));
+        inOrder.verify(confluenceRestClientMock).updatePropertyByKey("72189173", "attachmentOne.txt-hash", sha256Hex("attachment1"), 1);
         assertThat(IoUtils.inputStreamAsString(content.getValue(), UTF_8), is("attachment1"));
 
-        verify(confluenceRestClientMock).deletePropertyByKey("72189173", "attachmentTwo.txt-hash");
         verify(confluenceRestClientMock).updateAttachmentContent(eq("72189173"), eq("att2"), content.capture());
-        verify(confluenceRestClientMock).setPropertyByKey("72189173", "attachmentTwo.txt-hash", sha256Hex("attachment2"));
+        verify(confluenceRestClientMock).updatePropertyByKey("72189173", "attachmentTwo.txt-hash", sha256Hex("attachment2"), 1);
+        verify(confluenceRestClientMock, never()).deletePropertyByKey(anyString(), anyString());
         assertThat(IoUtils.inputStreamAsString(content.getValue(), UTF_8), is("attachment2"));
 
         verify(confluenceRestClientMock, never()).addAttachment(anyString(), anyString(), any(InputStream.class));
     }
 
+    @Test
+    public void publish_whenAttachmentsAreNew_notifiesListenerOfAddedAttachmentsAndProgress() {
+        // arrange
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+        when(confluenceRestClientMock.getPageWithContentAndVersionById("72189173")).thenReturn(new ConfluencePage("72189173", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 1));
+        when(confluenceRestClientMock.getPropertyByKey("72189173", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
+        when(confluenceRestClientMock.getAttachmentByFileName(eq("72189173"), anyString())).thenThrow(new NotFoundException());
+
+        ConfluencePublisherListener confluencePublisherListenerMock = mock(ConfluencePublisherListener.class);
+        ArgumentCaptor<PublishProgress> progress = ArgumentCaptor.forClass(PublishProgress.class);
+
+        ConfluencePublisher confluencePublisher = confluencePublisher("root-ancestor-id-page-with-attachments", REPLACE_ANCESTOR, confluenceRestClientMock, confluencePublisherListenerMock, null);
+
+        // act
+        confluencePublisher.publish();
+
+        // assert
+        verify(confluencePublisherListenerMock).attachmentAdded("72189173", "attachmentOne.txt");
+        verify(confluencePublisherListenerMock).attachmentAdded("72189173", "attachmentTwo.txt");
+        verify(confluencePublisherListenerMock, times(3)).publishProgress(progress.capture());
+        verify(confluencePublisherListenerMock).publishCompleted();
+        verifyNoMoreInteractions(confluencePublisherListenerMock);
+
+        PublishProgress lastProgress = progress.getValue();
+        assertThat(lastProgress.getTotalPages(), is(1));
+        assertThat(lastProgress.getTotalAttachments(), is(2));
+        assertThat(lastProgress.getCompletedPages(), is(1));
+        assertThat(lastProgress.getCompletedAttachments(), is(2));
+        assertThat(lastProgress.getUnchangedPages(), is(1));
+        assertThat(lastProgress.getUnchangedAttachments(), is(0));
+        assertThat(lastProgress.getBytesUploaded(), is(22L));
+    }
+
     @Test
     public void publish_whenNewAttachmentsAreEmpty_deletesAttachmentsPresentOnConfluence() {
         //arrange
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageWithContentAndVersionById("72189173")).thenReturn(new ConfluencePage("72189173", "Existing Page (Old Title)", "<h1>Some Confluence Content</h1>", 1));
         when(confluenceRestClientMock.getPropertyByKey("72189173", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
@@ -436,7 +654,7 @@ public class ConfluencePublisherTest {
     @Test
     public void publish_whenSomePreviouslyAttachedFilesHaveBeenRemovedFromPage_deletesAttachmentsNotPresentUnderPage() {
         // arrange
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
         when(confluenceRestClientMock.getPageWithContentAndVersionById("72189173")).thenReturn(new ConfluencePage("72189173", "Existing Page (Old Title)", "<h1>Some Confluence Content</h1>", 1));
         when(confluenceRestClientMock.getPropertyByKey("72189173", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
@@ -474,9 +692,9 @@ public class ConfluencePublisherTest {
         // arrange
         ConfluencePage existingPage = new ConfluencePage("12", "Some Confluence Content", "<h1>Some Confluence Content</1>", 1);
 
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
-        when(confluenceRestClientMock.getChildPages("1234")).thenReturn(singletonList(existingPage));
+        when(confluenceRestClientMock.getChildPages(eq("1234"), anyCollectionOf(String.class))).thenReturn(singletonList(existingPage));
         when(confluenceRestClientMock.getPageByTitle("~personalSpace", "Some Confluence Content")).thenReturn("12");
         when(confluenceRestClientMock.getPageWithContentAndVersionById("12")).thenReturn(existingPage);
         when(confluenceRestClientMock.getPropertyByKey("12", CONTENT_HASH_PROPERTY_KEY)).thenReturn(null);
@@ -490,15 +708,116 @@ public class ConfluencePublisherTest {
         verify(confluenceRestClientMock, times(1)).setPropertyByKey("12", CONTENT_HASH_PROPERTY_KEY, SOME_CONFLUENCE_CONTENT_SHA256_HASH);
     }
 
+    @Test
+    public void publish_pageWithChangedLabels_addsMissingLabelsAtOnceAndDeletesOnlyRemovedLabels() {
+        // arrange
+        ConfluencePage existingPage = new ConfluencePage("12", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 1);
+
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+        when(confluenceRestClientMock.getChildPages(eq("72189173"), anyCollectionOf(String.class))).thenReturn(singletonList(existingPage));
+        when(confluenceRestClientMock.getPageWithContentAndVersionById("12")).thenReturn(existingPage);
+        when(confluenceRestClientMock.getPropertyByKey("12", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
+        when(confluenceRestClientMock.getPropertyByKey("12", LABELS_PROPERTY_KEY)).thenReturn("api,old-label");
+        when(confluenceRestClientMock.getLabelsFromPage("12")).thenReturn(asList(
+                new ConfluenceLabel("global", "api", "1"),
+                new ConfluenceLabel("global", "old-label", "2"),
+                new ConfluenceLabel("global", "manual-label", "3")));
+
+        ConfluencePublisher confluencePublisher = new ConfluencePublisher(streamingMetadata("one-page-with-labels"), APPEND_TO_ANCESTOR, confluenceRestClientMock);
+
+        // act
+        confluencePublisher.publish();
+
+        // assert
+        verify(confluenceRestClientMock).addLabelsToPage("12", asList("docs", "new-label"));
+        verify(confluenceRestClientMock).deleteLabelFromPage("12", "old-label");
+        verify(confluenceRestClientMock, never()).deleteLabelFromPage("12", "manual-label");
+        verify(confluenceRestClientMock, never()).addLabelToPage(anyString(), anyString());
+        verify(confluenceRestClientMock).updatePropertyByKey("12", LABELS_PROPERTY_KEY, "api,docs,new-label", 1);
+    }
+
+    @Test
+    public void publish_pageWithUnchangedLabels_doesNotFetchLabels() {
+        // arrange
+        ConfluencePage existingPage = new ConfluencePage("12", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 1);
+
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+        when(confluenceRestClientMock.getChildPages(eq("72189173"), anyCollectionOf(String.class))).thenReturn(singletonList(existingPage));
+        when(confluenceRestClientMock.getPageWithContentAndVersionById("12")).thenReturn(existingPage);
+        when(confluenceRestClientMock.getPropertyByKey("12", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
+        when(confluenceRestClientMock.getPropertyByKey("12", LABELS_PROPERTY_KEY)).thenReturn("api,docs,new-label");
+
+        ConfluencePublisher confluencePublisher = new ConfluencePublisher(streamingMetadata("one-page-with-labels"), APPEND_TO_ANCESTOR, confluenceRestClientMock);
+
+        // act
+        confluencePublisher.publish();
+
+        // assert
+        verify(confluenceRestClientMock, never()).getLabelsFromPage(anyString());
+        verify(confluenceRestClientMock, never()).addLabelsToPage(anyString(), anyCollectionOf(String.class));
+        verify(confluenceRestClientMock, never()).deleteLabelFromPage(anyString(), anyString());
+    }
+
+    @Test
+    public void publish_pageRetitledInMetadata_updatesTitleOfChildPageWithSameIdentity() {
+        // arrange
+        ConfluencePage existingPage = new ConfluencePage("12", "Old Title", null, 1, singletonMap(PAGE_IDENTITY_PROPERTY_KEY, "some-confluence-content.html"));
+
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+        when(confluenceRestClientMock.getChildPages(eq("1234"), anyCollectionOf(String.class))).thenReturn(singletonList(existingPage));
+        when(confluenceRestClientMock.getPageWithContentAndVersionById("12")).thenReturn(existingPage);
+        when(confluenceRestClientMock.getPropertyByKey("12", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
+
+        ConfluencePublisher confluencePublisher = new ConfluencePublisher(streamingMetadata("one-page-space-key"), APPEND_TO_ANCESTOR, confluenceRestClientMock);
+
+        // act
+        confluencePublisher.publish();
+
+        // assert
+        verify(confluenceRestClientMock).updatePage(eq("12"), eq("1234"), eq("Some Confluence Content"), eq("<h1>Some Confluence Content</h1>"), eq(2), any());
+        verify(confluenceRestClientMock, never()).getPageByTitle(anyString(), anyString());
+        verify(confluenceRestClientMock, never()).addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), any());
+        verify(confluenceRestClientMock, never()).deletePage(anyString());
+    }
+
+    @Test
+    public void publish_pageMovedToOtherParentInMetadata_updatesAncestorOfExistingPage() {
+        // arrange
+        ConfluencePage existingParentPage = new ConfluencePage("2", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 1);
+        ConfluencePage existingMovedPage = new ConfluencePage("3", "Some Child Content", "<h1>Some Child Content</h1>", 4);
+
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
+        when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
+        when(confluenceRestClientMock.getChildPages(eq("72189173"), anyCollectionOf(String.class))).thenReturn(asList(existingParentPage, existingMovedPage));
+        when(confluenceRestClientMock.getPageByTitle("~personalSpace", "Some Child Content")).thenReturn("3");
+        when(confluenceRestClientMock.getPageWithContentAndVersionById("2")).thenReturn(existingParentPage);
+        when(confluenceRestClientMock.getPropertyByKey("2", CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
+        when(confluenceRestClientMock.getPageWithContentAndVersionById("3")).thenReturn(existingMovedPage);
+
+        ConfluencePublisher confluencePublisher = new ConfluencePublisher(streamingMetadata("root-ancestor-id-multiple-pages"), APPEND_TO_ANCESTOR, confluenceRestClientMock);
+
+        // act
+        confluencePublisher.publish();
+
+        // assert
+        verify(confluenceRestClientMock).updatePage(eq("3"), eq("2"), eq("Some Child Content"), anyString(), eq(5), any());
+        verify(confluenceRestClientMock).updatePropertyByKey("3", PAGE_IDENTITY_PROPERTY_KEY, "some-child-content.html", 0);
+        verify(confluenceRestClientMock, never()).addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), any());
+        verify(confluenceRestClientMock, never()).deletePage(anyString());
+    }
+
     @Test
     public void publish_metadataWithMultipleRemovedPagesInHierarchy_sendsDeletePageRequestForEachRemovedPage() {
         // arrange
         ConfluencePage existingParentPage = new ConfluencePage("2345", "Some Confluence Content", "<h1>Some Confluence Content</1>", 2);
         ConfluencePage existingChildPage = new ConfluencePage("3456", "Some Child Content", "<h1>Some Child Content</1>", 3);
 
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
-        when(confluenceRestClientMock.getChildPages("1234")).thenReturn(singletonList(existingParentPage));
+        when(confluenceRestClientMock.getChildPages(eq("1234"), anyCollectionOf(String.class))).thenReturn(singletonList(existingParentPage));
         when(confluenceRestClientMock.getChildPages("2345")).thenReturn(singletonList(existingChildPage));
 
         ConfluencePublisherListener confluencePublisherListenerMock = mock(ConfluencePublisherListener.class);
@@ -510,9 +829,11 @@ public class ConfluencePublisherTest {
 
         // assert
         verify(confluenceRestClientMock, times(1)).deletePage(eq("2345"));
+        verify(confluenceRestClientMock, times(1)).deletePage(eq("3456"));
 
         verify(confluencePublisherListenerMock, times(1)).pageDeleted(eq(new ConfluencePage("2345", "Some Confluence Content", "<h1>Some Confluence Content</1>", 2)));
         verify(confluencePublisherListenerMock, times(1)).pageDeleted(eq(new ConfluencePage("3456", "Some Child Content", "<h1>Some Child Content</1>", 3)));
+        verify(confluencePublisherListenerMock, times(1)).pagesDeleted("1234", 2, 4);
         verify(confluencePublisherListenerMock, times(1)).publishCompleted();
         verifyNoMoreInteractions(confluencePublisherListenerMock);
     }
@@ -523,9 +844,9 @@ public class ConfluencePublisherTest {
         ConfluencePage existingParentPage = new ConfluencePage("2345", "Some Confluence Content", "<h1>Some Confluence Content</1>", 2);
         ConfluencePage existingChildPage = new ConfluencePage("3456", "Some Child Content", "<h1>Some Child Content</1>", 3);
 
-        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        ConfluenceRestClient confluenceRestClientMock = confluenceRestClientMock();
         when(confluenceRestClientMock.getConfluenceRootUrl()).thenReturn("https://myconfluence/");
-        when(confluenceRestClientMock.getChildPages("1234")).thenReturn(singletonList(existingParentPage));
+        when(confluenceRestClientMock.getChildPages(eq("1234"), anyCollectionOf(String.class))).thenReturn(singletonList(existingParentPage));
         when(confluenceRestClientMock.getChildPages("2345")).thenReturn(singletonList(existingChildPage));
 
         ConfluencePublisherListener confluencePublisherListenerMock = mock(ConfluencePublisherListener.class);
@@ -543,6 +864,24 @@ public class ConfluencePublisherTest {
         verifyNoMoreInteractions(confluencePublisherListenerMock);
     }
 
+    private static ConfluenceRestClient confluenceRestClientMock() {
+        ConfluenceRestClient confluenceRestClientMock = mock(ConfluenceRestClient.class);
+        when(confluenceRestClientMock.getPropertiesByKey(anyString(), anyCollectionOf(String.class))).thenAnswer((invocation) -> {
+            String contentId = (String) invocation.getArguments()[0];
+            Map<String, ConfluenceProperty> properties = new HashMap<>();
+            ((Collection<?>) invocation.getArguments()[1]).forEach((key) -> {
+                String value = confluenceRestClientMock.getPropertyByKey(contentId, (String) key);
+                if (value != null) {
+                    properties.put((String) key, new ConfluenceProperty((String) key, value, 1));
+                }
+            });
+
+            return properties;
+        });
+
+        return confluenceRestClientMock;
+    }
+
     private static ConfluencePublisher confluencePublisher(String qualifier, ConfluenceRestClient confluenceRestClient) {
         return confluencePublisher(qualifier, confluenceRestClient, null, null);
     }
@@ -569,6 +908,12 @@ public class ConfluencePublisherTest {
         return new ConfluencePublisher(metadata, publishingStrategy, confluenceRestClient);
     }
 
+    private static ConfluencePageSource streamingMetadata(String qualifier) {
+        Path metadataFilePath = Paths.get(TEST_RESOURCES + "/metadata-" + qualifier + ".json");
+
+        return new StreamingConfluencePublisherMetadata(metadataFilePath, metadataFilePath.getParent().toAbsolutePath());
+    }
+
     private static ConfluencePublisherMetadata readConfig(Path metadataFile) {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.znerd.confluence.client.benchmark.FakeConfluenceServer;
+import org.znerd.confluence.client.http.ConfluencePage;
+import org.znerd.confluence.client.http.ConfluenceRestClient;
+import org.znerd.confluence.client.metadata.DirectoryConfluencePublisherMetadata;
+import org.znerd.confluence.client.utils.RequestCounter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.znerd.confluence.client.PublishingStrategy.APPEND_TO_ANCESTOR;
+import static org.znerd.confluence.client.utils.RequestBudget.isWithinRequestBudget;
+
+public class ConfluencePublisherWatcherTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeConfluenceServer       server;
+    private RequestCounter             requestCounter;
+    private Path                       root;
+    private UpdatedPageListener        listener;
+    private ConfluencePublisherWatcher watcher;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new FakeConfluenceServer();
+        this.requestCounter = new RequestCounter();
+        this.root = this.temporaryFolder.getRoot().toPath();
+        write(this.root.resolve("Parent.xhtml"), "<p>Parent</p>");
+        write(this.root.resolve("Parent/Child.xhtml"), "<p>Child</p>");
+        write(this.root.resolve("Parent/attachment.txt"), "attachment");
+
+        String ancestorId = this.server.createPage("WATCH", null, "Watch Root", "");
+        ConfluenceRestClient confluenceClient = new ConfluenceRestClient(this.server.getRootConfluenceUrl(), this.requestCounter.countingHttpClient(), "watch", "watch");
+        this.listener = new UpdatedPageListener();
+        ConfluencePublisher confluencePublisher = new ConfluencePublisher(new DirectoryConfluencePublisherMetadata(this.root, "WATCH", ancestorId), APPEND_TO_ANCESTOR, confluenceClient, this.listener, null);
+        this.watcher = new ConfluencePublisherWatcher(confluencePublisher, 50);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.watcher.close();
+        this.server.close();
+    }
+
+    @Test
+    public void republish_editedPage_updatesPageWithKnownVersion() throws IOException {
+        // arrange
+        this.watcher.start();
+        Path childFile = this.root.resolve("Parent/Child.xhtml");
+        write(childFile, "<p>Edited child</p>");
+        this.requestCounter.reset();
+
+        // act
+        this.watcher.republish(singleton(childFile));
+
+        // assert
+        assertThat(this.requestCounter, isWithinRequestBudget()
+                // the subtree hashes of the page and its parent are deleted, so the next publish does not skip them
+                .total(4)
+                .endpoint("PUT /content/{id}", 1)
+                .endpoint("DELETE /content/{id}/property/{key}", 2)
+                .endpoint("POST /content/{id}/property", 1));
+        assertThat(this.listener.updatedPage.get().getContent(), is("<p>Edited child</p>"));
+        assertThat(this.listener.updatedPage.get().getVersion(), is(2));
+    }
+
+    @Test
+    public void republish_touchedButUnchangedFiles_sendsNoRequests() throws IOException {
+        // arrange
+        this.watcher.start();
+        Path childFile = this.root.resolve("Parent/Child.xhtml");
+        Path attachmentFile = this.root.resolve("Parent/attachment.txt");
+        touch(childFile);
+        touch(attachmentFile);
+        this.requestCounter.reset();
+
+        // act
+        this.watcher.republish(singleton(childFile));
+        this.watcher.republish(singleton(attachmentFile));
+
+        // assert
+        assertThat(this.requestCounter.total(), is(0L));
+    }
+
+    @Test
+    public void start_fileSavedAfterwards_republishesChangedPage() throws Exception {
+        // arrange
+        this.watcher.start();
+
+        // act
+        write(this.root.resolve("Parent.xhtml"), "<p>Saved parent</p>");
+
+        // assert
+        assertThat(this.listener.updated.await(30, SECONDS), is(true));
+        assertThat(this.listener.updatedPage.get().getTitle(), is("Parent"));
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(UTF_8));
+        touch(file);
+    }
+
+    private static void touch(Path file) throws IOException {
+        // make every write visible to the size and modification time checks, also on coarse-grained file systems
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 2000 + (long) (Math.random() * 1000)));
+    }
+
+    private static class UpdatedPageListener implements ConfluencePublisherListener {
+
+        private final CountDownLatch                  updated     = new CountDownLatch(1);
+        private final AtomicReference<ConfluencePage> updatedPage = new AtomicReference<>();
+
+        @Override
+        public void pageAdded(ConfluencePage addedPage) {
+        }
+
+        @Override
+        public void pageUpdated(ConfluencePage existingPage, ConfluencePage updatedPage) {
+            this.updatedPage.set(updatedPage);
+            this.updated.countDown();
+        }
+
+        @Override
+        public void pageDeleted(ConfluencePage deletedPage) {
+        }
+
+        @Override
+        public void publishCompleted() {
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.znerd.confluence.client.http.ConfluenceClient;
+import org.znerd.confluence.client.http.ConfluencePage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PageTreeDeleterTest {
+
+    private ParallelRequests parallelRequests;
+
+    @After
+    public void closeParallelRequests() {
+        this.parallelRequests.close();
+    }
+
+    @Test
+    public void delete_subtrees_fetchesChildrenOnceAndDeletesDescendantsBeforeAncestors() {
+        // arrange
+        ConfluencePage parent = page("1");
+        ConfluencePage firstChild = page("11");
+        ConfluencePage secondChild = page("12");
+        ConfluencePage grandChild = page("111");
+        ConfluencePage otherRoot = page("2");
+
+        ConfluenceClient confluenceClientMock = mock(ConfluenceClient.class);
+        when(confluenceClientMock.getChildPages(anyString())).thenReturn(emptyList());
+        when(confluenceClientMock.getChildPages("1")).thenReturn(asList(firstChild, secondChild));
+        when(confluenceClientMock.getChildPages("11")).thenReturn(singletonList(grandChild));
+
+        List<ConfluencePage> deletedPages = new ArrayList<>();
+        PageTreeDeleter pageTreeDeleter = new PageTreeDeleter(confluenceClientMock);
+        this.parallelRequests = new ParallelRequests(3, "test-page-deleter-", "delete pages");
+
+        // act
+        int requests = pageTreeDeleter.delete(asList(parent, otherRoot), this.parallelRequests, deletedPages::add);
+
+        // assert
+        assertThat(requests, is(10));
+        assertThat(deletedPages, containsInAnyOrder(grandChild, firstChild, secondChild, parent, otherRoot));
+        asList("1", "11", "12", "111", "2").forEach((contentId) -> verify(confluenceClientMock, times(1)).getChildPages(contentId));
+
+        InOrder inOrder = inOrder(confluenceClientMock);
+        inOrder.verify(confluenceClientMock).deletePage("111");
+        inOrder.verify(confluenceClientMock).deletePage("11");
+        inOrder.verify(confluenceClientMock).deletePage("1");
+    }
+
+    @Test
+    public void delete_failingRequest_propagatesExceptionWithoutDeletingAncestors() {
+        // arrange
+        ConfluenceClient confluenceClientMock = mock(ConfluenceClient.class);
+        when(confluenceClientMock.getChildPages(anyString())).thenReturn(emptyList());
+        when(confluenceClientMock.getChildPages("1")).thenReturn(asList(page("11"), page("12")));
+        doThrow(new IllegalStateException("boom")).when(confluenceClientMock).deletePage("12");
+        PageTreeDeleter pageTreeDeleter = new PageTreeDeleter(confluenceClientMock);
+        this.parallelRequests = new ParallelRequests(2, "test-page-deleter-", "delete pages");
+
+        try {
+            // act
+            pageTreeDeleter.delete(singletonList(page("1")), this.parallelRequests, (deletedPage) -> {
+            });
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // assert
+            assertThat(e.getMessage(), is("boom"));
+        }
+        verify(confluenceClientMock, times(0)).deletePage("1");
+    }
+
+    @Test
+    public void delete_failingRequest_reportsPagesDeletedBeforeFailure() {
+        // arrange
+        ConfluencePage firstChild = page("11");
+        ConfluenceClient confluenceClientMock = mock(ConfluenceClient.class);
+        when(confluenceClientMock.getChildPages(anyString())).thenReturn(emptyList());
+        when(confluenceClientMock.getChildPages("1")).thenReturn(asList(firstChild, page("12")));
+        doThrow(new IllegalStateException("boom")).when(confluenceClientMock).deletePage("12");
+        List<ConfluencePage> deletedPages = new ArrayList<>();
+        PageTreeDeleter pageTreeDeleter = new PageTreeDeleter(confluenceClientMock);
+        this.parallelRequests = new ParallelRequests(2, "test-page-deleter-", "delete pages");
+
+        try {
+            // act
+            pageTreeDeleter.delete(singletonList(page("1")), this.parallelRequests, deletedPages::add);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // assert
+            assertThat(deletedPages, contains(firstChild));
+        }
+    }
+
+    private static ConfluencePage page(String contentId) {
+        return new ConfluencePage(contentId, "Page " + contentId, "", 1);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PublishJournalTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void isCompleted_pageJournaledByEarlierRun_matchesOnlySameVersionAndFingerprint() {
+        // arrange
+        Path journalFile = this.temporaryFolder.getRoot().toPath().resolve("publish.journal");
+        try (PublishJournal journal = PublishJournal.open(journalFile, false)) {
+            journal.pageCompleted("1234", 3, "fingerprint");
+        }
+
+        // act
+        try (PublishJournal resumedJournal = PublishJournal.open(journalFile, true)) {
+
+            // assert
+            assertThat(resumedJournal.isCompleted("1234", 3, "fingerprint"), is(true));
+            assertThat(resumedJournal.isCompleted("1234", 4, "fingerprint"), is(false));
+            assertThat(resumedJournal.isCompleted("1234", 3, "other-fingerprint"), is(false));
+            assertThat(resumedJournal.isCompleted("5678", 3, "fingerprint"), is(false));
+        }
+    }
+
+    @Test
+    public void open_withLineCutOffByCrash_dropsThatLineAndAppendsAfterLastCompleteLine() throws IOException {
+        // arrange
+        Path journalFile = this.temporaryFolder.getRoot().toPath().resolve("publish.journal");
+        try (PublishJournal journal = PublishJournal.open(journalFile, false)) {
+            journal.pageCompleted("1234", 3, "fingerprint");
+        }
+        Files.write(journalFile, "page\t5678\t1\tfinger".getBytes(UTF_8), APPEND);
+
+        // act
+        try (PublishJournal resumedJournal = PublishJournal.open(journalFile, true)) {
+            resumedJournal.pageCompleted("9012", 1, "fingerprint");
+        }
+
+        // assert
+        assertThat(new String(Files.readAllBytes(journalFile), UTF_8), is("page\t1234\t3\tfingerprint\npage\t9012\t1\tfingerprint\n"));
+    }
+
+    @Test
+    public void open_withoutResume_discardsPagesOfEarlierRun() {
+        // arrange
+        Path journalFile = this.temporaryFolder.getRoot().toPath().resolve("publish.journal");
+        try (PublishJournal journal = PublishJournal.open(journalFile, false)) {
+            journal.pageCompleted("1234", 3, "fingerprint");
+        }
+
+        // act
+        try (PublishJournal journal = PublishJournal.open(journalFile, false)) {
+
+            // assert
+            assertThat(journal.isCompleted("1234", 3, "fingerprint"), is(false));
+        }
+    }
+
+    @Test
+    public void delete_afterCompletedRun_removesJournalFile() {
+        // arrange
+        Path journalFile = this.temporaryFolder.getRoot().toPath().resolve("publish.journal");
+        PublishJournal journal = PublishJournal.open(journalFile, false);
+        journal.pageCompleted("1234", 3, "fingerprint");
+
+        // act
+        journal.delete();
+
+        // assert
+        assertThat(Files.exists(journalFile), is(false));
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
+import org.znerd.confluence.client.metadata.FileConfluencePageMetadata;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.znerd.confluence.client.PublishedPageTree.NO_PARENT;
+
+public class PublishedPageTreeTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void add_numericAndNonNumericContentIds_returnsContentIdsAndAncestorIds() throws IOException {
+        // arrange
+        PublishedPageTree pageTree = new PublishedPageTree("~SPACE", "42");
+
+        // act
+        int root = pageTree.add(NO_PARENT, page("Root"), "1234");
+        int child = pageTree.add(root, page("Child"), "abc-1");
+        int grandChild = pageTree.add(child, page("Grand Child"), "0099");
+
+        // assert
+        assertThat(pageTree.contentId(root), is("1234"));
+        assertThat(pageTree.contentId(child), is("abc-1"));
+        assertThat(pageTree.contentId(grandChild), is("0099"));
+        assertThat(pageTree.ancestorId(root), is("42"));
+        assertThat(pageTree.ancestorId(child), is("1234"));
+        assertThat(pageTree.ancestorId(grandChild), is("abc-1"));
+        assertThat(pageTree.lastIndexOf("abc-1"), is(child));
+    }
+
+    @Test
+    public void children_compactedTree_returnsChildIndicesInPublishOrder() throws IOException {
+        // arrange
+        PublishedPageTree pageTree = new PublishedPageTree("~SPACE", "42");
+        int first = pageTree.add(NO_PARENT, page("First"), "1");
+        int firstChild = pageTree.add(first, page("First Child"), "2");
+        int second = pageTree.add(NO_PARENT, page("Second"), "3");
+        int secondChild = pageTree.add(first, page("Second Child"), "4");
+
+        // act
+        pageTree.compact();
+
+        // assert
+        assertThat(pageTree.children(NO_PARENT), is(new int[]{first, second}));
+        assertThat(pageTree.children(first), is(new int[]{firstChild, secondChild}));
+        assertThat(pageTree.children(second), is(new int[0]));
+        assertThat(pageTree.page(first).getChildren().get(1).getTitle(), is("Second Child"));
+    }
+
+    @Test
+    public void page_withContentFile_readsContentFileWithoutRetainingMetadata() throws IOException {
+        // arrange
+        PublishedPageTree pageTree = new PublishedPageTree("~SPACE", "42");
+        FileConfluencePageMetadata page = page("Page");
+        page.setAttachments(singletonMap("attachment.txt", "/attachments/attachment.txt"));
+        page.setLabels(asList("label-one", "label-two"));
+        int index = pageTree.add(NO_PARENT, page, "1");
+
+        // act
+        ConfluencePageMetadata publishedPage = pageTree.compact().page(index);
+
+        // assert
+        assertThat(publishedPage, is(not(sameInstance(page))));
+        assertThat(publishedPage.getTitle(), is("Page"));
+        assertThat(publishedPage.getContent(), is("<p>Page</p>"));
+        assertThat(publishedPage.getContentHash(), is(page.getContentHash()));
+        assertThat(publishedPage.getAttachments(), is((Map<String, String>) singletonMap("attachment.txt", "/attachments/attachment.txt")));
+        assertThat(publishedPage.getLabels(), contains("label-one", "label-two"));
+        assertThat(pageTree.pageInfo(index), is(pageTree.pageInfo(index)));
+    }
+
+    @Test
+    public void page_withContentFile_returnsIdentityOfPage() throws IOException {
+        // arrange
+        PublishedPageTree pageTree = new PublishedPageTree("~SPACE", "42");
+        FileConfluencePageMetadata page = page("Page");
+        FileConfluencePageMetadata pageWithIdentity = page("Page With Identity");
+        pageWithIdentity.setIdentity("page-with-identity");
+        int index = pageTree.add(NO_PARENT, page, "1");
+        int indexWithIdentity = pageTree.add(NO_PARENT, pageWithIdentity, "2");
+
+        // act
+        pageTree.compact();
+
+        // assert
+        assertThat(pageTree.page(index).getIdentity(), is(page.getContentFilePath()));
+        assertThat(pageTree.page(indexWithIdentity).getIdentity(), is("page-with-identity"));
+    }
+
+    @Test
+    public void page_withContentFileInOtherEncoding_readsContentFileInThatEncoding() throws IOException {
+        // arrange
+        PublishedPageTree pageTree = new PublishedPageTree("~SPACE", "42");
+        Path contentFile = this.temporaryFolder.newFile().toPath();
+        Files.write(contentFile, "<p>Caf\u00e9</p>".getBytes(ISO_8859_1));
+        ConfluencePageMetadata page = new ConfluencePageMetadata() {
+
+            @Override
+            public String getTitle() {
+                return "Latin-1 Page";
+            }
+
+            @Override
+            public String getContent() {
+                return "<p>Caf\u00e9</p>";
+            }
+
+            @Override
+            public String getContentFilePath() {
+                return contentFile.toString();
+            }
+
+            @Override
+            public Charset getContentEncoding() {
+                return ISO_8859_1;
+            }
+
+            @Override
+            public List<ConfluencePageMetadata> getChildren() {
+                return emptyList();
+            }
+
+            @Override
+            public Map<String, String> getAttachments() {
+                return emptyMap();
+            }
+        };
+        int index = pageTree.add(NO_PARENT, page, "1");
+
+        // act
+        ConfluencePageMetadata publishedPage = pageTree.compact().page(index);
+
+        // assert
+        assertThat(publishedPage.getContentEncoding(), is(ISO_8859_1));
+        assertThat(publishedPage.getContent(), is("<p>Caf\u00e9</p>"));
+    }
+
+    @Test
+    public void page_withoutContentFile_returnsRetainedMetadata() {
+        // arrange
+        PublishedPageTree pageTree = new PublishedPageTree("~SPACE", "42");
+        FileConfluencePageMetadata page = new FileConfluencePageMetadata();
+        page.setTitle("In Memory");
+
+        // act
+        int index = pageTree.add(NO_PARENT, page, "1");
+
+        // assert
+        assertThat(pageTree.page(index), is(sameInstance(page)));
+        assertThat(pageTree.compact().pageInfos(), contains(new PublishedPageInfo("~SPACE", "42", page, "1")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void add_compactedTree_throwsIllegalStateException() throws IOException {
+        // arrange
+        PublishedPageTree pageTree = new PublishedPageTree("~SPACE", "42").compact();
+
+        // act
+        pageTree.add(NO_PARENT, page("Page"), "1");
+    }
+
+    private FileConfluencePageMetadata page(String title) throws IOException {
+        Path contentFile = this.temporaryFolder.newFile().toPath();
+        Files.write(contentFile, ("<p>" + title + "</p>").getBytes(UTF_8));
+        FileConfluencePageMetadata page = new FileConfluencePageMetadata();
+        page.setTitle(title);
+        page.setContentFilePath(contentFile.toString());
+
+        return page;
+    }
+}
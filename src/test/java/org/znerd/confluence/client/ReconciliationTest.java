@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ReconciliationTest {
+
+    @Test
+    public void reconcile_overlappingSets_partitionsInOrderOfTheirSet() {
+        // arrange
+        List<String> local = asList("c", "a", "d", "b");
+        List<String> remote = asList("b=2", "e=5", "a=1", "f=6", "d=4");
+
+        // act
+        Reconciliation<String, String> reconciliation = Reconciliation.reconcile(local, identity(), remote, (item) -> item.substring(0, 1));
+
+        // assert
+        assertThat(reconciliation.toAdd(), contains("c"));
+        assertThat(remoteItems(reconciliation.toUpdate()), contains("a=1", "d=4", "b=2"));
+        assertThat(reconciliation.toDelete(), contains("e=5", "f=6"));
+    }
+
+    @Test
+    public void reconcile_sameKeys_updatesAllMatches() {
+        // act
+        Reconciliation<String, String> reconciliation = Reconciliation.reconcile(asList("a", "b"), identity(), asList("b", "a"), identity());
+
+        // assert
+        assertThat(reconciliation.toUpdate().stream().map(Reconciliation.Match::getLocal).collect(toList()), contains("a", "b"));
+        assertThat(reconciliation.toAdd(), is(empty()));
+        assertThat(reconciliation.toDelete(), is(empty()));
+    }
+
+    @Test
+    public void reconcile_largeSiblingSets_partitionsAllItems() {
+        // arrange
+        List<Integer> local = new ArrayList<>();
+        List<Integer> remote = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            local.add(i);
+            remote.add(i + 100_000);
+        }
+
+        // act
+        Reconciliation<Integer, Integer> reconciliation = Reconciliation.reconcile(local, String::valueOf, remote, String::valueOf);
+
+        // assert
+        assertThat(reconciliation.toAdd().size(), is(100_000));
+        assertThat(reconciliation.toUpdate().size(), is(100_000));
+        assertThat(reconciliation.toDelete().size(), is(100_000));
+    }
+
+    private static List<String> remoteItems(List<Reconciliation.Match<String, String>> matches) {
+        return matches.stream().map(Reconciliation.Match::getRemote).collect(toList());
+    }
+}
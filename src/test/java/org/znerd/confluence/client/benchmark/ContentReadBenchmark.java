@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.benchmark;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.znerd.confluence.client.utils.IoUtils;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+
+/**
+ * Compares reading and hashing page content through {@link IoUtils} with the former line-by-line implementation, for
+ * small, medium and memory-mapped file sizes. Not part of the default build; run it with {@code mvn -Pbenchmark test}.
+ * The JMH report is written to {@code target/benchmark/content-read-benchmark.json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentReadBenchmark {
+
+    @Param({"4096", "262144", "8388608"})
+    public int fileSize;
+
+    private Path file;
+
+    @Test
+    public void run() throws Exception {
+        Path report = Paths.get(System.getProperty("benchmark.contentReport", "target/benchmark/content-read-benchmark.json"));
+        Files.createDirectories(report.getParent());
+
+        new Runner(new OptionsBuilder()
+                .include(ContentReadBenchmark.class.getName())
+                .resultFormat(ResultFormatType.JSON)
+                .result(report.toString())
+                .build())
+                .run();
+    }
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        StringBuilder content = new StringBuilder(this.fileSize);
+        Random random = new Random(42L);
+        while (content.length() < this.fileSize) {
+            content.append("<p>Paragraph ").append(random.nextInt()).append(" with some text to publish.</p>\r\n");
+        }
+        content.setLength(this.fileSize);
+
+        this.file = Files.createTempFile("content-read-benchmark", ".html");
+        Files.write(this.file, content.toString().getBytes(UTF_8));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.delete(this.file);
+    }
+
+    @Benchmark
+    public String readLineByLine() throws IOException {
+        return lineByLineFileContent(this.file);
+    }
+
+    @Benchmark
+    public String readNio() {
+        return IoUtils.fileContent(this.file, UTF_8);
+    }
+
+    @Benchmark
+    public String hashLineByLineContent() throws IOException {
+        return sha256Hex(lineByLineFileContent(this.file));
+    }
+
+    @Benchmark
+    public String hashInputStream() throws IOException {
+        try (InputStream inputStream = new FileInputStream(this.file.toFile())) {
+            return sha256Hex(inputStream);
+        }
+    }
+
+    @Benchmark
+    public String hashNio() {
+        return IoUtils.sha256Hex(this.file);
+    }
+
+    private static String lineByLineFileContent(Path file) throws IOException {
+        try (BufferedReader buffer = new BufferedReader(new InputStreamReader(new FileInputStream(file.toFile()), UTF_8))) {
+            return buffer.lines().collect(Collectors.joining("\n"));
+        }
+    }
+}
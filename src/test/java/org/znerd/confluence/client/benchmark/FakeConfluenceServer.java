@@ -0,0 +1,619 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static org.apache.http.entity.ContentType.APPLICATION_JSON;
+import static org.znerd.confluence.client.utils.EndpointUtils.endpointTemplate;
+
+/**
+ * In-process stand-in for the subset of the Confluence REST API used by the client. Keeps all state in memory and
+ * counts requests and body bytes, so publish scenarios can be measured without a real Confluence instance.
+ */
+public final class FakeConfluenceServer implements AutoCloseable {
+
+    private static final String REST_API_CONTEXT = "/rest/api";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer httpServer;
+
+    private final Map<String, Page> pages = new HashMap<>();
+    private final Map<String, String> pageIdsByTitle = new HashMap<>();
+    private final Map<String, Set<Long>> childPageIds = new HashMap<>();
+    private final Map<String, Attachment> attachments = new HashMap<>();
+    private final Map<String, Map<String, Attachment>> attachmentsByPage = new HashMap<>();
+    private final Map<String, Map<String, Property>> properties = new HashMap<>();
+    private final Map<String, Map<String, String>> labels = new HashMap<>();
+    private final Map<String, Long> requestCountsByEndpoint = new TreeMap<>();
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    private long nextId = 1000;
+
+    public FakeConfluenceServer() {
+        this.httpServer = ServerBootstrap.bootstrap()
+                .setLocalAddress(InetAddress.getLoopbackAddress())
+                .setListenerPort(0)
+                .setSocketConfig(SocketConfig.custom().setTcpNoDelay(true).build())
+                .registerHandler(REST_API_CONTEXT + "/*", this::handle)
+                .create();
+        try {
+            this.httpServer.start();
+        } catch (final IOException e) {
+            throw new RuntimeException("Could not start fake Confluence server", e);
+        }
+    }
+
+    public String getRootConfluenceUrl() {
+        return "http://" + this.httpServer.getInetAddress().getHostAddress() + ":" + this.httpServer.getLocalPort();
+    }
+
+    public synchronized String createPage(final String spaceKey, final String parentId, final String title, final String content) {
+        final String id = nextId();
+        putPage(new Page(id, spaceKey, parentId, title, content, 1));
+        return id;
+    }
+
+    public synchronized int getPageCount() {
+        return this.pages.size();
+    }
+
+    public synchronized int getAttachmentCount() {
+        return this.attachments.size();
+    }
+
+    public synchronized long getRequestCount() {
+        return this.requestCountsByEndpoint.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public synchronized Map<String, Long> getRequestCountsByEndpoint() {
+        return new TreeMap<>(this.requestCountsByEndpoint);
+    }
+
+    public long getRequestBytes() {
+        return this.requestBytes.get();
+    }
+
+    public long getResponseBytes() {
+        return this.responseBytes.get();
+    }
+
+    public synchronized void resetStatistics() {
+        this.requestCountsByEndpoint.clear();
+        this.requestBytes.set(0);
+        this.responseBytes.set(0);
+    }
+
+    @Override
+    public void close() {
+        this.httpServer.shutdown(0, TimeUnit.SECONDS);
+    }
+
+    private void handle(final HttpRequest request, final HttpResponse httpResponse, final HttpContext context) throws IOException {
+        final byte[] requestBody = request instanceof HttpEntityEnclosingRequest
+                ? EntityUtils.toByteArray(((HttpEntityEnclosingRequest) request).getEntity())
+                : new byte[0];
+        this.requestBytes.addAndGet(requestBody.length);
+
+        final String method = request.getRequestLine().getMethod();
+        final URI requestUri = URI.create(request.getRequestLine().getUri());
+        final String path = requestUri.getPath().substring(REST_API_CONTEXT.length());
+        final Map<String, String> query = parseQuery(requestUri.getRawQuery());
+
+        Response response;
+        synchronized (this) {
+            this.requestCountsByEndpoint.merge(method + " " + endpointTemplate(path), 1L, Long::sum);
+            try {
+                response = dispatch(method, path.split("/"), query, requestBody);
+            } catch (final IOException | RuntimeException e) {
+                response = new Response(500, null);
+            }
+        }
+
+        httpResponse.setStatusCode(response.status);
+        if (response.body != null) {
+            final byte[] responseBody = this.objectMapper.writeValueAsBytes(response.body);
+            this.responseBytes.addAndGet(responseBody.length);
+            httpResponse.setEntity(new ByteArrayEntity(responseBody, APPLICATION_JSON));
+        }
+    }
+
+    private Response dispatch(final String method, final String[] segments, final Map<String, String> query, final byte[] requestBody) throws IOException {
+        // segments: "", "content", [id, [child|property|label, ...]]
+        if (segments.length < 2 || !segments[1].equals("content")) {
+            return new Response(404, null);
+        }
+        if (segments.length == 2) {
+            switch (method) {
+                case "GET":
+                    return findPagesByTitle(query.get("spaceKey"), query.get("title"));
+                case "POST":
+                    return addPage(this.objectMapper.readTree(requestBody));
+                default:
+                    return new Response(405, null);
+            }
+        }
+
+        final String contentId = segments[2];
+        if (segments.length == 3) {
+            switch (method) {
+                case "GET":
+                    return getPage(contentId);
+                case "PUT":
+                    return updatePage(contentId, this.objectMapper.readTree(requestBody));
+                case "DELETE":
+                    return deleteContent(contentId);
+                default:
+                    return new Response(405, null);
+            }
+        }
+
+        switch (segments[3]) {
+            case "child":
+                if (segments.length >= 5 && segments[4].equals("page") && method.equals("GET")) {
+                    return getChildPages(contentId, query);
+                }
+                if (segments.length >= 5 && segments[4].equals("attachment")) {
+                    return dispatchAttachment(method, contentId, segments, query, requestBody);
+                }
+                return new Response(404, null);
+            case "property":
+                return dispatchProperty(method, contentId, segments.length > 4 ? segments[4] : null, query, requestBody);
+            case "label":
+                return dispatchLabel(method, contentId, segments.length > 4 ? segments[4] : null, requestBody);
+            default:
+                return new Response(404, null);
+        }
+    }
+
+    private Response findPagesByTitle(final String spaceKey, final String title) {
+        final ArrayNode results = this.objectMapper.createArrayNode();
+        final String id = this.pageIdsByTitle.get(titleKey(spaceKey, title));
+        if (id != null) {
+            results.add(pageNode(this.pages.get(id), false));
+        }
+
+        return new Response(200, resultsNode(results));
+    }
+
+    private Response addPage(final JsonNode payload) {
+        final String spaceKey = payload.path("space").path("key").asText();
+        final String title = payload.path("title").asText();
+        final String parentId = payload.path("ancestors").path(0).path("id").asText(null);
+        if (this.pageIdsByTitle.containsKey(titleKey(spaceKey, title))) {
+            return new Response(400, null);
+        }
+
+        final String id = nextId();
+        putPage(new Page(id, spaceKey, parentId, title, payload.path("body").path("storage").path("value").asText(), 1));
+
+        final ObjectNode response = this.objectMapper.createObjectNode();
+        response.put("id", id);
+        return new Response(200, response);
+    }
+
+    private Response getPage(final String contentId) {
+        final Page page = this.pages.get(contentId);
+        if (page == null) {
+            return new Response(404, null);
+        }
+
+        return new Response(200, pageNode(page, true));
+    }
+
+    private Response updatePage(final String contentId, final JsonNode payload) {
+        final Page page = this.pages.get(contentId);
+        if (page == null) {
+            return new Response(404, null);
+        }
+        final int newVersion = payload.path("version").path("number").asInt();
+        if (newVersion != page.version + 1) {
+            return new Response(409, null);
+        }
+
+        final String title = payload.path("title").asText();
+        final String existingId = this.pageIdsByTitle.get(titleKey(page.spaceKey, title));
+        if (existingId != null && !existingId.equals(contentId)) {
+            return new Response(400, null);
+        }
+
+        removePage(contentId);
+        page.title = title;
+        page.content = payload.path("body").path("storage").path("value").asText();
+        page.version = newVersion;
+        page.parentId = payload.path("ancestors").path(0).path("id").asText(page.parentId);
+        putPage(page);
+
+        return new Response(200, pageNode(page, false));
+    }
+
+    private Response deleteContent(final String contentId) {
+        final Page page = removePage(contentId);
+        if (page != null) {
+            for (final Long childId : this.childPageIds.getOrDefault(contentId, emptySet()).toArray(new Long[0])) {
+                final Page child = removePage(childId.toString());
+                child.parentId = page.parentId;
+                putPage(child);
+            }
+            this.childPageIds.remove(contentId);
+            this.attachmentsByPage.getOrDefault(contentId, emptyMap()).keySet().forEach(this.attachments::remove);
+            this.attachmentsByPage.remove(contentId);
+            this.properties.remove(contentId);
+            this.labels.remove(contentId);
+            return new Response(204, null);
+        }
+
+        final Attachment attachment = this.attachments.remove(contentId);
+        if (attachment != null) {
+            this.attachmentsByPage.get(attachment.pageId).remove(attachment.title);
+            return new Response(204, null);
+        }
+
+        return new Response(404, null);
+    }
+
+    private void putPage(final Page page) {
+        this.pages.put(page.id, page);
+        this.pageIdsByTitle.put(titleKey(page.spaceKey, page.title), page.id);
+        if (page.parentId != null) {
+            this.childPageIds.computeIfAbsent(page.parentId, ignored -> new TreeSet<>()).add(Long.parseLong(page.id));
+        }
+    }
+
+    private Page removePage(final String contentId) {
+        final Page page = this.pages.remove(contentId);
+        if (page != null) {
+            this.pageIdsByTitle.remove(titleKey(page.spaceKey, page.title));
+            if (page.parentId != null) {
+                this.childPageIds.getOrDefault(page.parentId, emptySet()).remove(Long.parseLong(contentId));
+            }
+        }
+        return page;
+    }
+
+    private Response getChildPages(final String contentId, final Map<String, String> query) {
+        final List<Page> childPages = new ArrayList<>();
+        this.childPageIds.getOrDefault(contentId, emptySet()).forEach(childId -> childPages.add(this.pages.get(childId.toString())));
+
+        final List<String> expandedPropertyKeys = new ArrayList<>();
+        for (final String expand : query.getOrDefault("expand", "").split(",")) {
+            if (expand.startsWith("metadata.properties.")) {
+                expandedPropertyKeys.add(expand.substring("metadata.properties.".length()));
+            }
+        }
+
+        final ArrayNode results = this.objectMapper.createArrayNode();
+        window(childPages, query).forEach(page -> {
+            final ObjectNode pageNode = pageNode(page, false);
+            final Map<String, Property> pageProperties = this.properties.getOrDefault(page.id, emptyMap());
+            expandedPropertyKeys.stream().filter(pageProperties::containsKey).forEach(key ->
+                    pageNode.with("metadata").with("properties").set(key, propertyNode(pageProperties.get(key))));
+            results.add(pageNode);
+        });
+
+        return new Response(200, resultsNode(results));
+    }
+
+    private Response dispatchAttachment(final String method, final String contentId, final String[] segments, final Map<String, String> query, final byte[] requestBody) {
+        if (!this.pages.containsKey(contentId)) {
+            return new Response(404, null);
+        }
+
+        final Map<String, Attachment> attachmentsByTitle = this.attachmentsByPage.computeIfAbsent(contentId, ignored -> new LinkedHashMap<>());
+        if (segments.length == 5 && method.equals("GET")) {
+            final List<Attachment> pageAttachments = new ArrayList<>();
+            if (query.containsKey("filename")) {
+                final Attachment attachment = attachmentsByTitle.get(query.get("filename"));
+                if (attachment != null) {
+                    pageAttachments.add(attachment);
+                }
+            } else {
+                pageAttachments.addAll(attachmentsByTitle.values());
+            }
+
+            final ArrayNode results = this.objectMapper.createArrayNode();
+            window(pageAttachments, query).forEach(attachment -> results.add(attachmentNode(attachment)));
+            return new Response(200, resultsNode(results));
+        }
+
+        if (segments.length == 5 && method.equals("POST")) {
+            final String title = multipartFileName(requestBody);
+            if (attachmentsByTitle.containsKey(title)) {
+                return new Response(400, null);
+            }
+            final Attachment attachment = new Attachment(nextId(), contentId, title, multipartContentLength(requestBody));
+            this.attachments.put(attachment.id, attachment);
+            attachmentsByTitle.put(title, attachment);
+            return new Response(200, resultsNode(this.objectMapper.createArrayNode().add(attachmentNode(attachment))));
+        }
+
+        if (segments.length == 7 && segments[6].equals("data") && method.equals("POST")) {
+            final Attachment attachment = this.attachments.get(segments[5]);
+            if (attachment == null) {
+                return new Response(404, null);
+            }
+            attachment.version++;
+            attachment.size = multipartContentLength(requestBody);
+            return new Response(200, attachmentNode(attachment));
+        }
+
+        return new Response(405, null);
+    }
+
+    private Response dispatchProperty(final String method, final String contentId, final String key, final Map<String, String> query, final byte[] requestBody) throws IOException {
+        if (!this.pages.containsKey(contentId)) {
+            return new Response(404, null);
+        }
+        final Map<String, Property> pageProperties = this.properties.computeIfAbsent(contentId, ignored -> new LinkedHashMap<>());
+
+        switch (method) {
+            case "GET": {
+                if (key == null) {
+                    final ArrayNode results = this.objectMapper.createArrayNode();
+                    window(new ArrayList<>(pageProperties.values()), query).forEach(property -> results.add(propertyNode(property)));
+                    return new Response(200, resultsNode(results));
+                }
+                final Property property = pageProperties.get(key);
+                return property != null ? new Response(200, propertyNode(property)) : new Response(404, null);
+            }
+            case "POST": {
+                final JsonNode payload = this.objectMapper.readTree(requestBody);
+                final String newKey = payload.path("key").asText();
+                if (pageProperties.containsKey(newKey)) {
+                    return new Response(409, null);
+                }
+                final Property property = new Property(newKey, payload.path("value").asText(), 1);
+                pageProperties.put(newKey, property);
+                return new Response(200, propertyNode(property));
+            }
+            case "PUT": {
+                final Property property = key != null ? pageProperties.get(key) : null;
+                if (property == null) {
+                    return new Response(404, null);
+                }
+                final JsonNode payload = this.objectMapper.readTree(requestBody);
+                if (payload.path("version").path("number").asInt() != property.version + 1) {
+                    return new Response(409, null);
+                }
+                property.value = payload.path("value").asText();
+                property.version++;
+                return new Response(200, propertyNode(property));
+            }
+            case "DELETE":
+                return key != null && pageProperties.remove(key) != null ? new Response(204, null) : new Response(404, null);
+            default:
+                return new Response(405, null);
+        }
+    }
+
+    private Response dispatchLabel(final String method, final String contentId, final String name, final byte[] requestBody) throws IOException {
+        if (!this.pages.containsKey(contentId)) {
+            return new Response(404, null);
+        }
+        final Map<String, String> pageLabels = this.labels.computeIfAbsent(contentId, ignored -> new LinkedHashMap<>());
+
+        switch (method) {
+            case "GET": {
+                final ArrayNode results = this.objectMapper.createArrayNode();
+                pageLabels.forEach((labelName, prefix) -> results.add(labelNode(prefix, labelName)));
+                return new Response(200, resultsNode(results));
+            }
+            case "POST": {
+                final JsonNode payload = this.objectMapper.readTree(requestBody);
+                final ArrayNode results = this.objectMapper.createArrayNode();
+                for (final JsonNode label : payload.isArray() ? payload : this.objectMapper.createArrayNode().add(payload)) {
+                    pageLabels.put(label.path("name").asText(), label.path("prefix").asText("global"));
+                }
+                pageLabels.forEach((labelName, prefix) -> results.add(labelNode(prefix, labelName)));
+                return new Response(200, resultsNode(results));
+            }
+            case "DELETE":
+                return name != null && pageLabels.remove(name) != null ? new Response(204, null) : new Response(404, null);
+            default:
+                return new Response(405, null);
+        }
+    }
+
+    private <T> List<T> window(final List<T> items, final Map<String, String> query) {
+        final int start = Integer.parseInt(query.getOrDefault("start", "0"));
+        final int limit = Integer.parseInt(query.getOrDefault("limit", "25"));
+
+        return items.subList(Math.min(start, items.size()), Math.min(start + limit, items.size()));
+    }
+
+    private ObjectNode resultsNode(final ArrayNode results) {
+        final ObjectNode node = this.objectMapper.createObjectNode();
+        node.set("results", results);
+        node.put("size", results.size());
+        return node;
+    }
+
+    private ObjectNode pageNode(final Page page, final boolean withContent) {
+        final ObjectNode node = this.objectMapper.createObjectNode();
+        node.put("id", page.id);
+        node.put("type", "page");
+        node.put("title", page.title);
+        node.putObject("version").put("number", page.version);
+        if (withContent) {
+            node.putObject("body").putObject("storage").put("value", page.content).put("representation", "storage");
+        }
+        return node;
+    }
+
+    private ObjectNode attachmentNode(final Attachment attachment) {
+        final ObjectNode node = this.objectMapper.createObjectNode();
+        node.put("id", attachment.id);
+        node.put("type", "attachment");
+        node.put("title", attachment.title);
+        node.putObject("version").put("number", attachment.version);
+        node.putObject("extensions").put("fileSize", attachment.size);
+        node.putObject("_links").put("download", "/download/attachments/" + attachment.pageId + "/" + attachment.title);
+        return node;
+    }
+
+    private ObjectNode propertyNode(final Property property) {
+        final ObjectNode node = this.objectMapper.createObjectNode();
+        node.put("key", property.key);
+        node.put("value", property.value);
+        node.putObject("version").put("number", property.version);
+        return node;
+    }
+
+    private ObjectNode labelNode(final String prefix, final String name) {
+        final ObjectNode node = this.objectMapper.createObjectNode();
+        node.put("prefix", prefix);
+        node.put("name", name);
+        node.put("id", name);
+        return node;
+    }
+
+    private static String titleKey(final String spaceKey, final String title) {
+        return spaceKey + '\n' + title;
+    }
+
+    private String nextId() {
+        return Long.toString(this.nextId++);
+    }
+
+    private static String multipartFileName(final byte[] body) {
+        final String head = new String(body, 0, Math.min(body.length, 2048), ISO_8859_1);
+        final int start = head.indexOf("filename=\"");
+        if (start < 0) {
+            return null;
+        }
+        final int end = head.indexOf('"', start + 10);
+        return new String(head.substring(start + 10, end).getBytes(ISO_8859_1), UTF_8);
+    }
+
+    private static long multipartContentLength(final byte[] body) {
+        final String head = new String(body, 0, Math.min(body.length, 2048), ISO_8859_1);
+        final String delimiter = head.substring(0, head.indexOf("\r\n"));
+        final int contentStart = head.indexOf("\r\n\r\n") + 4;
+        final int trailerLength = "\r\n".length() + delimiter.length() + "--\r\n".length();
+        return body.length - contentStart - trailerLength;
+    }
+
+    private static Map<String, String> parseQuery(final String rawQuery) {
+        final Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (final String parameter : rawQuery.split("&")) {
+            final int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                query.put(decode(parameter.substring(0, separator)), decode(parameter.substring(separator + 1)));
+            }
+        }
+        return query;
+    }
+
+    private static String decode(final String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (final UnsupportedEncodingException e) {
+            throw new RuntimeException("Could not decode query parameter", e);
+        }
+    }
+
+    private static final class Response {
+        private final int status;
+        private final JsonNode body;
+
+        private Response(final int status, final JsonNode body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static final class Page {
+        private final String id;
+        private final String spaceKey;
+        private String parentId;
+        private String title;
+        private String content;
+        private int version;
+
+        private Page(final String id, final String spaceKey, final String parentId, final String title, final String content, final int version) {
+            this.id = id;
+            this.spaceKey = spaceKey;
+            this.parentId = parentId;
+            this.title = title;
+            this.content = content;
+            this.version = version;
+        }
+    }
+
+    private static final class Attachment {
+        private final String id;
+        private final String pageId;
+        private final String title;
+        private long size;
+        private int version = 1;
+
+        private Attachment(final String id, final String pageId, final String title, final long size) {
+            this.id = id;
+            this.pageId = pageId;
+            this.title = title;
+            this.size = size;
+        }
+    }
+
+    private static final class Property {
+        private final String key;
+        private String value;
+        private int version;
+
+        private Property(final String key, final String value, final int version) {
+            this.key = key;
+            this.value = value;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.Test;
+import org.znerd.confluence.client.ConfluencePublisher;
+import org.znerd.confluence.client.http.ConfluenceRestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.lang.management.MemoryType.HEAP;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.fail;
+import static org.znerd.confluence.client.PublishingStrategy.APPEND_TO_ANCESTOR;
+
+/**
+ * Publishes synthetic page trees against a {@link FakeConfluenceServer} in cold, warm and partial-change scenarios,
+ * writes a JSON report and fails if requests or bytes per page regress against the baseline stored in the repository.
+ * Not part of the default build; run it with {@code mvn -Pbenchmark test}. Wall-clock time and peak heap (which
+ * includes the in-process fake server) are reported but not compared, as they depend on the machine.
+ */
+public class PublishBenchmark {
+
+    private static final String SPACE_KEY = "BENCH";
+    private static final String BASELINE_RESOURCE = "/org/znerd/confluence/client/benchmark/publish-baseline.json";
+    private static final double[] PARTIAL_CHANGE_FRACTIONS = {0.01, 0.10};
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Test
+    public void publish_syntheticPageTrees_staysWithinBaseline() throws Exception {
+        final List<PublishBenchmarkResult> results = new ArrayList<>();
+        for (final int pageCount : intList("benchmark.pages", "100,1000,10000")) {
+            for (final int attachmentsPerPage : intList("benchmark.attachments", "0,2")) {
+                results.addAll(runScenarios(pageCount, Integer.getInteger("benchmark.fanOut", 10), attachmentsPerPage, Integer.getInteger("benchmark.attachmentSize", 4096)));
+            }
+        }
+
+        writeReport(results, Paths.get(System.getProperty("benchmark.report", "target/benchmark/publish-benchmark.json")));
+        assertNoRegressions(results, readBaseline(), Double.parseDouble(System.getProperty("benchmark.tolerance", "0.05")));
+    }
+
+    private List<PublishBenchmarkResult> runScenarios(final int pageCount, final int fanOut, final int attachmentsPerPage, final int attachmentSize) throws IOException {
+        final Path workDirectory = Files.createTempDirectory("confluence-client-benchmark");
+        try (FakeConfluenceServer server = new FakeConfluenceServer()) {
+            final String ancestorId = server.createPage(SPACE_KEY, null, "Benchmark Root", "");
+            final SyntheticPageTree pageTree = new SyntheticPageTree(workDirectory, SPACE_KEY, ancestorId, pageCount, fanOut, attachmentsPerPage, attachmentSize, 42L);
+            final ConfluenceRestClient confluenceClient = new ConfluenceRestClient(server.getRootConfluenceUrl(), false, "benchmark", "benchmark");
+
+            final List<PublishBenchmarkResult> results = new ArrayList<>();
+            results.add(runScenario("cold", 0, pageTree, server, confluenceClient));
+            results.add(runScenario("warm", 0, pageTree, server, confluenceClient));
+            for (final double fraction : PARTIAL_CHANGE_FRACTIONS) {
+                final int changedPages = pageTree.modifyPages(fraction);
+                results.add(runScenario("partial-" + Math.round(fraction * 100) + "%", changedPages, pageTree, server, confluenceClient));
+            }
+            return results;
+        } finally {
+            deleteRecursively(workDirectory);
+        }
+    }
+
+    private PublishBenchmarkResult runScenario(final String phase, final int changedPages, final SyntheticPageTree pageTree,
+                                               final FakeConfluenceServer server, final ConfluenceRestClient confluenceClient) {
+        final ConfluencePublisher publisher = new ConfluencePublisher(pageTree.getMetadata(), APPEND_TO_ANCESTOR, confluenceClient);
+
+        server.resetStatistics();
+        resetPeakHeapUsage();
+        final long start = System.nanoTime();
+        publisher.publish();
+        final long wallClockMillis = (System.nanoTime() - start) / 1_000_000;
+
+        final PublishBenchmarkResult result = new PublishBenchmarkResult();
+        result.setScenario(scenarioName(pageTree, phase));
+        result.setPages(pageTree.getPageCount());
+        result.setAttachments(pageTree.getAttachmentCount());
+        result.setFanOut(Integer.getInteger("benchmark.fanOut", 10));
+        result.setDepth(pageTree.getDepth());
+        result.setAttachmentSize(Integer.getInteger("benchmark.attachmentSize", 4096));
+        result.setPhase(phase);
+        result.setChangedPages(changedPages);
+        result.setWallClockMillis(wallClockMillis);
+        result.setRequests(server.getRequestCount());
+        result.setRequestsPerPage(round((double) server.getRequestCount() / pageTree.getPageCount()));
+        result.setBytesPerPage(round((double) (server.getRequestBytes() + server.getResponseBytes()) / pageTree.getPageCount()));
+        result.setPeakHeapBytes(peakHeapUsage());
+        result.setRequestsByEndpoint(server.getRequestCountsByEndpoint());
+
+        System.out.println(String.format("%-60s %8d ms %8.2f req/page %10.1f B/page %6d MiB peak heap",
+                result.getScenario(), wallClockMillis, result.getRequestsPerPage(), result.getBytesPerPage(), result.getPeakHeapBytes() >> 20));
+
+        return result;
+    }
+
+    private static String scenarioName(final SyntheticPageTree pageTree, final String phase) {
+        return "pages=" + pageTree.getPageCount() +
+                ",fanOut=" + Integer.getInteger("benchmark.fanOut", 10) +
+                ",attachments=" + pageTree.getAttachmentCount() +
+                "x" + Integer.getInteger("benchmark.attachmentSize", 4096) + "B" +
+                "," + phase;
+    }
+
+    private void assertNoRegressions(final List<PublishBenchmarkResult> results, final Map<String, PublishBenchmarkResult> baseline, final double tolerance) {
+        final List<String> regressions = new ArrayList<>();
+        results.forEach(result -> {
+            final PublishBenchmarkResult expected = baseline.get(result.getScenario());
+            if (expected == null) {
+                return;
+            }
+            if (result.getRequestsPerPage() > expected.getRequestsPerPage() * (1 + tolerance)) {
+                regressions.add(result.getScenario() + ": " + result.getRequestsPerPage() + " requests/page, baseline " + expected.getRequestsPerPage());
+            }
+            if (result.getBytesPerPage() > expected.getBytesPerPage() * (1 + tolerance)) {
+                regressions.add(result.getScenario() + ": " + result.getBytesPerPage() + " bytes/page, baseline " + expected.getBytesPerPage());
+            }
+        });
+
+        if (!regressions.isEmpty()) {
+            fail("Publishing regressed against baseline " + BASELINE_RESOURCE + ":\n" + String.join("\n", regressions));
+        }
+    }
+
+    private Map<String, PublishBenchmarkResult> readBaseline() throws IOException {
+        final Map<String, PublishBenchmarkResult> baseline = new HashMap<>();
+        try (InputStream inputStream = PublishBenchmark.class.getResourceAsStream(BASELINE_RESOURCE)) {
+            if (inputStream == null) {
+                return baseline;
+            }
+            final JsonNode results = this.objectMapper.readTree(inputStream).path("results");
+            for (final JsonNode result : results) {
+                final PublishBenchmarkResult baselineResult = this.objectMapper.treeToValue(result, PublishBenchmarkResult.class);
+                baseline.put(baselineResult.getScenario(), baselineResult);
+            }
+        }
+        return baseline;
+    }
+
+    private void writeReport(final List<PublishBenchmarkResult> results, final Path reportFile) throws IOException {
+        final Map<String, Object> report = new HashMap<>();
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("results", results);
+
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        this.objectMapper.writeValue(reportFile.toFile(), report);
+    }
+
+    private static void resetPeakHeapUsage() {
+        System.gc();
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long peakHeapUsage() {
+        return heapPools().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    }
+
+    private static Stream<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == HEAP);
+    }
+
+    private static List<Integer> intList(final String propertyName, final String defaultValue) {
+        return Arrays.stream(System.getProperty(propertyName, defaultValue).split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .collect(toList());
+    }
+
+    private static double round(final double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static void deleteRecursively(final Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).collect(toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+}
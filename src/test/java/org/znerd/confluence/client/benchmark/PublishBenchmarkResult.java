@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.benchmark;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class PublishBenchmarkResult {
+
+    private String scenario;
+    private int pages;
+    private int attachments;
+    private int fanOut;
+    private int depth;
+    private int attachmentSize;
+    private String phase;
+    private int changedPages;
+    private long wallClockMillis;
+    private long requests;
+    private double requestsPerPage;
+    private double bytesPerPage;
+    private long peakHeapBytes;
+    private Map<String, Long> requestsByEndpoint = new TreeMap<>();
+
+    public String getScenario() {
+        return scenario;
+    }
+
+    public void setScenario(String scenario) {
+        this.scenario = scenario;
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    public void setPages(int pages) {
+        this.pages = pages;
+    }
+
+    public int getAttachments() {
+        return attachments;
+    }
+
+    public void setAttachments(int attachments) {
+        this.attachments = attachments;
+    }
+
+    public int getFanOut() {
+        return fanOut;
+    }
+
+    public void setFanOut(int fanOut) {
+        this.fanOut = fanOut;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public int getAttachmentSize() {
+        return attachmentSize;
+    }
+
+    public void setAttachmentSize(int attachmentSize) {
+        this.attachmentSize = attachmentSize;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public int getChangedPages() {
+        return changedPages;
+    }
+
+    public void setChangedPages(int changedPages) {
+        this.changedPages = changedPages;
+    }
+
+    public long getWallClockMillis() {
+        return wallClockMillis;
+    }
+
+    public void setWallClockMillis(long wallClockMillis) {
+        this.wallClockMillis = wallClockMillis;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public void setRequests(long requests) {
+        this.requests = requests;
+    }
+
+    public double getRequestsPerPage() {
+        return requestsPerPage;
+    }
+
+    public void setRequestsPerPage(double requestsPerPage) {
+        this.requestsPerPage = requestsPerPage;
+    }
+
+    public double getBytesPerPage() {
+        return bytesPerPage;
+    }
+
+    public void setBytesPerPage(double bytesPerPage) {
+        this.bytesPerPage = bytesPerPage;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public void setPeakHeapBytes(long peakHeapBytes) {
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    public Map<String, Long> getRequestsByEndpoint() {
+        return requestsByEndpoint;
+    }
+
+    public void setRequestsByEndpoint(Map<String, Long> requestsByEndpoint) {
+        this.requestsByEndpoint = requestsByEndpoint;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.benchmark;
+
+import org.znerd.confluence.client.metadata.ConfluencePageMetadata;
+import org.znerd.confluence.client.metadata.ConfluencePublisherMetadata;
+import org.znerd.confluence.client.metadata.FileConfluencePageMetadata;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Generates a page tree of {@link FileConfluencePageMetadata} backed by files in a work directory. Pages form a
+ * complete forest with the given fan-out, so depth grows with the logarithm of the page count.
+ */
+public final class SyntheticPageTree {
+
+    private final Path workDirectory;
+    private final int pageCount;
+    private final int fanOut;
+    private final int attachmentsPerPage;
+    private final int attachmentSize;
+    private final Random random;
+    private final List<FileConfluencePageMetadata> pages;
+    private final ConfluencePublisherMetadata metadata;
+
+    private int revision;
+
+    public SyntheticPageTree(final Path workDirectory, final String spaceKey, final String ancestorId,
+                             final int pageCount, final int fanOut, final int attachmentsPerPage, final int attachmentSize,
+                             final long seed) {
+        this.workDirectory = workDirectory;
+        this.pageCount = pageCount;
+        this.fanOut = fanOut;
+        this.attachmentsPerPage = attachmentsPerPage;
+        this.attachmentSize = attachmentSize;
+        this.random = new Random(seed);
+        this.pages = new ArrayList<>(pageCount);
+
+        final List<ConfluencePageMetadata> rootPages = new ArrayList<>();
+        for (int i = 0; i < pageCount; i++) {
+            final FileConfluencePageMetadata page = createPage(i);
+            this.pages.add(page);
+            if (i < fanOut) {
+                rootPages.add(page);
+            } else {
+                this.pages.get(i / fanOut - 1).getChildren().add(page);
+            }
+        }
+
+        this.metadata = new ConfluencePublisherMetadata();
+        this.metadata.setSpaceKey(spaceKey);
+        this.metadata.setAncestorId(ancestorId);
+        this.metadata.setPages(rootPages);
+    }
+
+    public ConfluencePublisherMetadata getMetadata() {
+        return this.metadata;
+    }
+
+    public int getPageCount() {
+        return this.pageCount;
+    }
+
+    public int getAttachmentCount() {
+        return this.pageCount * this.attachmentsPerPage;
+    }
+
+    public int getDepth() {
+        int depth = 0;
+        for (long levelStart = 0, levelSize = this.fanOut; levelStart < this.pageCount; levelStart += levelSize, levelSize *= this.fanOut) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Rewrites the content, and the first attachment if any, of an evenly spread fraction of the pages.
+     */
+    public int modifyPages(final double fraction) {
+        this.revision++;
+        final int modifiedPageCount = (int) Math.ceil(this.pageCount * fraction);
+        final int stride = Math.max(1, this.pageCount / Math.max(1, modifiedPageCount));
+
+        int modified = 0;
+        for (int i = 0; i < this.pageCount && modified < modifiedPageCount; i += stride, modified++) {
+            write(Layout.contentFile(this.workDirectory, i), content(i).getBytes(UTF_8));
+            if (this.attachmentsPerPage > 0) {
+                write(Layout.attachmentFile(this.workDirectory, i, 0), randomBytes());
+            }
+        }
+        return modified;
+    }
+
+    private FileConfluencePageMetadata createPage(final int index) {
+        final Path contentFile = Layout.contentFile(this.workDirectory, index);
+        write(contentFile, content(index).getBytes(UTF_8));
+
+        final Map<String, String> attachments = new LinkedHashMap<>();
+        for (int i = 0; i < this.attachmentsPerPage; i++) {
+            final Path attachmentFile = Layout.attachmentFile(this.workDirectory, index, i);
+            write(attachmentFile, randomBytes());
+            attachments.put(attachmentFile.getFileName().toString(), attachmentFile.toString());
+        }
+
+        final FileConfluencePageMetadata page = new FileConfluencePageMetadata();
+        page.setTitle("Synthetic Page " + index);
+        page.setContentFilePath(contentFile.toString());
+        page.setAttachments(attachments);
+        return page;
+    }
+
+    private String content(final int index) {
+        return "<h1>Synthetic Page " + index + "</h1>\n" +
+                "<p>Revision " + this.revision + " of a generated page used to benchmark publishing.</p>\n" +
+                "<ul><li>Lorem ipsum dolor sit amet</li><li>consectetur adipiscing elit</li></ul>";
+    }
+
+    private byte[] randomBytes() {
+        final byte[] bytes = new byte[this.attachmentSize];
+        this.random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void write(final Path file, final byte[] content) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, content);
+        } catch (final IOException e) {
+            throw new RuntimeException("Could not write synthetic file [" + file + "]", e);
+        }
+    }
+
+    private static final class Layout {
+        private static Path contentFile(final Path workDirectory, final int pageIndex) {
+            return workDirectory.resolve("pages").resolve(bucket(pageIndex)).resolve("page-" + pageIndex + ".xhtml");
+        }
+
+        private static Path attachmentFile(final Path workDirectory, final int pageIndex, final int attachmentIndex) {
+            return workDirectory.resolve("attachments").resolve(bucket(pageIndex)).resolve("attachment-" + pageIndex + "-" + attachmentIndex + ".bin");
+        }
+
+        private static String bucket(final int pageIndex) {
+            return Integer.toString(pageIndex / 1000);
+        }
+    }
+}
@@ -31,19 +31,26 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.ArgumentCaptor;
+import org.znerd.confluence.client.benchmark.FakeConfluenceServer;
 import org.znerd.confluence.client.utils.IoUtils;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
@@ -82,6 +89,30 @@ public class ConfluenceRestClientTest {
         new ConfluenceRestClient(CONFLUENCE_ROOT_URL, null, null, null);
     }
 
+    @Test
+    public void getMaxConcurrentRequests_withDefaultConnectionPool_returnsConnectionsPerRoute() {
+        // arrange
+        ConfluenceRestClient confluenceRestClient = new ConfluenceRestClient(CONFLUENCE_ROOT_URL, false, null, null);
+
+        // act
+        int maxConcurrentRequests = confluenceRestClient.getMaxConcurrentRequests();
+
+        // assert
+        assertThat(maxConcurrentRequests, is(4));
+    }
+
+    @Test
+    public void getMaxConcurrentRequests_withGivenHttpClient_returnsNoLimit() {
+        // arrange
+        ConfluenceRestClient confluenceRestClient = new ConfluenceRestClient(CONFLUENCE_ROOT_URL, anyCloseableHttpClient(), null, null);
+
+        // act
+        int maxConcurrentRequests = confluenceRestClient.getMaxConcurrentRequests();
+
+        // assert
+        assertThat(maxConcurrentRequests, is(Integer.MAX_VALUE));
+    }
+
     @Test
     public void addPageUnderAncestor_withValidParameters_returnsCreatedPageContentId() throws Exception {
         // arrange
@@ -310,6 +341,26 @@ public class ConfluenceRestClientTest {
         assertThat(httpGetArgumentCaptor.getAllValues().get(1).getURI().toString(), containsString("start=1"));
     }
 
+    @Test
+    public void getChildPages_withPropertyKeys_expandsPropertiesAndReturnsTheirValues() throws Exception {
+        // arrange
+        String resultSet = "{\"id\": \"1\", \"title\": \"Page 1\", \"version\": {\"number\": 1}, "
+            + "\"metadata\": {\"properties\": {\"page-identity\": {\"key\": \"page-identity\", \"value\": \"page-1.html\"}}}}, "
+            + "{\"id\": \"2\", \"title\": \"Page 2\", \"version\": {\"number\": 1}}";
+        CloseableHttpClient httpClientMock = recordHttpClientForSingleResponseWithContentAndStatusCode("{\"results\": [" + resultSet + "], \"size\": 2}", 200);
+        ConfluenceRestClient confluenceRestClient = new ConfluenceRestClient(CONFLUENCE_ROOT_URL, httpClientMock, null, null);
+        ArgumentCaptor<HttpGet> httpGetArgumentCaptor = ArgumentCaptor.forClass(HttpGet.class);
+
+        // act
+        List<ConfluencePage> childPages = confluenceRestClient.getChildPages("1234", singletonList("page-identity"));
+
+        // assert
+        verify(httpClientMock).execute(httpGetArgumentCaptor.capture());
+        assertThat(httpGetArgumentCaptor.getValue().getURI().toString(), containsString("expand=version%2Cmetadata.properties.page-identity"));
+        assertThat(childPages.get(0).getProperty("page-identity"), is("page-1.html"));
+        assertThat(childPages.get(1).getProperty("page-identity"), is(nullValue()));
+    }
+
     @Test
     public void getAttachments_withValidParametersAndFirstResultIsSmallerThanLimit_returnsAttachments() throws Exception {
         // arrange
@@ -432,6 +483,60 @@ public class ConfluenceRestClientTest {
         verify(httpClientMock, times(1)).execute(any(HttpGet.class));
     }
 
+    @Test
+    public void getPropertiesByKey_withMultipleKeys_sendsSingleGetRequestAndReturnsRequestedProperties() throws Exception {
+        // arrange
+        String resultSet = "{\"key\": \"content-hash\", \"value\": \"hash-value\", \"version\": {\"number\": 3}}, "
+            + "{\"key\": \"attachment.txt-hash\", \"value\": \"attachment-hash-value\", \"version\": {\"number\": 1}}, "
+            + "{\"key\": \"other-property\", \"value\": \"other-value\", \"version\": {\"number\": 1}}";
+        CloseableHttpClient httpClientMock = recordHttpClientForSingleResponseWithContentAndStatusCode("{\"results\": [" + resultSet + "], \"size\": 3}", 200);
+        ConfluenceRestClient confluenceRestClient = new ConfluenceRestClient(CONFLUENCE_ROOT_URL, httpClientMock, null, null);
+
+        // act
+        Map<String, ConfluenceProperty> properties = confluenceRestClient.getPropertiesByKey("1234", asList("content-hash", "attachment.txt-hash", "missing-hash"));
+
+        // assert
+        assertThat(properties.size(), is(2));
+        assertThat(properties.get("content-hash"), is(new ConfluenceProperty("content-hash", "hash-value", 3)));
+        assertThat(properties.get("attachment.txt-hash"), is(new ConfluenceProperty("attachment.txt-hash", "attachment-hash-value", 1)));
+        verify(httpClientMock, times(1)).execute(any(HttpGet.class));
+    }
+
+    @Test
+    public void updatePropertyByKey_withKnownVersion_sendsSinglePutRequestWithNextVersion() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = recordHttpClientForSingleResponseWithContentAndStatusCode("{}", 200);
+        ConfluenceRestClient confluenceRestClient = new ConfluenceRestClient(CONFLUENCE_ROOT_URL, httpClientMock, null, null);
+        ArgumentCaptor<HttpPut> httpPutArgumentCaptor = ArgumentCaptor.forClass(HttpPut.class);
+
+        // act
+        int newVersion = confluenceRestClient.updatePropertyByKey("1234", "content-hash", "new-hash", 3);
+
+        // assert
+        assertThat(newVersion, is(4));
+        verify(httpClientMock, times(1)).execute(httpPutArgumentCaptor.capture());
+        assertThat(IoUtils.inputStreamAsString(httpPutArgumentCaptor.getValue().getEntity().getContent(), UTF_8), containsString("\"number\":4"));
+    }
+
+    @Test
+    public void updatePropertyByKey_withVersionConflict_fetchesCurrentVersionAndRetries() throws Exception {
+        // arrange
+        String currentProperty = "{\"results\": [{\"key\": \"content-hash\", \"value\": \"other-hash\", \"version\": {\"number\": 5}}], \"size\": 1}";
+        CloseableHttpClient httpClientMock = recordHttpClientForMultipleResponsesWithContentAndStatusCode(asList(currentProperty, "{}"), asList(409, 200, 200));
+        ConfluenceRestClient confluenceRestClient = new ConfluenceRestClient(CONFLUENCE_ROOT_URL, httpClientMock, null, null);
+        ArgumentCaptor<HttpRequestBase> httpRequestArgumentCaptor = ArgumentCaptor.forClass(HttpRequestBase.class);
+
+        // act
+        int newVersion = confluenceRestClient.updatePropertyByKey("1234", "content-hash", "new-hash", 3);
+
+        // assert
+        assertThat(newVersion, is(6));
+        assertThat(confluenceRestClient.getStatistics().getPropertyUpdateRetries(), is(1L));
+        verify(httpClientMock, times(3)).execute(httpRequestArgumentCaptor.capture());
+        assertThat(httpRequestArgumentCaptor.getAllValues().stream().map(HttpRequestBase::getMethod).collect(toList()), contains("PUT", "GET", "PUT"));
+        assertThat(IoUtils.inputStreamAsString(((HttpPut) httpRequestArgumentCaptor.getAllValues().get(2)).getEntity().getContent(), UTF_8), containsString("\"number\":6"));
+    }
+
     @Test
     public void deletePropertyByKey_withValidParameters_sendsDeleteRequestForPropertyKey() throws Exception {
         // arrange
@@ -479,6 +584,66 @@ public class ConfluenceRestClientTest {
         confluenceRestClient.addPageUnderAncestor("~personalSpace", "123", "Hello", "Content", "Version Message");
     }
 
+    @Test
+    public void getStatistics_afterRequest_countsRequestWithoutRequestsInFlight() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = recordHttpClientForSingleResponseWithContentAndStatusCode("", 204);
+        ConfluenceRestClient confluenceRestClient = new ConfluenceRestClient(CONFLUENCE_ROOT_URL, httpClientMock, null, null);
+
+        // act
+        confluenceRestClient.deletePage("1234");
+
+        // assert
+        ConfluenceRestClientMXBean statistics = confluenceRestClient.getStatistics();
+        assertThat(statistics.getTotalRequests(), is(1L));
+        assertThat(statistics.getInFlightRequests(), is(0));
+        assertThat(statistics.getLatencyMaxMillis(), is(greaterThanOrEqualTo(statistics.getLatencyP50Millis())));
+        assertThat(statistics.getLeasedConnections(), is(-1));
+        assertThat(statistics.getReusedConnectionRequests(), is(-1L));
+        assertThat(statistics.getPropertyUpdateRetries(), is(0L));
+    }
+
+    @Test
+    public void getStatistics_withDefaultHttpClient_exposesConnectionPool() {
+        // arrange
+        try (FakeConfluenceServer server = new FakeConfluenceServer()) {
+            server.createPage("~personalSpace", null, "Some Page", "Content");
+            ConfluenceRestClient confluenceRestClient = new ConfluenceRestClient(server.getRootConfluenceUrl(), false, "username", "password");
+
+            // act
+            confluenceRestClient.getPageByTitle("~personalSpace", "Some Page");
+            confluenceRestClient.getPageByTitle("~personalSpace", "Some Page");
+
+            // assert
+            ConfluenceRestClientMXBean statistics = confluenceRestClient.getStatistics();
+            assertThat(statistics.getLeasedConnections(), is(0));
+            assertThat(statistics.getAvailableConnections(), is(1));
+            assertThat(statistics.getPendingConnectionRequests(), is(0));
+            assertThat(statistics.getMaxConnections(), is(20));
+            assertThat(statistics.getMaxConnectionsPerRoute(), is(4));
+            assertThat(statistics.getNewConnectionRequests(), is(1L));
+            assertThat(statistics.getReusedConnectionRequests(), is(1L));
+        }
+    }
+
+    @Test
+    public void registerMBean_registersStatisticsWithPlatformMBeanServer() throws Exception {
+        // arrange
+        ConfluenceRestClient confluenceRestClient = new ConfluenceRestClient(CONFLUENCE_ROOT_URL, anyCloseableHttpClient(), null, null);
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        // act
+        ObjectName objectName = confluenceRestClient.registerMBean();
+
+        // assert
+        try {
+            assertThat(mBeanServer.getAttribute(objectName, "RootConfluenceUrl"), is(CONFLUENCE_ROOT_URL));
+            assertThat(mBeanServer.getAttribute(objectName, "TotalRequests"), is(0L));
+        } finally {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+
     private String generateJsonAttachmentResults(int numberOfAttachment) {
         return IntStream.range(1, numberOfAttachment + 1)
             .boxed()
@@ -33,6 +33,7 @@ import java.io.InputStream;
 import java.nio.file.Paths;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -624,6 +625,54 @@ public class HttpRequestFactoryTest {
         assertThat(getPropertyByKeyRequest.getURI().toString(), is(CONFLUENCE_REST_API_ENDPOINT + "/content/" + contentId + "/property/" + key + "?expand=value"));
     }
 
+    @Test
+    public void getPropertiesRequest_withLimitAndPageNumber_returnsHttpGetRequestWithValues() {
+        // arrange
+        String contentId = "1234";
+
+        // act
+        HttpGet getPropertiesRequest = this.httpRequestFactory.getPropertiesRequest(contentId, 100, 200);
+
+        // assert
+        assertThat(getPropertiesRequest.getURI().toString(), is(CONFLUENCE_REST_API_ENDPOINT + "/content/" + contentId + "/property?expand=value%2Cversion&limit=100&start=200"));
+    }
+
+    @Test
+    public void updatePropertyByKeyRequest_withValidParameters_returnsHttpPutRequestWithNewVersion() throws Exception {
+        // arrange
+        String contentId = "1234";
+        String key = "content-hash";
+        String value = "38495fsj98wgh";
+
+        // act
+        HttpPut updatePropertyByKeyRequest = this.httpRequestFactory.updatePropertyByKeyRequest(contentId, key, value, 2);
+
+        // assert
+        assertThat(updatePropertyByKeyRequest.getURI().toString(), is(CONFLUENCE_REST_API_ENDPOINT + "/content/" + contentId + "/property/" + key));
+        assertThat(updatePropertyByKeyRequest.getFirstHeader("Content-Type").getValue(), is(APPLICATION_JSON_UTF8));
+
+        String jsonPayload = IoUtils.inputStreamAsString(updatePropertyByKeyRequest.getEntity().getContent(), UTF_8);
+        String expectedJsonPayload = IoUtils.fileContent(Paths.get(CLASS_LOCATION, "update-property-by-key-request-payload.json").toString(), UTF_8);
+        assertThat(jsonPayload, SameJsonAsMatcher.isSameJsonAs(expectedJsonPayload));
+    }
+
+    @Test
+    public void addLabelsToPageRequest_withMultipleLabels_returnsSingleHttpPostRequestWithArrayPayload() throws Exception {
+        // arrange
+        String contentId = "1234";
+
+        // act
+        HttpPost addLabelsToPageRequest = this.httpRequestFactory.addLabelsToPageRequest(contentId, asList("docs", "api"));
+
+        // assert
+        assertThat(addLabelsToPageRequest.getURI().toString(), is(CONFLUENCE_REST_API_ENDPOINT + "/content/" + contentId + "/label"));
+        assertThat(addLabelsToPageRequest.getFirstHeader("Content-Type").getValue(), is(APPLICATION_JSON_UTF8));
+
+        String jsonPayload = IoUtils.inputStreamAsString(addLabelsToPageRequest.getEntity().getContent(), UTF_8);
+        String expectedJsonPayload = IoUtils.fileContent(Paths.get(CLASS_LOCATION, "add-labels-to-page-request-payload.json").toString(), UTF_8);
+        assertThat(jsonPayload, SameJsonAsMatcher.isSameJsonAs(expectedJsonPayload));
+    }
+
     @Test
     public void deletePropertyByKeyRequest_withValidParameters_returnsHttpDeleteRequest() {
         // arrange
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.znerd.confluence.client.ConfluencePublisher;
+import org.znerd.confluence.client.benchmark.FakeConfluenceServer;
+import org.znerd.confluence.client.benchmark.SyntheticPageTree;
+import org.znerd.confluence.client.http.ConfluenceRestClient;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.znerd.confluence.client.PublishingStrategy.APPEND_TO_ANCESTOR_KEEP_CHILDREN;
+
+public class FlightRecorderEventsTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void beginHttpRequest_withoutRecording_returnsNoOpRecording() {
+        // act
+        HttpRequestRecording recording = FlightRecorderEvents.beginHttpRequest();
+
+        // assert
+        assertThat(recording, is(sameInstance(HttpRequestRecording.NONE)));
+    }
+
+    @Test
+    public void publish_withRecording_emitsHttpRequestAndProcessingEvents() throws Exception {
+        // arrange
+        Path recordingFile = this.temporaryFolder.getRoot().toPath().resolve("publish.jfr");
+
+        try (FakeConfluenceServer server = new FakeConfluenceServer(); Recording recording = new Recording()) {
+            String ancestorId = server.createPage("JFR", null, "Root", "");
+            SyntheticPageTree pageTree = new SyntheticPageTree(this.temporaryFolder.newFolder().toPath(), "JFR", ancestorId, 3, 3, 1, 16, 42L);
+            ConfluenceRestClient confluenceRestClient = new ConfluenceRestClient(server.getRootConfluenceUrl(), false, "username", "password");
+            // keeping children checks every page again instead of skipping the unchanged tree as a whole
+            ConfluencePublisher confluencePublisher = new ConfluencePublisher(pageTree.getMetadata(), APPEND_TO_ANCESTOR_KEEP_CHILDREN, confluenceRestClient);
+            confluencePublisher.publish();
+
+            recording.enable("org.znerd.confluence.HttpRequest");
+            recording.enable("org.znerd.confluence.PageProcessing");
+            recording.enable("org.znerd.confluence.AttachmentProcessing");
+            recording.start();
+
+            // act
+            confluencePublisher.publish();
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        // assert
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        List<RecordedEvent> httpRequestEvents = eventsOfType(events, "org.znerd.confluence.HttpRequest");
+        List<RecordedEvent> pageEvents = eventsOfType(events, "org.znerd.confluence.PageProcessing");
+        List<RecordedEvent> attachmentEvents = eventsOfType(events, "org.znerd.confluence.AttachmentProcessing");
+
+        assertThat(httpRequestEvents.stream().map(event -> event.getString("endpoint")).collect(toList()), hasItem("/content/{id}/property"));
+        assertThat(httpRequestEvents.stream().map(event -> event.getInt("statusCode")).collect(toList()), hasItem(200));
+        assertThat(httpRequestEvents.stream().map(event -> event.getBoolean("connectionReused")).collect(toList()), hasItem(true));
+        assertThat(pageEvents, hasSize(3));
+        assertThat(pageEvents.get(0).getString("outcome"), is("UNCHANGED"));
+        assertThat(pageEvents.get(0).getString("hashCheck"), is("MATCH"));
+        assertThat(attachmentEvents, hasSize(3));
+        assertThat(attachmentEvents.get(0).getString("outcome"), is("UNCHANGED"));
+    }
+
+    private static List<RecordedEvent> eventsOfType(List<RecordedEvent> events, String eventName) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .collect(toList());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.metadata;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DirectoryConfluencePublisherMetadataTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void new_withNestedDirectories_discoversPagesChildrenAndAttachments() throws IOException {
+        // arrange
+        Path root = this.temporaryFolder.getRoot().toPath();
+        file(root.resolve("B.xhtml"), "<p>B</p>");
+        file(root.resolve("A.xhtml"), "<p>A</p>");
+        file(root.resolve("A/A1.xhtml"), "<p>A1</p>");
+        file(root.resolve("A/A1/A1a.xhtml"), "<p>A1a</p>");
+        file(root.resolve("A/diagram.png"), "png");
+        file(root.resolve("A/.hidden"), "hidden");
+        file(root.resolve("orphan.png"), "not attached to any page");
+
+        // act
+        DirectoryConfluencePublisherMetadata metadata = new DirectoryConfluencePublisherMetadata(root, "SPACE", "1234", 2);
+
+        // assert
+        assertThat(metadata.getSpaceKey(), is("SPACE"));
+        assertThat(metadata.getAncestorId(), is("1234"));
+        assertThat(titles(metadata.getPages()), contains("A", "B"));
+
+        ConfluencePageMetadata pageA = metadata.getPages().get(0);
+        assertThat(titles(pageA.getChildren()), contains("A1"));
+        assertThat(titles(pageA.getChildren().get(0).getChildren()), contains("A1a"));
+        assertThat(pageA.getAttachments().keySet(), contains("diagram.png"));
+        assertThat(pageA.getAttachments().get("diagram.png"), is(root.resolve("A/diagram.png").toAbsolutePath().toString()));
+        assertThat(metadata.getPages().get(1).getChildren(), is(empty()));
+        assertThat(metadata.getPages().get(1).getAttachments().isEmpty(), is(true));
+    }
+
+    @Test
+    public void new_withContentAndAttachments_precomputesSizesAndHashes() throws IOException {
+        // arrange
+        Path root = this.temporaryFolder.getRoot().toPath();
+        file(root.resolve("Page.xhtml"), "<h1>Page</h1>\n");
+        file(root.resolve("Page/attachment.txt"), "attachment");
+
+        // act
+        DirectoryConfluencePublisherMetadata metadata = new DirectoryConfluencePublisherMetadata(root, "SPACE", "1234");
+
+        // assert
+        DirectoryConfluencePageMetadata page = (DirectoryConfluencePageMetadata) metadata.getPages().get(0);
+        assertThat(page.getContent(), is("<h1>Page</h1>\n"));
+        assertThat(page.getContentHash(), is(sha256Hex(page.getContent())));
+        assertThat(page.getContentSize(), is(14L));
+        assertThat(page.getAttachmentHash("attachment.txt"), is(sha256Hex("attachment")));
+        assertThat(page.getAttachmentSize("attachment.txt"), is(10L));
+    }
+
+    @Test
+    public void getAttachmentHash_afterAttachmentChanged_keepsRecomputedHash() throws IOException {
+        // arrange
+        Path root = this.temporaryFolder.getRoot().toPath();
+        file(root.resolve("Page.xhtml"), "<h1>Page</h1>\n");
+        Path attachment = file(root.resolve("Page/attachment.txt"), "attachment");
+        DirectoryConfluencePageMetadata page = (DirectoryConfluencePageMetadata) new DirectoryConfluencePublisherMetadata(root, "SPACE", "1234").getPages().get(0);
+        FileTime lastModifiedTime = FileTime.fromMillis(Files.getLastModifiedTime(attachment).toMillis() + 60_000);
+        file(attachment, "changed-1");
+        Files.setLastModifiedTime(attachment, lastModifiedTime);
+        page.getAttachmentHash("attachment.txt");
+
+        // act
+        file(attachment, "changed-2");
+        Files.setLastModifiedTime(attachment, lastModifiedTime);
+
+        // assert
+        assertThat(page.getAttachmentHash("attachment.txt"), is(sha256Hex("changed-1")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void new_withMissingRootDirectory_throwsIllegalArgumentException() {
+        // act
+        new DirectoryConfluencePublisherMetadata(this.temporaryFolder.getRoot().toPath().resolve("missing"), "SPACE", "1234");
+    }
+
+    private static List<String> titles(List<ConfluencePageMetadata> pages) {
+        return pages.stream().map(ConfluencePageMetadata::getTitle).collect(toList());
+    }
+
+    private static Path file(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.metadata;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.znerd.confluence.client.metadata.PageContentCache.PageContent;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class PageContentCacheTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void get_sameUnchangedFileTwice_returnsCachedContent() throws IOException {
+        // arrange
+        PageContentCache pageContentCache = new PageContentCache(1024);
+        Path file = file("page.html", "<h1>Page</h1>\n");
+        PageContent first = pageContentCache.get(file, UTF_8);
+
+        // act
+        PageContent second = pageContentCache.get(file, UTF_8);
+
+        // assert
+        assertThat(second, is(sameInstance(first)));
+        assertThat(second.getContent(), is("<h1>Page</h1>\n"));
+        assertThat(second.getHash(), is(sha256Hex("<h1>Page</h1>\n")));
+        assertThat(second.getSize(), is(14));
+        assertThat(pageContentCache.getHits(), is(1L));
+        assertThat(pageContentCache.getMisses(), is(1L));
+        assertThat(pageContentCache.getHitRatio(), is(0.5));
+    }
+
+    @Test
+    public void get_fileChangedSinceCached_reloadsContent() throws IOException {
+        // arrange
+        PageContentCache pageContentCache = new PageContentCache(1024);
+        Path file = file("page.html", "<h1>Page</h1>");
+        pageContentCache.get(file, UTF_8);
+        Files.write(file, "<h1>Other</h1>".getBytes(UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+
+        // act
+        PageContent pageContent = pageContentCache.get(file, UTF_8);
+
+        // assert
+        assertThat(pageContent.getContent(), is("<h1>Other</h1>"));
+        assertThat(pageContentCache.getMisses(), is(2L));
+    }
+
+    @Test
+    public void get_fileRewrittenWithSameSizeAndModificationTime_reloadsContent() throws IOException {
+        // arrange
+        assumeTrue(this.temporaryFolder.getRoot().toPath().getFileSystem().supportedFileAttributeViews().contains("unix"));
+        PageContentCache pageContentCache = new PageContentCache(1024);
+        Path file = file("page.html", "<h1>Page</h1>");
+        FileTime lastModifiedTime = Files.getLastModifiedTime(file);
+        pageContentCache.get(file, UTF_8);
+        Files.write(file, "<h1>Edit</h1>".getBytes(UTF_8));
+        Files.setLastModifiedTime(file, lastModifiedTime);
+
+        // act
+        PageContent pageContent = pageContentCache.get(file, UTF_8);
+
+        // assert
+        assertThat(pageContent.getContent(), is("<h1>Edit</h1>"));
+        assertThat(pageContentCache.getMisses(), is(2L));
+    }
+
+    @Test
+    public void get_moreContentThanBudget_evictsLeastRecentlyUsedContent() throws IOException {
+        // arrange
+        PageContentCache pageContentCache = new PageContentCache(60);
+        Path one = file("one.html", "0123456789");
+        Path two = file("two.html", "0123456789");
+        PageContent cachedOne = pageContentCache.get(one, UTF_8);
+        pageContentCache.get(two, UTF_8);
+        pageContentCache.get(one, UTF_8);
+
+        // act
+        pageContentCache.get(file("three.html", "0123456789"), UTF_8);
+
+        // assert
+        assertThat(pageContentCache.getCachedBytes(), is(60L));
+        assertThat(pageContentCache.get(one, UTF_8), is(sameInstance(cachedOne)));
+        assertThat(pageContentCache.getMisses(), is(3L));
+        pageContentCache.get(two, UTF_8);
+        assertThat(pageContentCache.getMisses(), is(4L));
+    }
+
+    @Test
+    public void get_contentLargerThanBudget_isNotCached() throws IOException {
+        // arrange
+        PageContentCache pageContentCache = new PageContentCache(10);
+        Path file = file("page.html", "0123456789");
+        PageContent first = pageContentCache.get(file, UTF_8);
+
+        // act
+        PageContent second = pageContentCache.get(file, UTF_8);
+
+        // assert
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(pageContentCache.getCachedBytes(), is(0L));
+    }
+
+    @Test
+    public void registerMBean_registersStatisticsWithPlatformMBeanServer() throws Exception {
+        // arrange
+        PageContentCache pageContentCache = new PageContentCache(1024);
+        pageContentCache.get(file("page.html", "0123456789"), UTF_8);
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        // act
+        ObjectName objectName = pageContentCache.registerMBean();
+
+        // assert
+        try {
+            assertThat(mBeanServer.getAttribute(objectName, "Misses"), is(1L));
+            assertThat(mBeanServer.getAttribute(objectName, "CachedBytes"), is(30L));
+            assertThat(mBeanServer.getAttribute(objectName, "MaxBytes"), is(1024L));
+        } finally {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+
+    private Path file(String name, String content) throws IOException {
+        return Files.write(this.temporaryFolder.getRoot().toPath().resolve(name), content.getBytes(UTF_8));
+    }
+}
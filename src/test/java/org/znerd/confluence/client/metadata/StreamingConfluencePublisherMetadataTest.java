@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.metadata;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class StreamingConfluencePublisherMetadataTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void new_withSpaceKeyAndAncestorIdAfterPages_readsSpaceKeyAndAncestorId() throws IOException {
+        // arrange
+        Path metadataFile = metadataFile("{\"pages\": [{\"title\": \"A\", \"contentFilePath\": \"a.html\"}], \"spaceKey\": \"SPACE\", \"ancestorId\": \"1234\"}");
+
+        // act
+        StreamingConfluencePublisherMetadata metadata = new StreamingConfluencePublisherMetadata(metadataFile, this.temporaryFolder.getRoot().toPath());
+
+        // assert
+        assertThat(metadata.getSpaceKey(), is("SPACE"));
+        assertThat(metadata.getAncestorId(), is("1234"));
+        assertThat(metadata.hasPageTree(), is(false));
+    }
+
+    @Test
+    public void walkPages_withNestedPages_entersParentsBeforeChildrenAndExitsThemAfterwards() throws IOException {
+        // arrange
+        Path metadataFile = metadataFile("{\"spaceKey\": \"SPACE\", \"pages\": ["
+                + "{\"title\": \"A\", \"contentFilePath\": \"a.html\", \"children\": ["
+                + "{\"title\": \"A1\", \"contentFilePath\": \"a1.html\", \"children\": null},"
+                + "{\"title\": \"A2\", \"contentFilePath\": \"a2.html\"}"
+                + "]},"
+                + "{\"title\": \"B\", \"contentFilePath\": \"b.html\"}"
+                + "]}");
+        RecordingVisitor visitor = new RecordingVisitor();
+
+        // act
+        new StreamingConfluencePublisherMetadata(metadataFile, this.temporaryFolder.getRoot().toPath()).walkPages(visitor);
+
+        // assert
+        assertThat(visitor.events, contains("enter A", "enter A1", "exit A1", "enter A2", "exit A2", "exit A", "enter B", "exit B"));
+    }
+
+    @Test
+    public void walkPages_withChildrenBeforeTitle_entersParentBeforeChildren() throws IOException {
+        // arrange
+        Path metadataFile = metadataFile("{\"pages\": [{\"children\": [{\"title\": \"A1\", \"contentFilePath\": \"a1.html\"}], \"title\": \"A\", \"contentFilePath\": \"a.html\"}]}");
+        RecordingVisitor visitor = new RecordingVisitor();
+
+        // act
+        new StreamingConfluencePublisherMetadata(metadataFile, this.temporaryFolder.getRoot().toPath()).walkPages(visitor);
+
+        // assert
+        assertThat(visitor.events, contains("enter A", "enter A1", "exit A1", "exit A"));
+        assertThat(((FileConfluencePageMetadata) visitor.pages.get(1)).getContentFilePath(), is(this.temporaryFolder.getRoot().toPath().resolve("a1.html").toString()));
+    }
+
+    @Test
+    public void walkPages_withAttachments_resolvesPathsAgainstContentRoot() throws IOException {
+        // arrange
+        Path contentRoot = this.temporaryFolder.getRoot().toPath();
+        Path metadataFile = metadataFile("{\"pages\": [{\"title\": \"A\", \"contentFilePath\": \"a.html\", \"attachments\": {\"one.txt\": \"files/one.txt\"}}]}");
+        RecordingVisitor visitor = new RecordingVisitor();
+
+        // act
+        new StreamingConfluencePublisherMetadata(metadataFile, contentRoot).walkPages(visitor);
+
+        // assert
+        FileConfluencePageMetadata page = (FileConfluencePageMetadata) visitor.pages.get(0);
+        assertThat(page.getContentFilePath(), is(contentRoot.resolve("a.html").toString()));
+        assertThat(page.getAttachments().get("one.txt"), is(contentRoot.resolve("files/one.txt").toString()));
+    }
+
+    private Path metadataFile(String json) throws IOException {
+        Path metadataFile = this.temporaryFolder.newFile().toPath();
+        Files.write(metadataFile, json.getBytes(UTF_8));
+
+        return metadataFile;
+    }
+
+    private static class RecordingVisitor implements ConfluencePageVisitor {
+
+        private final List<String> events = new ArrayList<>();
+        private final List<ConfluencePageMetadata> pages = new ArrayList<>();
+
+        @Override
+        public void enterPage(ConfluencePageMetadata page) {
+            this.events.add("enter " + page.getTitle());
+            this.pages.add(page);
+        }
+
+        @Override
+        public void exitPage(ConfluencePageMetadata page) {
+            this.events.add("exit " + page.getTitle());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class GitUtilsTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void changedFiles_betweenTwoCommits_returnsAbsolutePathsOfChangedFiles() throws Exception {
+        // arrange
+        Path repository = this.temporaryFolder.getRoot().toPath().toRealPath();
+        git(repository, "init", "-q");
+        write(repository.resolve("docs/unchanged.xhtml"), "<p>unchanged</p>");
+        write(repository.resolve("docs/changed.xhtml"), "<p>before</p>");
+        write(repository.resolve("docs/removed.png"), "removed");
+        commit(repository, "first");
+        write(repository.resolve("docs/changed.xhtml"), "<p>after</p>");
+        write(repository.resolve("docs/added.xhtml"), "<p>added</p>");
+        Files.delete(repository.resolve("docs/removed.png"));
+        commit(repository, "second");
+
+        // act
+        Set<Path> changedFiles = GitUtils.changedFiles(repository.resolve("docs"), "HEAD~1", "HEAD");
+
+        // assert
+        assertThat(changedFiles, containsInAnyOrder(repository.resolve("docs/changed.xhtml"), repository.resolve("docs/added.xhtml"), repository.resolve("docs/removed.png")));
+    }
+
+    @Test
+    public void changedFiles_withoutToRevision_comparesWithWorkingTree() throws Exception {
+        // arrange
+        Path repository = this.temporaryFolder.getRoot().toPath().toRealPath();
+        git(repository, "init", "-q");
+        write(repository.resolve("page.xhtml"), "<p>before</p>");
+        commit(repository, "first");
+        write(repository.resolve("page.xhtml"), "<p>after</p>");
+
+        // act
+        Set<Path> changedFiles = GitUtils.changedFiles(repository, "HEAD", null);
+
+        // assert
+        assertThat(changedFiles, containsInAnyOrder(repository.resolve("page.xhtml")));
+    }
+
+    @Test
+    public void changedFiles_unknownRevision_throwsRuntimeExceptionWithGitError() throws Exception {
+        // arrange
+        Path repository = this.temporaryFolder.getRoot().toPath().toRealPath();
+        git(repository, "init", "-q");
+
+        try {
+            // act
+            GitUtils.changedFiles(repository, "does-not-exist", "HEAD");
+            fail("RuntimeException expected");
+        } catch (RuntimeException e) {
+            // assert
+            assertThat(e.getMessage(), containsString("does-not-exist"));
+        }
+    }
+
+    private static void commit(Path repository, String message) throws IOException, InterruptedException {
+        git(repository, "add", "-A");
+        git(repository, "-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "-m", message);
+    }
+
+    private static void git(Path repository, String... arguments) throws IOException, InterruptedException {
+        String[] command = new String[arguments.length + 3];
+        command[0] = "git";
+        command[1] = "-C";
+        command[2] = repository.toString();
+        System.arraycopy(arguments, 0, command, 3, arguments.length);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = IoUtils.inputStreamAsString(process.getInputStream(), UTF_8);
+        assertThat(output, process.waitFor(), is(0));
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class IoUtilsTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void fileContent_withCarriageReturnsAndTrailingNewline_keepsContentAsIs() throws IOException {
+        // arrange
+        Path file = file("<h1>Title</h1>\r\n<p>Text</p>\n".getBytes(UTF_8));
+
+        // act
+        String content = IoUtils.fileContent(file, UTF_8);
+
+        // assert
+        assertThat(content, is("<h1>Title</h1>\r\n<p>Text</p>\n"));
+    }
+
+    @Test
+    public void fileContent_withFileAboveMappedThreshold_readsWholeFile() throws IOException {
+        // arrange
+        byte[] bytes = new byte[IoUtils.MAPPED_THRESHOLD + 1];
+        Arrays.fill(bytes, (byte) 'a');
+        Path file = file(bytes);
+
+        // act
+        String content = IoUtils.fileContent(file, UTF_8);
+
+        // assert
+        assertThat(content, is(new String(bytes, UTF_8)));
+        assertThat(IoUtils.sha256Hex(file), is(sha256Hex(bytes)));
+    }
+
+    @Test
+    public void sha256Hex_withFileLargerThanBuffer_hashesWholeFile() throws IOException {
+        // arrange
+        byte[] bytes = new byte[200 * 1024];
+        Arrays.fill(bytes, (byte) 'b');
+        Path file = file(bytes);
+
+        // act
+        String hash = IoUtils.sha256Hex(file);
+
+        // assert
+        assertThat(hash, is(sha256Hex(bytes)));
+    }
+
+    @Test
+    public void inputStreamAsString_withMultipleLines_keepsLineSeparators() {
+        // act
+        String content = IoUtils.inputStreamAsString(new ByteArrayInputStream("one\r\ntwo\n".getBytes(UTF_8)), UTF_8);
+
+        // assert
+        assertThat(content, is("one\r\ntwo\n"));
+    }
+
+    private Path file(byte[] bytes) throws IOException {
+        return Files.write(this.temporaryFolder.newFile().toPath(), bytes);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.utils;
+
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeMatcher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Matches a {@link RequestCounter} that stayed within upper bounds for the total number of requests, the requests per
+ * method and the requests per endpoint.
+ */
+public class RequestBudget extends TypeSafeMatcher<RequestCounter> {
+
+    private Long maxTotal;
+    private final Map<String, Long> maxByMethod = new LinkedHashMap<>();
+    private final Map<String, Long> maxByEndpoint = new LinkedHashMap<>();
+
+    private RequestBudget() {
+    }
+
+    public static RequestBudget isWithinRequestBudget() {
+        return new RequestBudget();
+    }
+
+    public RequestBudget total(long maxRequests) {
+        this.maxTotal = maxRequests;
+        return this;
+    }
+
+    public RequestBudget method(String method, long maxRequests) {
+        this.maxByMethod.put(method, maxRequests);
+        return this;
+    }
+
+    public RequestBudget endpoint(String methodAndEndpoint, long maxRequests) {
+        this.maxByEndpoint.put(methodAndEndpoint, maxRequests);
+        return this;
+    }
+
+    @Override
+    protected boolean matchesSafely(RequestCounter requestCounter) {
+        if (this.maxTotal != null && requestCounter.total() > this.maxTotal) {
+            return false;
+        }
+        boolean methodsWithinBudget = this.maxByMethod.entrySet().stream()
+                .allMatch((entry) -> requestCounter.countByMethod(entry.getKey()) <= entry.getValue());
+        boolean endpointsWithinBudget = this.maxByEndpoint.entrySet().stream()
+                .allMatch((entry) -> requestCounter.count(entry.getKey()) <= entry.getValue());
+
+        return methodsWithinBudget && endpointsWithinBudget;
+    }
+
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("at most");
+        if (this.maxTotal != null) {
+            description.appendText(" " + this.maxTotal + " requests in total");
+        }
+        this.maxByMethod.forEach((method, max) -> description.appendText(", " + max + " " + method + " requests"));
+        this.maxByEndpoint.forEach((endpoint, max) -> description.appendText(", " + max + " x " + endpoint));
+    }
+
+    @Override
+    protected void describeMismatchSafely(RequestCounter requestCounter, Description mismatchDescription) {
+        mismatchDescription.appendText(requestCounter.total() + " requests in total: " + requestCounter.countsByEndpoint());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.utils;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.protocol.HttpContext;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.znerd.confluence.client.utils.EndpointUtils.endpointTemplate;
+
+/**
+ * Counts the HTTP requests sent through an {@link org.apache.http.client.HttpClient} by method and endpoint template,
+ * such as {@code GET /content/{id}/property/{key}}.
+ */
+public class RequestCounter implements HttpRequestInterceptor {
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    public CloseableHttpClient countingHttpClient() {
+        return HttpClients.custom()
+                .addInterceptorFirst(this)
+                .build();
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        String method = request.getRequestLine().getMethod();
+        String path = URI.create(request.getRequestLine().getUri()).getPath();
+        this.counts.computeIfAbsent(method + " " + endpointTemplate(path), (ignored) -> new LongAdder()).increment();
+    }
+
+    public long total() {
+        return this.counts.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long count(String methodAndEndpoint) {
+        LongAdder count = this.counts.get(methodAndEndpoint);
+        return count != null ? count.sum() : 0;
+    }
+
+    public long countByMethod(String method) {
+        return this.counts.entrySet().stream()
+                .filter((entry) -> entry.getKey().startsWith(method + " "))
+                .mapToLong((entry) -> entry.getValue().sum())
+                .sum();
+    }
+
+    public Map<String, Long> countsByEndpoint() {
+        Map<String, Long> countsByEndpoint = new TreeMap<>();
+        this.counts.forEach((endpoint, count) -> countsByEndpoint.put(endpoint, count.sum()));
+        return countsByEndpoint;
+    }
+
+    public void reset() {
+        this.counts.clear();
+    }
+}
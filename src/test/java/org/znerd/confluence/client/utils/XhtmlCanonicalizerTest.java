@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.znerd.confluence.client.utils;
+
+import org.junit.Test;
+
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class XhtmlCanonicalizerTest {
+
+    @Test
+    public void canonicalize_withIndentationAndLineEndings_dropsWhitespaceAroundBlockTags() {
+        // act
+        String canonicalXhtml = XhtmlCanonicalizer.canonicalize("\r\n<h1>Title</h1>\r\n  <p>Some   <b>bold</b>\n\ttext </p>\n");
+
+        // assert
+        assertThat(canonicalXhtml, is("<h1>Title</h1><p>Some <b>bold</b> text</p>"));
+    }
+
+    @Test
+    public void canonicalize_withInlineConfluenceTags_keepsWhitespaceAroundThem() {
+        // act
+        String spacedLink = XhtmlCanonicalizer.canonicalize("<p>see <ac:link><ri:page ri:content-title=\"X\"/></ac:link> now</p>");
+        String unspacedLink = XhtmlCanonicalizer.canonicalize("<p>see<ac:link><ri:page ri:content-title=\"X\"/></ac:link>now</p>");
+        String spacedEmoticon = XhtmlCanonicalizer.canonicalize("<p>a <ac:emoticon ac:name=\"smile\"/> b</p>");
+
+        // assert
+        assertThat(spacedLink, is("<p>see <ac:link><ri:page ri:content-title=\"X\"/></ac:link> now</p>"));
+        assertThat(spacedLink, is(not(unspacedLink)));
+        assertThat(spacedEmoticon, is("<p>a <ac:emoticon ac:name=\"smile\"/> b</p>"));
+    }
+
+    @Test
+    public void canonicalize_withIndentedMacro_dropsWhitespaceAroundMacroTags() {
+        // act
+        String canonicalXhtml = XhtmlCanonicalizer.canonicalize("<ac:structured-macro ac:name=\"info\">\n  <ac:rich-text-body>\n    <p>x</p>\n  </ac:rich-text-body>\n</ac:structured-macro>");
+
+        // assert
+        assertThat(canonicalXhtml, is("<ac:structured-macro ac:name=\"info\"><ac:rich-text-body><p>x</p></ac:rich-text-body></ac:structured-macro>"));
+    }
+
+    @Test
+    public void canonicalize_withUnorderedAttributes_sortsAndQuotesAttributes() {
+        // act
+        String canonicalXhtml = XhtmlCanonicalizer.canonicalize("<ac:image ac:width='250'  ac:align=\"center\" ><ri:attachment ri:filename=\"a.png\" /></ac:image>");
+
+        // assert
+        assertThat(canonicalXhtml, is("<ac:image ac:align=\"center\" ac:width=\"250\"><ri:attachment ri:filename=\"a.png\"/></ac:image>"));
+    }
+
+    @Test
+    public void canonicalize_withEquivalentCharacterReferences_producesSameOutput() {
+        // act
+        String named = XhtmlCanonicalizer.canonicalize("<p>a&nbsp;b &mdash; &quot;c&quot; &lt; d &amp; e</p>");
+        String numeric = XhtmlCanonicalizer.canonicalize("<p>a&#160;b &#x2014; \"c\" &#60; d & e</p>");
+
+        // assert
+        assertThat(numeric, is(named));
+        assertThat(named, is("<p>a b — \"c\" &lt; d &amp; e</p>"));
+    }
+
+    @Test
+    public void canonicalize_withPreformattedTextAndCdata_keepsWhitespace() {
+        // act
+        String canonicalXhtml = XhtmlCanonicalizer.canonicalize("<pre>  a\r\n   b</pre>\n<ac:plain-text-body><![CDATA[  x\n  y ]]></ac:plain-text-body>");
+
+        // assert
+        assertThat(canonicalXhtml, is("<pre>  a\n   b</pre><ac:plain-text-body><![CDATA[  x\n  y ]]></ac:plain-text-body>"));
+    }
+
+    @Test
+    public void canonicalize_withChangedText_producesDifferentOutput() {
+        // act
+        String original = XhtmlCanonicalizer.canonicalize("<p><b>a</b> <i>b</i></p>");
+        String changed = XhtmlCanonicalizer.canonicalize("<p><b>a</b><i>b</i></p>");
+
+        // assert
+        assertThat(changed, is(not(original)));
+    }
+
+    @Test
+    public void canonicalSha256Hex_withNonAsciiContent_matchesHashOfCanonicalForm() {
+        // arrange
+        String xhtml = "<p title='café'>über &#x1F600; €</p>";
+
+        // act
+        String hash = XhtmlCanonicalizer.canonicalSha256Hex(xhtml);
+
+        // assert
+        assertThat(hash, is(sha256Hex(XhtmlCanonicalizer.canonicalize(xhtml))));
+    }
+}